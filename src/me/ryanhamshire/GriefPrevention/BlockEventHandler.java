@@ -136,10 +136,12 @@ public class BlockEventHandler implements Listener {
 	public void onBlockBreak(BlockBreakEvent breakEvent) {
         boolean DoCancelEvent = false;
         ClaimBehaviourData cbd = null;
+        // everything looked up for this break is shared by the checks below.
+        EventContext context = EventContext.acquire(breakEvent.getPlayer(), breakEvent.getBlock());
         try {
-		Debugger.Write("onBlockBreak", DebugLevel.Verbose);
-		Debugger.Write("Block broken:" + breakEvent.getBlock().getType().name(), DebugLevel.Verbose);
-		WorldConfig wc = GriefPrevention.instance.getWorldCfg(breakEvent.getBlock().getWorld());
+		Debugger.Write(DebugLevel.Verbose, "onBlockBreak");
+		Debugger.Write(DebugLevel.Verbose, "Block broken:%s", breakEvent.getBlock().getType().name());
+		WorldConfig wc = context.getWorldConfig();
 		if(!wc.Enabled()) return;
 		Player player = breakEvent.getPlayer();
 		Block block = breakEvent.getBlock();
@@ -147,18 +149,18 @@ public class BlockEventHandler implements Listener {
         //block overrides.
         cbd = wc.getBlockBreakOverrides().getBehaviourforBlock(block);
         if(cbd!=null){
-                ClaimBehaviourData.ClaimAllowanceConstants result = cbd.Allowed(block.getLocation(),player,true);
+                ClaimBehaviourData.ClaimAllowanceConstants result = context.allowed(cbd,true);
             if(result.Allowed()){
-                Debugger.Write("Block Override Forcing allow for break of block:" + block.getType().name(),DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "Block Override Forcing allow for break of block:%s", block.getType().name());
                 DoCancelEvent=false;
             }
                 else if(result.Denied()){
-                Debugger.Write("Block Override Forcing deny for breaking of block:" + block.getType().name(),DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "Block Override Forcing deny for breaking of block:%s", block.getType().name());
                 DoCancelEvent=true;
 
             }
         }
-        if(wc.getBreakBlockRules().Allowed(block.getLocation(),player,cbd==null).Denied() && cbd==null){
+        if(context.allowed(wc.getBreakBlockRules(),cbd==null).Denied() && cbd==null){
             breakEvent.setCancelled(true);
             return;
         }
@@ -166,18 +168,18 @@ public class BlockEventHandler implements Listener {
 		// if the block is a trash block....
 		if (wc.getTrashBlocks().contains(breakEvent.getBlock().getType())) {
 			// and if this location is applicable for trash block placement...
-			if (wc.getTrashBlockPlacementBehaviour().Allowed(breakEvent.getBlock().getLocation(), player, false).Allowed());
+			if (context.allowed(wc.getTrashBlockPlacementBehaviour(), false).Allowed());
 
 			// allow it with abandon...
 			return;
 
 		}
-		if(wc.getBreakBlockRules().Allowed(block.getLocation(), player,cbd==null).Denied()){
+		if(context.allowed(wc.getBreakBlockRules(),cbd==null).Denied()){
             breakEvent.setCancelled(true);
 			return;
 		}
 		
-		Claim claim = this.getDataStore().getClaimAt(block.getLocation(), true);
+		Claim claim = context.getClaim(true);
 		// make sure the player is allowed to break at the location
 
 		// if there's a claim here
@@ -190,10 +192,11 @@ public class BlockEventHandler implements Listener {
 			(block.getY() < claim.lesserBoundaryCorner.getBlockY() && claim.allowBuild(player) == null) {
 				// extend the claim downward beyond the breakage point
 				this.getDataStore().extendClaim(claim, claim.getLesserBoundaryCorner().getBlockY() - wc.getClaimsExtendIntoGroundDistance());
+				context.forgetClaims();
 			}
 
 		}
-		String noBuildReason = GriefPrevention.instance.allowBreak(player, block.getLocation(),cbd==null);
+		String noBuildReason = GriefPrevention.instance.allowBreak(context,cbd==null);
 		if (noBuildReason != null && !DoCancelEvent) {
 			// System.out.println("BuildReason!=null.");
 			GriefPrevention.sendMessage(player, TextMode.Err, noBuildReason);
@@ -206,7 +209,7 @@ public class BlockEventHandler implements Listener {
 			// run the specialized code for treetop removal (see below)
 			GriefPrevention.instance.handleLogBroken(block);
 		}
-            else if(block.getType()==Material.ICE && wc.getWaterBucketEmptyBehaviour().Allowed(block.getLocation(),player).Denied()){
+            else if(block.getType()==Material.ICE && context.allowed(wc.getWaterBucketEmptyBehaviour(),true).Denied()){
             //ice logic. We want to allow breaking ice (if it has so far passed)
             //in the nether or a nether biome (since it won't turn to water)
             //if the item being used has a silk touch enchant
@@ -240,6 +243,7 @@ public class BlockEventHandler implements Listener {
         finally {
 
             if(cbd!=null) breakEvent.setCancelled(DoCancelEvent);
+            context.release();
         }
 	}
 
@@ -461,7 +465,7 @@ public class BlockEventHandler implements Listener {
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(igniteEvent.getBlock().getWorld());
 		if(!wc.Enabled()) return;
         if(igniteEvent==null || igniteEvent.getIgnitingBlock()==null) return;
-        Debugger.Write("Block:" + igniteEvent.getBlock().getType().name() + ", Igniting Block:" + igniteEvent.getIgnitingBlock().getType().name() + " cause:" + igniteEvent.getCause().name(),DebugLevel.Verbose);
+        Debugger.Write(DebugLevel.Verbose, "Block:%s, Igniting Block:%s cause:%s", igniteEvent.getBlock().getType().name(), igniteEvent.getIgnitingBlock().getType().name(), igniteEvent.getCause().name());
 		boolean TargetAllowed = igniteEvent.getIgnitingBlock()==null?true:
 		wc.getFireSpreadTargetBehaviour().Allowed(igniteEvent.getIgnitingBlock().getLocation(), null).Allowed();
 		Claim testclaim = GriefPrevention.instance.dataStore.getClaimAt(igniteEvent.getIgnitingBlock().getLocation(),true);
@@ -520,18 +524,58 @@ public class BlockEventHandler implements Listener {
 			return;
 		}
 
+		// which direction? note we're ignoring vertical push
+		int xchange = 0;
+		int zchange = 0;
+
+		Block piston = event.getBlock();
+		Block firstBlock = blocks.get(0);
+
+		if (firstBlock.getX() > piston.getX()) {
+			xchange = 1;
+		} else if (firstBlock.getX() < piston.getX()) {
+			xchange = -1;
+		} else if (firstBlock.getZ() > piston.getZ()) {
+			zchange = 1;
+		} else if (firstBlock.getZ() < piston.getZ()) {
+			zchange = -1;
+		}
+		boolean horizontal = xchange != 0 || zchange != 0;
+
+		// resolve every claim we need in one batch: the piston, then each
+		// pushed block, then (for horizontal pushes) where each block ends up.
+		int count = blocks.size();
+		int total = 1 + (horizontal ? count * 2 : count);
+		int[] xs = new int[total];
+		int[] ys = new int[total];
+		int[] zs = new int[total];
+		xs[0] = piston.getX();
+		ys[0] = piston.getY();
+		zs[0] = piston.getZ();
+		for (int i = 0; i < count; i++) {
+			Block block = blocks.get(i);
+			xs[1 + i] = block.getX();
+			ys[1 + i] = block.getY();
+			zs[1 + i] = block.getZ();
+			if (horizontal) {
+				xs[1 + count + i] = block.getX() + xchange;
+				ys[1 + count + i] = block.getY();
+				zs[1 + count + i] = block.getZ() + zchange;
+			}
+		}
+		Claim[] resolved = this.getDataStore().resolveClaims(piston.getWorld(), xs, ys, zs);
+
 		// who owns the piston, if anyone?
 		String pistonClaimOwnerName = "_";
-		Claim claim = this.getDataStore().getClaimAt(event.getBlock().getLocation(), false);
+		Claim claim = resolved[0];
 		if (claim != null)
 			pistonClaimOwnerName = claim.getOwnerName();
 
 		// which blocks are being pushed?
-		for (int i = 0; i < blocks.size(); i++) {
+		for (int i = 0; i < count; i++) {
 			// if ANY of the pushed blocks are owned by someone other than the
 			// piston owner, cancel the event
-			Block block = blocks.get(i);
-			claim = this.getDataStore().getClaimAt(block.getLocation(), false);
+			claim = resolved[1 + i];
 			if (claim != null && !claim.getOwnerName().equals(pistonClaimOwnerName)) {
 				
 				event.setCancelled(true);
@@ -542,34 +586,16 @@ public class BlockEventHandler implements Listener {
 			}
 		}
 
-		// which direction? note we're ignoring vertical push
-		int xchange = 0;
-		int zchange = 0;
-
-		Block piston = event.getBlock();
-		Block firstBlock = blocks.get(0);
-
-		if (firstBlock.getX() > piston.getX()) {
-			xchange = 1;
-		} else if (firstBlock.getX() < piston.getX()) {
-			xchange = -1;
-		} else if (firstBlock.getZ() > piston.getZ()) {
-			zchange = 1;
-		} else if (firstBlock.getZ() < piston.getZ()) {
-			zchange = -1;
-		}
-
 		// if horizontal movement
-		if (xchange != 0 || zchange != 0) {
-			for (int i = 0; i < blocks.size(); i++) {
-				Block block = blocks.get(i);
-				Claim originalClaim = this.getDataStore().getClaimAt(block.getLocation(), false);
+		if (horizontal) {
+			for (int i = 0; i < count; i++) {
+				Claim originalClaim = resolved[1 + i];
 				String originalOwnerName = "";
 				if (originalClaim != null) {
 					originalOwnerName = originalClaim.getOwnerName();
 				}
 
-				Claim newClaim = this.getDataStore().getClaimAt(block.getLocation().add(xchange, 0, zchange), false);
+				Claim newClaim = resolved[1 + count + i];
 				String newOwnerName = "";
 				if (newClaim != null) {
 					newOwnerName = newClaim.getOwnerName();
@@ -631,34 +657,36 @@ public class BlockEventHandler implements Listener {
 	public void onBlockPlace(BlockPlaceEvent placeEvent) {
         boolean DoCancelEvent = false;
         ClaimBehaviourData cbd=null;
+        // everything looked up for this placement is shared by the checks below.
+        EventContext context = EventContext.acquire(placeEvent.getPlayer(), placeEvent.getBlock());
         try {
 		Player player = placeEvent.getPlayer();
 		Block block = placeEvent.getBlock();
-		WorldConfig wc = GriefPrevention.instance.getWorldCfg(block.getWorld());
+		WorldConfig wc = context.getWorldConfig();
 		if(!wc.Enabled()) return;
 
         cbd = wc.getBlockPlaceOverrides().getBehaviourforBlock(block);
         if(cbd!=null){
-            ClaimBehaviourData.ClaimAllowanceConstants result = cbd.Allowed(block.getLocation(),player);
+            ClaimBehaviourData.ClaimAllowanceConstants result = context.allowed(cbd,true);
             if(result.Allowed()){
-                Debugger.Write("Block Override Forcing allow for placement of block:" + block.getType().name(),DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "Block Override Forcing allow for placement of block:%s", block.getType().name());
                 DoCancelEvent=false;
             }
             else if(result.Denied()){
-                Debugger.Write("Block Override Forcing deny for placement of block:" + block.getType().name(),DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "Block Override Forcing deny for placement of block:%s", block.getType().name());
                 DoCancelEvent=true;
 
             }
         }
 
-        if(wc.getPlaceBlockRules().Allowed(block.getLocation(), player,cbd==null).Denied() && (cbd==null)){
+        if(context.allowed(wc.getPlaceBlockRules(),cbd==null).Denied() && (cbd==null)){
             placeEvent.setCancelled(true);
             return;
         }
 
 
 
-		boolean theftallowed = wc.getContainersRules().Allowed(block.getLocation(), player, false).Allowed();
+		boolean theftallowed = context.allowed(wc.getContainersRules(), false).Allowed();
 		/*if (wc.getApplyTrashBlockRules()) {
 			// if set, then we only allow Trash Blocks to be placed, and only in
 			// the allowed places.
@@ -674,7 +702,7 @@ public class BlockEventHandler implements Listener {
 		// if placed block is fire, make sure FireSetting is allowed in that
 		// location.
 		if (block.getType() == Material.FIRE) {
-			if (wc.getFireSetting().Allowed(block.getLocation(), player,cbd==null).Denied()) {
+			if (context.allowed(wc.getFireSetting(),cbd==null).Denied()) {
 				placeEvent.setCancelled(true);
 				return;
 			}
@@ -702,20 +730,20 @@ public class BlockEventHandler implements Listener {
 		// make sure the player is allowed to build at the location
 		/*
 */
-		if(wc.getPlaceBlockRules().Allowed(block.getLocation(),player,cbd==null).Denied() && cbd==null){
+		if(context.allowed(wc.getPlaceBlockRules(),cbd==null).Denied() && cbd==null){
 			placeEvent.setCancelled(true);
 			return;
 		}
 		
 		
 		// if the block is being placed within an existing claim
-		PlayerData playerData = this.getDataStore().getPlayerData(player.getName());
-		Claim claim = this.getDataStore().getClaimAt(block.getLocation(), true);
+		PlayerData playerData = context.getPlayerData();
+		Claim claim = context.getClaim(true);
 		if (claim != null) {
 			// warn about TNT not destroying claimed blocks
 			if (block.getType() == Material.TNT && !claim.areExplosivesAllowed && !DoCancelEvent) {
                 //if TNT will not damage this area, say as much.
-                if(wc.getTNTExplosionBehaviour().Allowed(block.getLocation(),player,false).Denied()){
+                if(context.allowed(wc.getTNTExplosionBehaviour(),false).Denied()){
 				   GriefPrevention.sendMessage(player, TextMode.Warn, Messages.NoTNTDamageClaims);
                    GriefPrevention.sendMessage(player, TextMode.Instr, Messages.ClaimExplosivesAdvertisement);
                 }
@@ -728,6 +756,7 @@ public class BlockEventHandler implements Listener {
 			if (block.getY() < claim.lesserBoundaryCorner.getBlockY() && claim.allowBuild(player) == null) {
 				// extend the claim downward
 				this.getDataStore().extendClaim(claim, claim.getLesserBoundaryCorner().getBlockY() - wc.getClaimsExtendIntoGroundDistance());
+				context.forgetClaims();
 			}
 
 			// reset the counter for warning the player when he places outside
@@ -754,20 +783,20 @@ public class BlockEventHandler implements Listener {
 			// claim centered at the chest
 			if (playerData.claims.size() == 0) {
 				// make sure they have permission to create claims.
-                Debugger.Write("Player has no claims, and is placing a chest.",DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "Player has no claims, and is placing a chest.");
                 if(wc.getCreateClaimRequiresPermission() && !player.hasPermission(PermNodes.CreateClaimsPermission)){
                    return;
                 }
 				else if (!player.hasPermission(PermNodes.CreateClaimsPermission)) {
 					// no message is sent, because players may not be aware.
-                    Debugger.Write("Player " + player.getName() + " does not have permission to create claims. Not automatically creating a claim.",DebugLevel.Verbose);
+                    Debugger.Write(DebugLevel.Verbose, "Player %s does not have permission to create claims. Not automatically creating a claim.", player.getName());
 					return;
 
 				}
 
 				// radius == 0 means protect ONLY the chest
 				if (wc.getAutomaticClaimsForNewPlayerRadius() == 0) {
-                    Debugger.Write("Creating 1x1 claim to protect Chest placed by " + player.getName(),DebugLevel.Verbose);
+                    Debugger.Write(DebugLevel.Verbose, "Creating 1x1 claim to protect Chest placed by %s", player.getName());
 					this.getDataStore().createClaim(block.getWorld(), block.getX(), block.getX(), block.getY(), block.getY(), block.getZ(), block.getZ(), player.getName(), null, null, false, player);
 					GriefPrevention.sendMessage(player, TextMode.Success, Messages.ChestClaimConfirmation);
 				}
@@ -793,6 +822,9 @@ public class BlockEventHandler implements Listener {
 					Visualization.Apply(player, visualization);
 				}
 
+				// the new claim changes what's at the chest.
+				context.forgetClaims();
+
 				// instructions for using /trust
 				GriefPrevention.sendMessage(player, TextMode.Instr, Messages.TrustCommandAdvertisement);
 
@@ -805,7 +837,7 @@ public class BlockEventHandler implements Listener {
 
 			// check to see if this chest is in a claim, and warn when it isn't
 
-			if (theftallowed && this.getDataStore().getClaimAt(block.getLocation(), false) == null && cbd==null) {
+			if (theftallowed && context.getClaim(false) == null && cbd==null) {
 				GriefPrevention.sendMessage(player, TextMode.Warn, Messages.UnprotectedChestWarning);
 			}
 		}
@@ -842,8 +874,8 @@ public class BlockEventHandler implements Listener {
 
 		// warn players if Explosions are not allowed at the position they place
 		// it.
-		boolean TNTAllowed = wc.getTNTExplosionBlockDamageBehaviour().Allowed(block.getLocation(), null, false).Allowed();
-        boolean TNTExplodes= wc.getTNTExplosionBehaviour().Allowed(block.getLocation(),null,false).Allowed();
+		boolean TNTAllowed = context.allowedWithoutPlayer(wc.getTNTExplosionBlockDamageBehaviour(), false).Allowed();
+        boolean TNTExplodes= context.allowedWithoutPlayer(wc.getTNTExplosionBehaviour(),false).Allowed();
 
             if (!TNTExplodes && block.getType() == Material.TNT && block.getWorld().getEnvironment() != Environment.NETHER) {
                 GriefPrevention.sendMessage(player, TextMode.Warn, Messages.NoTNTDamageThere);
@@ -858,6 +890,7 @@ public class BlockEventHandler implements Listener {
         finally {
                 //if the rules were block overridden, we ignore any other rules and just set that value.
                 if(cbd!=null) placeEvent.setCancelled(DoCancelEvent);
+                context.release();
 
         }
 	}
@@ -0,0 +1,99 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The top level claims touching one chunk. Once a list has been put into a
+ * ChunkClaimMap it is never changed; ClaimArray replaces the whole list
+ * instead. That lets each list lazily build a 16x16 raster telling which of
+ * its claims owns each block column, which stays valid for the list's
+ * lifetime.
+ */
+public class ChunkClaimList extends ArrayList<Claim> {
+
+	private static final long serialVersionUID = 1L;
+
+	// lists this short are scanned directly; a raster wouldn't be faster.
+	private static final int RASTER_THRESHOLD = 2;
+	// raster cells hold index + 1 in a byte, 0 meaning no claim.
+	private static final int RASTER_MAX_CLAIMS = 255;
+
+	private final int chunkX;
+	private final int chunkZ;
+	private volatile byte[] raster;
+
+	public ChunkClaimList(int chunkX, int chunkZ) {
+		super(2);
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+	}
+
+	public ChunkClaimList(int chunkX, int chunkZ, Collection<Claim> source) {
+		super(source);
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+	}
+
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	public int getChunkZ() {
+		return chunkZ;
+	}
+
+	/**
+	 * finds the top level claim covering a block column of this chunk. Height
+	 * is not considered.
+	 *
+	 * @param x
+	 *            block X coordinate, inside this chunk.
+	 * @param z
+	 *            block Z coordinate, inside this chunk.
+	 * @return the claim, or null if the column is not claimed.
+	 */
+	public Claim getClaimAt(int x, int z) {
+		int count = size();
+		if (count < RASTER_THRESHOLD || count > RASTER_MAX_CLAIMS) {
+			for (int i = 0; i < count; i++) {
+				Claim claim = get(i);
+				if (claim.parent == null && x >= claim.minX && x <= claim.maxX && z >= claim.minZ && z <= claim.maxZ)
+					return claim;
+			}
+			return null;
+		}
+
+		byte[] cells = raster;
+		if (cells == null)
+			raster = cells = buildRaster();
+		int cell = cells[((z & 15) << 4) | (x & 15)] & 0xFF;
+		return cell == 0 ? null : get(cell - 1);
+	}
+
+	private byte[] buildRaster() {
+		byte[] cells = new byte[256];
+		int baseX = chunkX << 4;
+		int baseZ = chunkZ << 4;
+		for (int i = 0; i < size(); i++) {
+			Claim claim = get(i);
+			if (claim.parent != null)
+				continue;
+			int fromX = Math.max(claim.minX, baseX) - baseX;
+			int toX = Math.min(claim.maxX, baseX + 15) - baseX;
+			int fromZ = Math.max(claim.minZ, baseZ) - baseZ;
+			int toZ = Math.min(claim.maxZ, baseZ + 15) - baseZ;
+			for (int cz = fromZ; cz <= toZ; cz++) {
+				for (int cx = fromX; cx <= toX; cx++) {
+					int index = (cz << 4) | cx;
+					// top level claims don't overlap, but if damaged data
+					// makes them, the first one wins like a linear scan would.
+					if (cells[index] == 0)
+						cells[index] = (byte) (i + 1);
+				}
+			}
+		}
+		return cells;
+	}
+
+}
@@ -0,0 +1,267 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Open addressing hash map from a packed chunk coordinate to the claims that
+ * occupy that chunk. Keys are primitive longs built by chunkKey(), so lookups
+ * don't need to build or hash a "world;x,z" string. One of these exists per
+ * world.
+ * <p>
+ * Alongside the table the map keeps a small bitset with one bit set for every
+ * claimed chunk, hashed. A clear bit means the chunk is certainly not claimed,
+ * which answers most wilderness lookups with a single array read. Bits are
+ * not cleared on removal; the set is rebuilt once enough removals have piled
+ * up, so it can only ever claim too much, never too little.
+ */
+public class ChunkClaimMap {
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/**
+	 * packs a chunk X/Z coordinate pair into a single long key.
+	 *
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return
+	 */
+	public static long chunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	public static int keyX(long key) {
+		return (int) (key >> 32);
+	}
+
+	public static int keyZ(long key) {
+		return (int) key;
+	}
+
+	private static long hash(long key) {
+		// murmur3 finalizer; chunk coordinates are small and clustered, so
+		// the raw bits hash poorly.
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	private static int mix(long key) {
+		return (int) hash(key);
+	}
+
+	// the table slot comes from the low half of the hash, the filter bit
+	// from the high half, so the two don't collide together.
+	private static int filterBit(long key) {
+		return (int) (hash(key) >>> 32);
+	}
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+	private int resizeAt;
+	// 8 filter bits per table slot, so at most 1 in 16 bits is set while
+	// the table is under its load factor.
+	private long[] filter;
+	private int filterMask;
+	private int staleRemovals;
+
+	public ChunkClaimMap() {
+		this(16);
+	}
+
+	public ChunkClaimMap(int expected) {
+		int capacity = 16;
+		while (capacity * LOAD_FACTOR < expected)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+		filter = new long[capacity / 8];
+		filterMask = capacity * 8 - 1;
+		staleRemovals = 0;
+	}
+
+	private void setFilterBit(long key) {
+		int bit = filterBit(key) & filterMask;
+		filter[bit >>> 6] |= 1L << bit;
+	}
+
+	private void rebuildFilter() {
+		Arrays.fill(filter, 0);
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != null)
+				setFilterBit(keys[i]);
+		}
+		staleRemovals = 0;
+	}
+
+	/**
+	 * quick check whether a chunk could hold claims. false means it certainly
+	 * doesn't; true means get() has to be asked.
+	 *
+	 * @param key
+	 *            packed chunk key, see chunkKey()
+	 * @return
+	 */
+	public boolean mightContain(long key) {
+		int bit = filterBit(key) & filterMask;
+		return (filter[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	public boolean mightContain(int chunkX, int chunkZ) {
+		return mightContain(chunkKey(chunkX, chunkZ));
+	}
+
+	/**
+	 * retrieves the claims in the given chunk.
+	 *
+	 * @param key
+	 *            packed chunk key, see chunkKey()
+	 * @return list of claims, or null if no claim touches that chunk.
+	 */
+	@SuppressWarnings("unchecked")
+	public ChunkClaimList get(long key) {
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		Object value;
+		while ((value = values[slot]) != null) {
+			if (keys[slot] == key)
+				return (ChunkClaimList) value;
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	public ChunkClaimList get(int chunkX, int chunkZ) {
+		return get(chunkKey(chunkX, chunkZ));
+	}
+
+	public void put(long key, ChunkClaimList value) {
+		if (value == null)
+			throw new IllegalArgumentException("value");
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		setFilterBit(key);
+		if (++size > resizeAt)
+			rehash(keys.length << 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ChunkClaimList remove(long key) {
+		int mask = keys.length - 1;
+		int slot = mix(key) & mask;
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				ChunkClaimList removed = (ChunkClaimList) values[slot];
+				closeGap(slot);
+				size--;
+				// stale bits only cost a map probe each, so put up with them
+				// until they could be a sizeable share of the set bits.
+				if (++staleRemovals > size + 16)
+					rebuildFilter();
+				return removed;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	// backward shift deletion, keeps probe sequences intact without
+	// tombstones.
+	private void closeGap(int gap) {
+		int mask = keys.length - 1;
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (values[slot] == null)
+				break;
+			int home = mix(keys[slot]) & mask;
+			// move the entry back if its home slot is not within (gap, slot]
+			if (gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		keys[gap] = 0;
+		values[gap] = null;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] == null)
+				continue;
+			int slot = mix(oldKeys[i]) & mask;
+			while (values[slot] != null)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+			setFilterBit(oldKeys[i]);
+		}
+	}
+
+	/**
+	 * creates a copy of this map. The claim lists themselves are shared, not
+	 * copied.
+	 *
+	 * @return
+	 */
+	public ChunkClaimMap copy() {
+		ChunkClaimMap result = new ChunkClaimMap();
+		result.keys = keys.clone();
+		result.values = values.clone();
+		result.size = size;
+		result.resizeAt = resizeAt;
+		result.filter = filter.clone();
+		result.filterMask = filterMask;
+		result.staleRemovals = staleRemovals;
+		return result;
+	}
+
+	/**
+	 * adds every claim in this map to the given collection.
+	 *
+	 * @param result
+	 */
+	@SuppressWarnings("unchecked")
+	public void collectClaims(Collection<Claim> result) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null)
+				result.addAll((ChunkClaimList) values[i]);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		Arrays.fill(filter, 0);
+		size = 0;
+		staleRemovals = 0;
+	}
+
+}
@@ -79,8 +79,13 @@ public class Claim {
 	 * children (subdivisions) note subdivisions themselves never have children
 	 */
 
-	public ArrayList<Claim> children = new ArrayList<Claim>();
+	public ArrayList<Claim> children = new ClaimChildList();
+	// interned, so it can usually be compared by reference.
 	private String ClaimWorldName;
+
+	// bounds of the claim, cached from the two corner locations by
+	// updateBounds() so that geometry checks don't need Location objects.
+	int minX, minY, minZ, maxX, maxZ;
 	/**
 	 * following a siege, buttons/levers are unlocked temporarily. this
 	 * represents that state
@@ -160,6 +165,13 @@ public class Claim {
 
 	// permissions for this claim, see ClaimPermission class
 	private HashMap<String, ClaimPermission> playerNameToClaimPermissionMap = new HashMap<String, ClaimPermission>();
+	// the permission map and managers compiled for checks. trustVersion is
+	// bumped on every change to either, which makes the table stale.
+	private volatile ClaimTrustTable trustTable;
+	private volatile int trustVersion;
+	// bumped on any change that can alter the outcome of the allow* checks,
+	// so cached results for this claim (see PermissionCache) are dropped.
+	private volatile int permissionVersion;
 	/**
 	 * information about a siege involving this claim. null means no siege is
 	 * currently impacting this claim
@@ -196,13 +208,13 @@ public class Claim {
 
 		// modification date
 		this.modifiedDate = new Date();
-		this.ClaimWorldName = lesserBoundaryCorner.getWorld().getName();
 		// id
 		this.id = id;
 
 		// store corners
 		this.lesserBoundaryCorner = lesserBoundaryCorner;
 		this.greaterBoundaryCorner = greaterBoundaryCorner;
+		this.updateBounds();
 
 		// owner
 		this.claimOwnerName = ownerName;
@@ -247,18 +259,19 @@ public class Claim {
 	 */
 	public boolean addManager(String player) {
 		// we only want to send events if the claim is in the data store
-		if (inDataStore) {
+		if (inDataStore && ClaimModifiedEvent.hasListeners()) {
 			ClaimModifiedEvent claimevent = new ClaimModifiedEvent(this, player, ClaimModifiedEvent.Type.AddedManager);
 			Bukkit.getServer().getPluginManager().callEvent(claimevent);
 			if (claimevent.isCancelled()) {
 				return false;
 			}
 		}
-		Debugger.Write("Adding " + player + " as manager to claim ID #" + this.getID(),Debugger.DebugLevel.Verbose);
+		Debugger.Write(Debugger.DebugLevel.Verbose, "Adding %s as manager to claim ID #%s", player, this.getID());
 
 		managers.add(player);
+		trustChanged();
 		if (inDataStore)
-			GriefPrevention.instance.dataStore.saveClaim(this);
+			GriefPrevention.instance.dataStore.saveClaimLater(this);
 		return true;
 	}
 
@@ -269,6 +282,10 @@ public class Claim {
 	 * @return
 	 */
 	public String allowAccess(Player player) {
+		return GriefPrevention.instance.dataStore.permissionCache.check(this, player, PermissionCache.ACCESS);
+	}
+
+	private String computeAccess(Player player) {
 
 		// following a siege where the defender lost, the claim will allow
 		// everyone access for a time
@@ -403,11 +420,14 @@ public class Claim {
 		// mods can make this happen somehow)
 		if (player == null)
 			return "";
-        WorldConfig wc = GriefPrevention.instance.getWorldCfg(player.getWorld());
 		// when a player tries to build in a claim, if he's under siege, the
 		// siege may extend to include the new claim
 		GriefPrevention.instance.dataStore.tryExtendSiege(player, this);
 
+		return GriefPrevention.instance.dataStore.permissionCache.check(this, player, PermissionCache.BUILD);
+	}
+
+	private String computeBuild(Player player) {
 		// admin claims can always be modified by admins, no exceptions
 		if (this.isAdminClaim()) {
 			if (player.hasPermission(PermNodes.AdminClaimsPermission))
@@ -470,6 +490,10 @@ public class Claim {
 		// include this claim
 		GriefPrevention.instance.dataStore.tryExtendSiege(player, this);
 
+		return GriefPrevention.instance.dataStore.permissionCache.check(this, player, PermissionCache.CONTAINERS);
+	}
+
+	private String computeContainers(Player player) {
 		// if under siege, nobody accesses containers
 		if (this.siegeData != null) {
 			return GriefPrevention.instance.dataStore.getMessage(Messages.NoContainersSiege, siegeData.attacker.getName());
@@ -521,8 +545,12 @@ public class Claim {
 		// mods can make this happen somehow)
 		if (player == null)
 			return "";
+		return GriefPrevention.instance.dataStore.permissionCache.check(this, player, PermissionCache.EDIT);
+	}
+
+	private String computeEdit(Player player) {
         PlayerData pd = GriefPrevention.instance.dataStore.getPlayerData(player.getName());
-        Debugger.Write("allowEdit Check for player " + player.getName() + " on claim owned by " + this.claimOwnerName, Debugger.DebugLevel.Verbose);
+        Debugger.Write(Debugger.DebugLevel.Verbose, "allowEdit Check for player %s on claim owned by %s", player.getName(), this.claimOwnerName);
 		// special cases...
 
 		// admin claims need adminclaims permission only.
@@ -586,19 +614,8 @@ public class Claim {
 
 
 		// anyone who's in the managers (/PermissionTrust) list can do this
-		for (int i = 0; i < this.managers.size(); i++) {
-			String managerID = this.managers.get(i);
-			if (this.isApplicablePlayer(managerID, player.getName()))
-				return null;
-
-			else if (managerID.startsWith("[") && managerID.endsWith("]")) {
-				managerID = managerID.substring(1, managerID.length() - 1);
-				if (managerID == null || managerID.isEmpty())
-					continue;
-				if (player.hasPermission(managerID))
-					return null;
-			}
-		}
+		if (this.getTrustTable().isManager(player))
+			return null;
 
 		// permission inheritance for subdivisions
 		if (this.parent != null)
@@ -707,7 +724,7 @@ public class Claim {
 	 */
 	public boolean clearPermissions() {
 		// we only want to send events if the claim is in the data store
-		if (inDataStore) {
+		if (inDataStore && ClaimModifiedEvent.hasListeners()) {
 			ClaimModifiedEvent claimevent = new ClaimModifiedEvent(this, null, ClaimModifiedEvent.Type.PermissionsCleared);
 			Bukkit.getServer().getPluginManager().callEvent(claimevent);
 			if (claimevent.isCancelled()) {
@@ -715,12 +732,15 @@ public class Claim {
 			}
 		}
 		this.playerNameToClaimPermissionMap.clear();
+		trustChanged();
 
 		return true;
 	}
 
 	public boolean contains(Claim otherclaim, boolean ignoreHeight) {
-		return (contains(otherclaim.lesserBoundaryCorner, ignoreHeight, false) && contains(otherclaim.greaterBoundaryCorner, ignoreHeight, false));
+		if (!isInWorld(otherclaim.ClaimWorldName))
+			return false;
+		return contains(otherclaim.minX, otherclaim.minY, otherclaim.minZ, ignoreHeight, false) && contains(otherclaim.maxX, otherclaim.greaterBoundaryCorner.getBlockY(), otherclaim.maxZ, ignoreHeight, false);
 	}
 
 	/**
@@ -736,15 +756,30 @@ public class Claim {
 	 */
 	public boolean contains(Location location, boolean ignoreHeight, boolean excludeSubdivisions) {
 		// not in the same world implies false
-		if (!location.getWorld().equals(this.lesserBoundaryCorner.getWorld()))
+		if (!isInWorld(location.getWorld().getName()))
 			return false;
 
-		int x = location.getBlockX();
-		int y = location.getBlockY();
-		int z = location.getBlockZ();
+		return contains(location.getBlockX(), location.getBlockY(), location.getBlockZ(), ignoreHeight, excludeSubdivisions);
+	}
 
+	/**
+	 * Whether or not a block position is in the claim. The world is not
+	 * checked; the caller must already know the position is in the claim's
+	 * world.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param ignoreHeight
+	 *            true means a position UNDER the claim will return TRUE
+	 * @param excludeSubdivisions
+	 *            true means that positions inside subdivisions of the claim
+	 *            will return FALSE
+	 * @return
+	 */
+	public boolean contains(int x, int y, int z, boolean ignoreHeight, boolean excludeSubdivisions) {
 		// main check
-		boolean inClaim = (ignoreHeight || y >= this.lesserBoundaryCorner.getBlockY()) && x >= this.lesserBoundaryCorner.getBlockX() && x <= this.greaterBoundaryCorner.getBlockX() && z >= this.lesserBoundaryCorner.getBlockZ() && z <= this.greaterBoundaryCorner.getBlockZ();
+		boolean inClaim = (ignoreHeight || y >= this.minY) && x >= this.minX && x <= this.maxX && z >= this.minZ && z <= this.maxZ;
 
 		if (!inClaim)
 			return false;
@@ -756,17 +791,14 @@ public class Claim {
 		// a subdivision can reach outside of its parent's boundaries. so this
 		// check is important!
 		if (this.parent != null) {
-			return this.parent.contains(location, ignoreHeight, false);
+			return this.parent.contains(x, y, z, ignoreHeight, false);
 		}
 
 		// code to exclude subdivisions in this check
 		else if (excludeSubdivisions) {
-			// search all subdivisions to see if the location is in any of them
-			for (int i = 0; i < this.children.size(); i++) {
-				// if we find such a subdivision, return false
-				if (this.children.get(i).contains(location, ignoreHeight, true)) {
-					return false;
-				}
+			// if the location is in any subdivision, return false
+			if (this.getChildAt(x, y, z, ignoreHeight) != null) {
+				return false;
 			}
 		}
 
@@ -801,13 +833,16 @@ public class Claim {
 			default:
 				permtype = null;
 			}
-			ClaimModifiedEvent claimevent = new ClaimModifiedEvent(this, null, permtype);
-			Bukkit.getServer().getPluginManager().callEvent(claimevent);
-			if (claimevent.isCancelled()) {
-				return false;
+			if (ClaimModifiedEvent.hasListeners()) {
+				ClaimModifiedEvent claimevent = new ClaimModifiedEvent(this, null, permtype);
+				Bukkit.getServer().getPluginManager().callEvent(claimevent);
+				if (claimevent.isCancelled()) {
+					return false;
+				}
 			}
 		}
 		this.playerNameToClaimPermissionMap.remove(playerName.toLowerCase());
+		trustChanged();
 		return true;
 	}
 
@@ -822,8 +857,8 @@ public class Claim {
 	 * @return
 	 */
 	public int getArea() {
-		int claimWidth = this.greaterBoundaryCorner.getBlockX() - this.lesserBoundaryCorner.getBlockX() + 1;
-		int claimHeight = this.greaterBoundaryCorner.getBlockZ() - this.lesserBoundaryCorner.getBlockZ() + 1;
+		int claimWidth = this.maxX - this.minX + 1;
+		int claimHeight = this.maxZ - this.minZ + 1;
 
 		return claimWidth * claimHeight;
 	}
@@ -837,13 +872,99 @@ public class Claim {
 	 *         the given Location, or null otherwise.
 	 */
 	public Claim getChildAt(Location testlocation) {
+		if (!isInWorld(testlocation.getWorld().getName()))
+			return null;
+		return getChildAt(testlocation.getBlockX(), testlocation.getBlockY(), testlocation.getBlockZ(), false);
+	}
 
-		for (Claim iterate : children) {
-			if (iterate.contains(testlocation, false, false))
-				return iterate;
+	/**
+	 * looks for a child claim/subdivision at the given block position. The
+	 * world is not checked. Claims with many subdivisions answer this from
+	 * an index instead of scanning them all.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param ignoreHeight
+	 *            true means a position UNDER the subdivision still counts.
+	 * @return the subdivision containing the position, or null.
+	 */
+	public Claim getChildAt(int x, int y, int z, boolean ignoreHeight) {
+		ArrayList<Claim> current = children;
+		if (current instanceof ClaimChildList) {
+			ClaimRTree index = ((ClaimChildList) current).getIndex();
+			if (index != null) {
+				// subdivisions of a claim don't overlap each other, so the
+				// column has at most one candidate.
+				Claim child = index.getClaimAt(x, z);
+				return child != null && child.contains(x, y, z, ignoreHeight, false) ? child : null;
+			}
+		}
+		for (Claim subdivision : getChildView()) {
+			if (subdivision.contains(x, y, z, ignoreHeight, false))
+				return subdivision;
 		}
 		return null;
+	}
+
+	/**
+	 * narrows the claim found by getClaimAt(location, true) to what
+	 * getClaimAt(location, false) would have found at the given height.
+	 * Subdivisions don't overlap, so the result is this claim, its parent, or
+	 * null when the position is under the top level claim.
+	 * 
+	 * @param y
+	 *            block Y coordinate of the position this claim was found at.
+	 * @return
+	 */
+	public Claim atHeight(int y) {
+		Claim topLevel = this.parent == null ? this : this.parent;
+		if (y < topLevel.minY)
+			return null;
+		return y >= this.minY ? this : topLevel;
+	}
 
+	/**
+	 * finds the subdivisions whose X/Z bounds intersect a rectangle. Bounds
+	 * are inclusive.
+	 * 
+	 * @param minX
+	 * @param minZ
+	 * @param maxX
+	 * @param maxZ
+	 * @return list of subdivisions. may be empty, never null.
+	 */
+	public List<Claim> getChildrenIn(int minX, int minZ, int maxX, int maxZ) {
+		List<Claim> result = new ArrayList<Claim>();
+		ArrayList<Claim> current = children;
+		if (current instanceof ClaimChildList) {
+			ClaimRTree index = ((ClaimChildList) current).getIndex();
+			if (index != null) {
+				index.search(minX, minZ, maxX, maxZ, false, result);
+				return result;
+			}
+		}
+		for (Claim subdivision : getChildView()) {
+			if (subdivision.maxX >= minX && subdivision.minX <= maxX && subdivision.maxZ >= minZ && subdivision.minZ <= maxZ)
+				result.add(subdivision);
+		}
+		return result;
+	}
+
+	/**
+	 * retrieves the subdivisions of this claim as an array that won't change
+	 * underneath the caller. Safe to use from threads other than the one
+	 * modifying the claim.
+	 * 
+	 * @return array of child claims. must not be modified.
+	 */
+	public Claim[] getChildView() {
+		ArrayList<Claim> current = children;
+		if (current instanceof ClaimChildList)
+			return ((ClaimChildList) current).getView();
+		synchronized (current) {
+			return current.toArray(new Claim[current.size()]);
+		}
 	}
 
 	/**
@@ -872,7 +993,7 @@ public class Claim {
 	 * @return
 	 */
 	public int getHeight() {
-		return this.greaterBoundaryCorner.getBlockZ() - this.lesserBoundaryCorner.getBlockZ() + 1;
+		return this.maxZ - this.minZ + 1;
 	}
     void setUUID(UUID uid){
         ClaimUUID = uid;
@@ -1048,7 +1169,7 @@ public class Claim {
 	 * @return
 	 */
 	public int getWidth() {
-		return this.greaterBoundaryCorner.getBlockX() - this.lesserBoundaryCorner.getBlockX() + 1;
+		return this.maxX - this.minX + 1;
 	}
 
 	// implements a strict ordering of claims, used to keep the claims
@@ -1073,52 +1194,62 @@ public class Claim {
 	}
 
 	private boolean hasExplicitPermission(Player player, ClaimPermission level) {
+		return getTrustTable().hasPermission(player, level);
+	}
 
-		String playerName = player.getName();
-		Set<String> keys = this.playerNameToClaimPermissionMap.keySet();
-		Iterator<String> iterator = keys.iterator();
-		while (iterator.hasNext()) {
-			String identifier = iterator.next();
-
-			// if(playerName.equalsIgnoreCase(identifier) &&
-			// this.playerNameToClaimPermissionMap.get(identifier) == level)
-			// return true;
-			boolean forcedeny = false;
-			// special logic: names starting with ! mean to explicitly deny that
-			// permission to any player that matches the name after !.
-			// in order to allow group ability, we have this flag. if forcedeny
-			// is false, a match means
-			// we need to forcibly return false if it matches.
-			if (identifier.startsWith("!")) {
-				// if it starts with a exclamation, remove it and set forcedeny
-				// to true.
-				identifier = identifier.substring(1);
-				forcedeny = true;
-			}
-
-			if (isApplicablePlayer(identifier, playerName) && this.playerNameToClaimPermissionMap.get(identifier) == level) {
-				// it matches. if we started with a !, however, it means that we
-				// are to explicitly
-				// DENY that permission. Otherwise, we return true.
-				return !forcedeny;
-
-			}
+	// records a change to the permission map or managers list.
+	private void trustChanged() {
+		trustVersion++;
+		permissionsChanged();
+	}
 
-			else if (identifier.startsWith("[") && identifier.endsWith("]")) {
-				// drop the brackets
-				String permissionIdentifier = identifier.substring(1, identifier.length() - 1);
+	/**
+	 * records a change that can alter the result of allowBuild, allowAccess,
+	 * allowContainers or allowEdit, like a siege starting or ending. Trust and
+	 * owner changes made through this class already call it.
+	 */
+	public void permissionsChanged() {
+		permissionVersion++;
+	}
 
-				// defensive coding
-				if (permissionIdentifier == null || permissionIdentifier.isEmpty())
-					continue;
+	public int getPermissionVersion() {
+		return permissionVersion;
+	}
 
-				// check permission
-				if (player.hasPermission(permissionIdentifier) && this.playerNameToClaimPermissionMap.get(identifier) == level)
-					return !forcedeny;
-			}
+	/**
+	 * runs one of the permission checks without the cache; PermissionCache
+	 * calls this on a miss.
+	 * 
+	 * @param player
+	 * @param check
+	 *            one of the PermissionCache check constants.
+	 * @return null if allowed, otherwise the reason.
+	 */
+	String computePermission(Player player, int check) {
+		switch (check) {
+		case PermissionCache.BUILD:
+			return computeBuild(player);
+		case PermissionCache.ACCESS:
+			return computeAccess(player);
+		case PermissionCache.CONTAINERS:
+			return computeContainers(player);
+		case PermissionCache.EDIT:
+			return computeEdit(player);
+		default:
+			throw new IllegalArgumentException("check");
 		}
+	}
 
-		return false;
+	// the compiled trust entries, rebuilt if they changed since the last
+	// check.
+	private ClaimTrustTable getTrustTable() {
+		ClaimTrustTable table = trustTable;
+		int version = trustVersion;
+		if (table == null || table.getVersion() != version) {
+			table = new ClaimTrustTable(playerNameToClaimPermissionMap, managers, version);
+			trustTable = table;
+		}
+		return table;
 	}
 
 	// determines whether or not a claim has surface fluids (lots of water
@@ -1173,38 +1304,6 @@ public class Claim {
 		return (this.claimOwnerName == null || this.claimOwnerName.isEmpty());
 	}
 
-	/**
-	 * returns whether the given player name fits the given identifier. this is
-	 * added to allow for Group Permissions on a claim.
-	 * 
-	 * @param identifier
-	 *            name of player, or a name of a group. group names must be
-	 *            prefixed with g:
-	 * @param pName
-	 *            name of player to test.
-	 * @return
-	 */
-	private boolean isApplicablePlayer(String identifier, String pName) {
-		// System.out.println("Checking player " + pName + " matches " +
-		// identifier);
-		if (identifier.equalsIgnoreCase(pName))
-			return true;
-		if (identifier.toUpperCase().startsWith("G:")) {
-			identifier = identifier.substring(2);
-			// try to get the player (pName).
-
-			// try to get this group from the GP instance PlayerGroups cfg.
-			PlayerGroup FoundGroup = GriefPrevention.instance.config_player_groups.getGroupByName(identifier);
-			if (FoundGroup == null)
-				return false; // group not found. Well THIS is awkward.
-
-			return FoundGroup.MatchPlayer(pName);
-
-		}
-
-		return false;
-	}
-
 	/**
 	 * Checks to see if this player is a manager.
 	 * 
@@ -1216,12 +1315,11 @@ public class Claim {
 		// mods can make this happen somehow)
 		if (player == null)
 			return false;
-		return PlayerinList(managers, player);
-		// return managers.contains(player);
+		return getTrustTable().isManager(player);
 	}
     public boolean isManager(Player player){
         if(player==null) return false;
-        return PlayerinList(managers,player.getName());
+        return getTrustTable().isManager(player.getName());
     }
 	/**
 	 * Distance check for claims, distance in this case is a band around the
@@ -1233,79 +1331,32 @@ public class Claim {
 	 */
 	public boolean isNear(Location location, int howNear) {
 
-		Claim claim = new Claim(new Location(this.lesserBoundaryCorner.getWorld(), this.lesserBoundaryCorner.getBlockX() - howNear, this.lesserBoundaryCorner.getBlockY(), this.lesserBoundaryCorner.getBlockZ() - howNear), new Location(this.greaterBoundaryCorner.getWorld(), this.greaterBoundaryCorner.getBlockX() + howNear, this.greaterBoundaryCorner.getBlockY(), this.greaterBoundaryCorner.getBlockZ() + howNear), "", new String[] {}, new String[] {}, new String[] {}, new String[] {}, null, false);
-
-		return claim.contains(location, false, true);
-	}
-
-	// whether or not two claims overlap
-	// used internally to prevent overlaps when creating claims
-	boolean overlaps(Claim otherClaim) {
-		// NOTE: if trying to understand this makes your head hurt, don't feel
-		// bad - it hurts mine too.
-		// try drawing pictures to visualize test cases.
-
-		if (!this.lesserBoundaryCorner.getWorld().equals(otherClaim.getLesserBoundaryCorner().getWorld()))
+		if (!isInWorld(location.getWorld().getName()))
 			return false;
 
-		// first, check the corners of this claim aren't inside any existing
-		// claims
-		if (otherClaim.contains(this.lesserBoundaryCorner, true, false))
-			return true;
-		if (otherClaim.contains(this.greaterBoundaryCorner, true, false))
-			return true;
-		if (otherClaim.contains(new Location(this.lesserBoundaryCorner.getWorld(), this.lesserBoundaryCorner.getBlockX(), 0, this.greaterBoundaryCorner.getBlockZ()), true, false))
-			return true;
-		if (otherClaim.contains(new Location(this.lesserBoundaryCorner.getWorld(), this.greaterBoundaryCorner.getBlockX(), 0, this.lesserBoundaryCorner.getBlockZ()), true, false))
-			return true;
-
-		// verify that no claim's lesser boundary point is inside this new
-		// claim, to cover the "existing claim is entirely inside new claim"
-		// case
-		if (this.contains(otherClaim.getLesserBoundaryCorner(), true, false))
-			return true;
-
-		// verify this claim doesn't band across an existing claim, either
-		// horizontally or vertically
-		if (this.getLesserBoundaryCorner().getBlockZ() <= otherClaim.getGreaterBoundaryCorner().getBlockZ() && this.getLesserBoundaryCorner().getBlockZ() >= otherClaim.getLesserBoundaryCorner().getBlockZ() && this.getLesserBoundaryCorner().getBlockX() < otherClaim.getLesserBoundaryCorner().getBlockX() && this.getGreaterBoundaryCorner().getBlockX() > otherClaim.getGreaterBoundaryCorner().getBlockX())
-			return true;
-
-		if (this.getGreaterBoundaryCorner().getBlockZ() <= otherClaim.getGreaterBoundaryCorner().getBlockZ() && this.getGreaterBoundaryCorner().getBlockZ() >= otherClaim.getLesserBoundaryCorner().getBlockZ() && this.getLesserBoundaryCorner().getBlockX() < otherClaim.getLesserBoundaryCorner().getBlockX() && this.getGreaterBoundaryCorner().getBlockX() > otherClaim.getGreaterBoundaryCorner().getBlockX())
-			return true;
-
-		if (this.getLesserBoundaryCorner().getBlockX() <= otherClaim.getGreaterBoundaryCorner().getBlockX() && this.getLesserBoundaryCorner().getBlockX() >= otherClaim.getLesserBoundaryCorner().getBlockX() && this.getLesserBoundaryCorner().getBlockZ() < otherClaim.getLesserBoundaryCorner().getBlockZ() && this.getGreaterBoundaryCorner().getBlockZ() > otherClaim.getGreaterBoundaryCorner().getBlockZ())
-			return true;
-
-		if (this.getGreaterBoundaryCorner().getBlockX() <= otherClaim.getGreaterBoundaryCorner().getBlockX() && this.getGreaterBoundaryCorner().getBlockX() >= otherClaim.getLesserBoundaryCorner().getBlockX() && this.getLesserBoundaryCorner().getBlockZ() < otherClaim.getLesserBoundaryCorner().getBlockZ() && this.getGreaterBoundaryCorner().getBlockZ() > otherClaim.getGreaterBoundaryCorner().getBlockZ())
-			return true;
-
-		return false;
+		int x = location.getBlockX();
+		int z = location.getBlockZ();
+		return location.getBlockY() >= this.minY && x >= this.minX - howNear && x <= this.maxX + howNear && z >= this.minZ - howNear && z <= this.maxZ + howNear;
 	}
 
 	/**
-	 * special routine added for Group support. We need to be able to recognize
-	 * player names from a list where the name is actually within a group that
-	 * is in that list.
+	 * whether the given world name is the world this claim is in.
 	 * 
-	 * @param testlist
-	 *            list of names (possibly including groups)
-	 * @param testfor
-	 *            player name to test for.
+	 * @param worldName
 	 * @return
 	 */
-	private boolean PlayerinList(List<String> testlist, String testfor) {
-		// if it starts with g: or G:, remove it.
-
-		for (String iteratename : testlist) {
-			// test if applicable.
-			if (isApplicablePlayer(iteratename, testfor))
-				return true;
+	boolean isInWorld(String worldName) {
+		return worldName == this.ClaimWorldName || (worldName != null && worldName.equals(this.ClaimWorldName));
+	}
 
-		}
-		// we tried to find it in the list and all groups that were in that
-		// list, but we didn't find it.
-		return false;
+	// whether or not two claims overlap
+	// used internally to prevent overlaps when creating claims
+	boolean overlaps(Claim otherClaim) {
+		if (!isInWorld(otherClaim.ClaimWorldName))
+			return false;
 
+		// two rectangles overlap exactly when they overlap on both axes.
+		return this.minX <= otherClaim.maxX && this.maxX >= otherClaim.minX && this.minZ <= otherClaim.maxZ && this.maxZ >= otherClaim.minZ;
 	}
 
 	/**
@@ -1316,7 +1367,7 @@ public class Claim {
 	 */
 	public boolean removeManager(String player) {
 		// we only want to send events if the claim is in the data store
-		if (inDataStore) {
+		if (inDataStore && ClaimModifiedEvent.hasListeners()) {
 			ClaimModifiedEvent claimevent = new ClaimModifiedEvent(this, player, ClaimModifiedEvent.Type.RemovedManager);
 			Bukkit.getServer().getPluginManager().callEvent(claimevent);
 			if (claimevent.isCancelled()) {
@@ -1324,8 +1375,9 @@ public class Claim {
 			}
 		}
 		managers.remove(player);
+		trustChanged();
 		if (inDataStore)
-			GriefPrevention.instance.dataStore.saveClaim(this);
+			GriefPrevention.instance.dataStore.saveClaimLater(this);
 		return true;
 	}
 
@@ -1394,7 +1446,35 @@ public class Claim {
 		Location SecondPos = new Location(FirstBorder.getWorld(), MaxX, MaxY, MaxZ);
 		lesserBoundaryCorner = FirstPos;
 		greaterBoundaryCorner = SecondPos;
+		updateBounds();
+	}
+
+	/**
+	 * changes how deep the claim reaches. Only the lower Y value is
+	 * meaningful; both corners are moved to keep them consistent.
+	 * 
+	 * @param newDepth
+	 */
+	void setDepth(int newDepth) {
+		lesserBoundaryCorner.setY(newDepth);
+		greaterBoundaryCorner.setY(newDepth);
+		updateBounds();
+	}
 
+	// refreshes the cached bounds and world name from the corner locations.
+	// must be called whenever either corner changes.
+	private void updateBounds() {
+		this.ClaimWorldName = lesserBoundaryCorner.getWorld().getName().intern();
+		int lx = lesserBoundaryCorner.getBlockX(), gx = greaterBoundaryCorner.getBlockX();
+		int lz = lesserBoundaryCorner.getBlockZ(), gz = greaterBoundaryCorner.getBlockZ();
+		this.minX = Math.min(lx, gx);
+		this.maxX = Math.max(lx, gx);
+		this.minZ = Math.min(lz, gz);
+		this.maxZ = Math.max(lz, gz);
+		this.minY = lesserBoundaryCorner.getBlockY();
+		// the parent's subdivision index holds our old bounds.
+		if (parent != null && parent.children instanceof ClaimChildList)
+			((ClaimChildList) parent.children).invalidateIndex();
 	}
 
 	public void setOwnerName(String value) {
@@ -1404,6 +1484,7 @@ public class Claim {
 
 		this.claimOwnerName = value;
 		ownerName = value;
+		permissionsChanged();
 	}
 
 	/**
@@ -1415,7 +1496,7 @@ public class Claim {
 	 */
 	public boolean setPermission(String playerName, ClaimPermission permissionLevel) {
 		// we only want to send events if the claim is in the data store
-		if (inDataStore) {
+		if (inDataStore && ClaimModifiedEvent.hasListeners()) {
 			ClaimModifiedEvent.Type permtype;
 			switch (permissionLevel) {
 			case Access:
@@ -1440,6 +1521,7 @@ public class Claim {
 		// System.out.println("Adding " + playerName.toLowerCase() +
 		// " to permmap, perm level " + permissionLevel);
 		this.playerNameToClaimPermissionMap.put(playerName.toLowerCase(), permissionLevel);
+		trustChanged();
 		return true;
 	}
 }
@@ -1,8 +1,14 @@
 package me.ryanhamshire.GriefPrevention;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -14,65 +20,195 @@ import org.bukkit.World;
 
 public class ClaimArray implements Iterable<Claim> {
 
+	/**
+	 * retrieves the "world;x,z" chunk strings for every chunk the given claim
+	 * touches.
+	 * 
+	 * @deprecated use getChunkKeys(Claim) instead.
+	 */
+	@Deprecated
 	public static ArrayList<String> getChunks(Claim claim) {
-		String world = claim.getLesserBoundaryCorner().getWorld().getName();
-
-		int lx = claim.getLesserBoundaryCorner().getBlockX();
-		int lz = claim.getLesserBoundaryCorner().getBlockZ();
-		int gx = claim.getGreaterBoundaryCorner().getBlockX();
-		int gz = claim.getGreaterBoundaryCorner().getBlockZ();
-		// Let's make sure the lowest value of X is in lx.
-		if (gx < lx) {
-			int tx = gx;
-			gx = lx;
-			lx = tx;
+		String world = claim.getClaimWorldName();
+		long[] keys = getChunkKeys(claim);
+		ArrayList<String> chunks = new ArrayList<String>(keys.length);
+		for (long key : keys) {
+			chunks.add(world + ";" + ChunkClaimMap.keyX(key) + "," + ChunkClaimMap.keyZ(key));
 		}
-		// Let's make sure the lowest value of Z is in lz.
-		if (gz < lz) {
-			int tz = gz;
-			gz = lz;
-			lz = tz;
-		}
-		ArrayList<String> chunks = new ArrayList<String>();
-		for (int tx = lx; (tx >> 4) <= (gx >> 4); tx += 16) {
-			for (int tz = lz; (tz >> 4) <= (gz >> 4); tz += 16) {
-				int chunkX = tx >> 4;
-				int chunkZ = tz >> 4;
-				chunks.add(world + ";" + chunkX + "," + chunkZ);
+		return chunks;
+	}
+
+	/**
+	 * retrieves the packed chunk keys (see ChunkClaimMap.chunkKey()) for every
+	 * chunk the given claim touches.
+	 * 
+	 * @param claim
+	 * @return
+	 */
+	public static long[] getChunkKeys(Claim claim) {
+		int lx = claim.minX;
+		int lz = claim.minZ;
+		int gx = claim.maxX;
+		int gz = claim.maxZ;
+		int lcx = lx >> 4, lcz = lz >> 4, gcx = gx >> 4, gcz = gz >> 4;
+		long[] keys = new long[(gcx - lcx + 1) * (gcz - lcz + 1)];
+		int i = 0;
+		for (int chunkX = lcx; chunkX <= gcx; chunkX++) {
+			for (int chunkZ = lcz; chunkZ <= gcz; chunkZ++) {
+				keys[i++] = ChunkClaimMap.chunkKey(chunkX, chunkZ);
 			}
 		}
-		return chunks;
+		return keys;
 	}
 
-	ConcurrentMap<String, ArrayList<Claim>> chunkmap = new ConcurrentHashMap<String, ArrayList<Claim>>();
+	// world name -> (packed chunk coordinate -> claims in that chunk).
+	// this is the working copy, only touched while holding the lock on this
+	// ClaimArray. readers go through the published snapshot instead.
+	private final HashMap<String, ChunkClaimMap> chunkmap = new HashMap<String, ChunkClaimMap>();
+	// worlds whose chunk map was copied since the last publish, and so may be
+	// changed in place.
+	private final HashSet<String> unpublishedWorlds = new HashSet<String>();
+	private volatile ClaimSnapshot snapshot = ClaimSnapshot.EMPTY;
+	// while a batch is running the snapshot isn't republished; the thread
+	// running the batch reads the working copy instead.
+	private volatile Thread batchOwner = null;
+	private int batchDepth = 0;
+
     ConcurrentHashMap<UUID,Claim> IDMap = new ConcurrentHashMap<UUID, Claim>();
 	ConcurrentMap<Long, Claim> claimmap = new ConcurrentHashMap<Long, Claim>();
 	private ArrayList<Claim> claims = new ArrayList<Claim>();
 
 	ConcurrentMap<String, ArrayList<Claim>> claimworldmap = new ConcurrentHashMap<String, ArrayList<Claim>>();
 
-	public void add(Claim newClaim) {
+	// lower cased owner name -> that owner's claims, so loading a player's
+	// data doesn't scan every claim. ownerKeys remembers which bucket each
+	// claim went into, in case its owner changes before it is reindexed.
+	private final HashMap<String, ArrayList<Claim>> ownermap = new HashMap<String, ArrayList<Claim>>();
+	private final IdentityHashMap<Claim, String> ownerKeys = new IdentityHashMap<Claim, String>();
+
+	public synchronized void add(Claim newClaim) {
 		addClaimWorld(newClaim);
 
 		claims.add(newClaim);
+		addOwner(newClaim);
         IDMap.put(newClaim.getUUID(),newClaim);
 		claimmap.put(newClaim.getID(), newClaim);
-		ArrayList<String> chunks = getChunks(newClaim);
-		for (String chunk : chunks) {
-			ArrayList<Claim> aclaims = chunkmap.get(chunk);
+		ChunkClaimMap worldchunks = getWritableChunks(newClaim.getClaimWorldName());
+		for (long chunk : getChunkKeys(newClaim)) {
+			ChunkClaimList aclaims = worldchunks.get(chunk);
 			if (aclaims == null) {
-				aclaims = new ArrayList<Claim>();
-				aclaims.add(newClaim);
-				chunkmap.put(chunk, aclaims);
+				aclaims = new ChunkClaimList(ChunkClaimMap.keyX(chunk), ChunkClaimMap.keyZ(chunk));
+			} else if (!aclaims.contains(newClaim)) {
+				// the old list may be part of a published snapshot, so
+				// never change it in place.
+				aclaims = new ChunkClaimList(aclaims.getChunkX(), aclaims.getChunkZ(), aclaims);
 			} else {
-				int k = 0;
-				if (!aclaims.contains(newClaim)) {
+				continue;
+			}
+			aclaims.add(newClaim);
+			worldchunks.put(chunk, aclaims);
+		}
+		publish();
+	}
+
+	/**
+	 * adds many claims at once. Each chunk touched by the new claims gets its
+	 * claim list rebuilt once, rather than once per claim, and the result is
+	 * published in one go.
+	 * 
+	 * @param newClaims
+	 *            top level claims to add.
+	 */
+	public synchronized void addAll(Collection<Claim> newClaims) {
+		HashMap<String, HashMap<Long, ArrayList<Claim>>> added = new HashMap<String, HashMap<Long, ArrayList<Claim>>>();
+		for (Claim newClaim : newClaims) {
+			addClaimWorld(newClaim);
+			claims.add(newClaim);
+			addOwner(newClaim);
+			IDMap.put(newClaim.getUUID(), newClaim);
+			claimmap.put(newClaim.getID(), newClaim);
+			HashMap<Long, ArrayList<Claim>> worldadded = added.get(newClaim.getClaimWorldName());
+			if (worldadded == null) {
+				worldadded = new HashMap<Long, ArrayList<Claim>>();
+				added.put(newClaim.getClaimWorldName(), worldadded);
+			}
+			for (long chunk : getChunkKeys(newClaim)) {
+				ArrayList<Claim> chunkadded = worldadded.get(chunk);
+				if (chunkadded == null) {
+					chunkadded = new ArrayList<Claim>(2);
+					worldadded.put(chunk, chunkadded);
+				}
+				chunkadded.add(newClaim);
+			}
+		}
 
-					aclaims.add(newClaim);
+		for (Map.Entry<String, HashMap<Long, ArrayList<Claim>>> world : added.entrySet()) {
+			ChunkClaimMap worldchunks = getWritableChunks(world.getKey());
+			for (Map.Entry<Long, ArrayList<Claim>> chunk : world.getValue().entrySet()) {
+				long key = chunk.getKey();
+				ChunkClaimList existing = worldchunks.get(key);
+				ChunkClaimList aclaims = existing == null ? new ChunkClaimList(ChunkClaimMap.keyX(key), ChunkClaimMap.keyZ(key)) : new ChunkClaimList(existing.getChunkX(), existing.getChunkZ(), existing);
+				for (Claim claim : chunk.getValue()) {
+					if (existing == null || !existing.contains(claim))
+						aclaims.add(claim);
 				}
-				chunkmap.put(chunk, aclaims);
+				worldchunks.put(key, aclaims);
 			}
 		}
+		publish();
+	}
+
+	/**
+	 * Starts a batch of changes. Until the matching endBatch() call, changes
+	 * are not published to other threads, which only see the claims as they
+	 * were before the batch. Used when loading many claims at once so the
+	 * index is copied once instead of once per claim.
+	 */
+	public synchronized void beginBatch() {
+		if (batchDepth++ == 0)
+			batchOwner = Thread.currentThread();
+	}
+
+	/**
+	 * Ends a batch of changes started with beginBatch(), and publishes them.
+	 */
+	public synchronized void endBatch() {
+		if (batchDepth == 0)
+			return;
+		if (--batchDepth == 0) {
+			batchOwner = null;
+			publish();
+		}
+	}
+
+	private ChunkClaimMap getWritableChunks(String world) {
+		ChunkClaimMap worldchunks = chunkmap.get(world);
+		if (worldchunks == null) {
+			worldchunks = new ChunkClaimMap();
+		} else if (!unpublishedWorlds.contains(world)) {
+			worldchunks = worldchunks.copy();
+		} else {
+			return worldchunks;
+		}
+		chunkmap.put(world, worldchunks);
+		unpublishedWorlds.add(world);
+		return worldchunks;
+	}
+
+	private void publish() {
+		if (batchDepth > 0)
+			return;
+		snapshot = new ClaimSnapshot(snapshot.getVersion() + 1, chunkmap);
+		unpublishedWorlds.clear();
+	}
+
+	/**
+	 * retrieves the current immutable snapshot of the claim index. Safe to
+	 * call from any thread without locking.
+	 * 
+	 * @return
+	 */
+	public ClaimSnapshot getSnapshot() {
+		return snapshot;
 	}
 
 	private void addClaimWorld(Claim c) {
@@ -82,7 +218,7 @@ public class ClaimArray implements Iterable<Claim> {
 
 		if (!claimworldmap.get(usekey).contains(c))
 			claimworldmap.get(usekey).add(c);
-		Debugger.Write("Claim added to world mapping owned by " + c.getOwnerName() + " to world:" + c.getLesserBoundaryCorner().getWorld(), DebugLevel.Verbose);
+		Debugger.Write(DebugLevel.Verbose, "Claim added to world mapping owned by %s to world:%s", c.getOwnerName(), usekey);
 
 	}
 
@@ -95,20 +231,126 @@ public class ClaimArray implements Iterable<Claim> {
         if(!IDMap.containsKey(claimUUID)) return null;
         return IDMap.get(claimUUID);
     }
-	public Claim get(int i) {
+	public synchronized Claim get(int i) {
 		return claims.get(i);
 	}
 
+	/**
+	 * retrieves the claims in a chunk given as a "world;x,z" string.
+	 * 
+	 * @deprecated string keys are only kept for compatibility, use
+	 *             getClaims(String, int, int) instead.
+	 */
+	@Deprecated
 	public List<Claim> getClaims(String chunk) {
-		if (!chunkmap.containsKey(chunk))
+		int split = chunk.lastIndexOf(';');
+		int comma = chunk.indexOf(',', split + 1);
+		if (split < 0 || comma < 0)
+			return new ArrayList<Claim>();
+		try {
+			int chunkX = Integer.parseInt(chunk.substring(split + 1, comma));
+			int chunkZ = Integer.parseInt(chunk.substring(comma + 1));
+			List<Claim> result = getClaims(chunk.substring(0, split), chunkX, chunkZ);
+			return result == null ? new ArrayList<Claim>() : result;
+		} catch (NumberFormatException exx) {
 			return new ArrayList<Claim>();
-		return chunkmap.get(chunk);
+		}
 	}
 
-	public List<Claim> getClaimsInChunk(Location ChunkLocation) {
+	/**
+	 * retrieves the claims touching the given chunk.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param chunkX
+	 *            chunk X coordinate (block X >> 4)
+	 * @param chunkZ
+	 *            chunk Z coordinate (block Z >> 4)
+	 * @return list of claims, or null if there are no claims in that chunk.
+	 *         the returned list must not be modified.
+	 */
+	public List<Claim> getClaims(String worldname, int chunkX, int chunkZ) {
+		return getChunk(worldname, chunkX, chunkZ);
+	}
+
+	/**
+	 * finds the top level claim covering a block column. Height is not
+	 * considered.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param x
+	 *            block X coordinate.
+	 * @param z
+	 *            block Z coordinate.
+	 * @return the claim, or null if the column is not claimed.
+	 */
+	public Claim getTopLevelClaimAt(String worldname, int x, int z) {
+		ChunkClaimList chunkclaims = getChunk(worldname, x >> 4, z >> 4);
+		return chunkclaims == null ? null : chunkclaims.getClaimAt(x, z);
+	}
+
+	/**
+	 * quick check for chunks that can't hold any claim, backed by a per world
+	 * bitset over the claimed chunks. Meant to turn wilderness away before
+	 * doing any other work.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return true if there is certainly no claim in that chunk; false if
+	 *         there may be.
+	 */
+	public boolean isUnclaimedChunk(String worldname, int chunkX, int chunkZ) {
+		Thread owner = batchOwner;
+		if (owner != null && owner == Thread.currentThread()) {
+			synchronized (this) {
+				ChunkClaimMap worldchunks = chunkmap.get(worldname);
+				return worldchunks == null || !worldchunks.mightContain(chunkX, chunkZ);
+			}
+		}
+		return snapshot.isUnclaimedChunk(worldname, chunkX, chunkZ);
+	}
+
+	/**
+	 * finds the top level claims covering many block columns at once, all
+	 * from the same snapshot. Height is not considered.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param xs
+	 *            block X coordinates.
+	 * @param zs
+	 *            block Z coordinates, aligned with xs.
+	 * @param result
+	 *            receives the claim for each position, or null where the
+	 *            column is not claimed.
+	 */
+	public void getTopLevelClaimsAt(String worldname, int[] xs, int[] zs, Claim[] result) {
+		Thread owner = batchOwner;
+		if (owner != null && owner == Thread.currentThread()) {
+			for (int i = 0; i < xs.length; i++)
+				result[i] = getTopLevelClaimAt(worldname, xs[i], zs[i]);
+			return;
+		}
+		snapshot.getTopLevelClaimsAt(worldname, xs, zs, result);
+	}
+
+	private ChunkClaimList getChunk(String worldname, int chunkX, int chunkZ) {
+		Thread owner = batchOwner;
+		if (owner != null && owner == Thread.currentThread()) {
+			synchronized (this) {
+				ChunkClaimMap worldchunks = chunkmap.get(worldname);
+				return worldchunks == null ? null : worldchunks.get(chunkX, chunkZ);
+			}
+		}
+		return snapshot.getChunk(worldname, chunkX, chunkZ);
+	}
 
-		String chunkstr = GriefPrevention.instance.dataStore.getChunk(ChunkLocation);
-		return getClaims(chunkstr);
+	public List<Claim> getClaimsInChunk(Location ChunkLocation) {
+		List<Claim> result = getClaims(ChunkLocation.getWorld().getName(), ChunkLocation.getBlockX() >> 4, ChunkLocation.getBlockZ() >> 4);
+		return result == null ? new ArrayList<Claim>() : result;
 	}
 
 	public Claim getID(long i) {
@@ -128,7 +370,7 @@ public class ClaimArray implements Iterable<Claim> {
 	}
 
 	@SuppressWarnings("unchecked")
-	public Iterator<Claim> iterator() {
+	public synchronized Iterator<Claim> iterator() {
 		// TODO Auto-generated method stub
 		return ((ArrayList<Claim>) claims.clone()).iterator();
 	}
@@ -139,29 +381,96 @@ public class ClaimArray implements Iterable<Claim> {
 		String usekey = c.getLesserBoundaryCorner().getWorld().getName();
 		if (claimworldmap.containsKey(usekey)) {
 			claimworldmap.get(usekey).remove(c);
-			Debugger.Write("Claim removed from world mapping owned by " + c.getOwnerName() + " to world:" + c.getLesserBoundaryCorner().getWorld(), DebugLevel.Verbose);
+			Debugger.Write(DebugLevel.Verbose, "Claim removed from world mapping owned by %s to world:%s", c.getOwnerName(), usekey);
 		}
 
 	}
 
-	public void removeID(Long i) {
+	public synchronized void removeID(Long i) {
 		Claim claim = claimmap.remove(i);
 		if (claim == null)
 			return;
 		this.removeClaimWorld(claim);
-		ArrayList<String> chunks = getChunks(claim);
 		claims.remove(claim);
-		for (String chunk : chunks) {
-			ArrayList<Claim> aclaims = chunkmap.get(chunk);
-			if (aclaims != null) {
-				Debugger.Write("Removing Claim ID #" + i + " From Claim List for Chunk:" + chunk, DebugLevel.Verbose);
-				aclaims.remove(claim);
-				if (aclaims.size() == 0) {
-					chunkmap.remove(chunk);
-					Debugger.Write("Removing empty chunk mapping entry for chunk " + chunk + " As it now contains no claims.", DebugLevel.Verbose);
+		removeOwner(claim);
+		String world = claim.getClaimWorldName();
+		if (!chunkmap.containsKey(world))
+			return;
+		ChunkClaimMap worldchunks = getWritableChunks(world);
+		for (long chunk : getChunkKeys(claim)) {
+			ChunkClaimList aclaims = worldchunks.get(chunk);
+			if (aclaims != null && aclaims.contains(claim)) {
+				if (Debugger.isEnabled(DebugLevel.Verbose))
+					Debugger.Write(DebugLevel.Verbose, "Removing Claim ID #%d From Claim List for Chunk:%d,%d", i, ChunkClaimMap.keyX(chunk), ChunkClaimMap.keyZ(chunk));
+				if (aclaims.size() == 1) {
+					worldchunks.remove(chunk);
+					if (Debugger.isEnabled(DebugLevel.Verbose))
+						Debugger.Write(DebugLevel.Verbose, "Removing empty chunk mapping entry for chunk %d,%d As it now contains no claims.", ChunkClaimMap.keyX(chunk), ChunkClaimMap.keyZ(chunk));
+				} else {
+					aclaims = new ChunkClaimList(aclaims.getChunkX(), aclaims.getChunkZ(), aclaims);
+					aclaims.remove(claim);
+					worldchunks.put(chunk, aclaims);
 				}
 			}
 		}
+		publish();
+	}
+
+	private static String ownerKey(Claim claim) {
+		String owner = claim.claimOwnerName;
+		// admin claims have no owner, and aren't indexed.
+		return owner == null || owner.length() == 0 ? null : owner.toLowerCase(Locale.ENGLISH);
+	}
+
+	private void addOwner(Claim claim) {
+		String key = ownerKey(claim);
+		if (key == null)
+			return;
+		ArrayList<Claim> owned = ownermap.get(key);
+		if (owned == null) {
+			owned = new ArrayList<Claim>(4);
+			ownermap.put(key, owned);
+		}
+		owned.add(claim);
+		ownerKeys.put(claim, key);
+	}
+
+	private void removeOwner(Claim claim) {
+		String key = ownerKeys.remove(claim);
+		if (key == null)
+			return;
+		ArrayList<Claim> owned = ownermap.get(key);
+		if (owned == null)
+			return;
+		owned.remove(claim);
+		if (owned.isEmpty())
+			ownermap.remove(key);
+	}
+
+	/**
+	 * moves a claim to its current owner in the owner index. Must be called
+	 * whenever a claim in this array changes owners.
+	 * 
+	 * @param claim
+	 */
+	public synchronized void updateOwner(Claim claim) {
+		Long id = claim.getID();
+		if (!ownerKeys.containsKey(claim) && (id == null || claimmap.get(id) != claim))
+			return;
+		removeOwner(claim);
+		addOwner(claim);
+	}
+
+	/**
+	 * retrieves the top level claims owned by a player. The owner name is
+	 * not case sensitive.
+	 * 
+	 * @param ownerName
+	 * @return a new list of that player's claims. empty if there are none.
+	 */
+	public synchronized List<Claim> getClaimsByOwner(String ownerName) {
+		ArrayList<Claim> owned = ownermap.get(ownerName.toLowerCase(Locale.ENGLISH));
+		return owned == null ? new ArrayList<Claim>() : new ArrayList<Claim>(owned);
 	}
 
 	public int size() {
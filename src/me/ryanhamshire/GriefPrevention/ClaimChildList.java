@@ -0,0 +1,157 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * List of the subdivisions of a claim. Behaves like a normal ArrayList for the
+ * thread that modifies it, but also keeps an immutable array copy of its
+ * contents that is republished after every change, so claim lookups from other
+ * threads can walk the subdivisions without locking.
+ * <p>
+ * Claims with many subdivisions (city and spawn plots) also get an R-tree over
+ * them, built from the current view on first use, so finding the plot at a
+ * position doesn't scan hundreds of children.
+ */
+public class ClaimChildList extends ArrayList<Claim> {
+
+	private static final long serialVersionUID = 1L;
+	private static final Claim[] EMPTY = new Claim[0];
+
+	/**
+	 * lists with more subdivisions than this are indexed.
+	 */
+	public static final int INDEX_THRESHOLD = 16;
+
+	private volatile Claim[] view = EMPTY;
+	private volatile IndexedView index;
+
+	// an index together with the view it was built from, so a stale index is
+	// never mistaken for a current one.
+	private static final class IndexedView {
+		final Claim[] view;
+		final ClaimRTree tree;
+
+		IndexedView(Claim[] view) {
+			this.view = view;
+			this.tree = new ClaimRTree(Arrays.asList(view));
+		}
+	}
+
+	/**
+	 * retrieves the subdivisions as of the last change. The returned array
+	 * must not be modified.
+	 *
+	 * @return
+	 */
+	public Claim[] getView() {
+		return view;
+	}
+
+	/**
+	 * retrieves the R-tree over the subdivisions as of the last change.
+	 * 
+	 * @return the index, or null if there are too few subdivisions to be
+	 *         worth indexing.
+	 */
+	public ClaimRTree getIndex() {
+		Claim[] current = view;
+		if (current.length <= INDEX_THRESHOLD)
+			return null;
+		IndexedView indexed = index;
+		if (indexed == null || indexed.view != current) {
+			indexed = new IndexedView(current);
+			index = indexed;
+		}
+		return indexed.tree;
+	}
+
+	/**
+	 * drops the index, for when a subdivision's bounds changed without the
+	 * list itself changing.
+	 */
+	void invalidateIndex() {
+		index = null;
+	}
+
+	private void publish() {
+		view = size() == 0 ? EMPTY : super.toArray(new Claim[size()]);
+		index = null;
+	}
+
+	@Override
+	public boolean add(Claim e) {
+		boolean result = super.add(e);
+		publish();
+		return result;
+	}
+
+	@Override
+	public void add(int index, Claim element) {
+		super.add(index, element);
+		publish();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Claim> c) {
+		boolean result = super.addAll(c);
+		publish();
+		return result;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends Claim> c) {
+		boolean result = super.addAll(index, c);
+		publish();
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		publish();
+	}
+
+	@Override
+	public Claim remove(int index) {
+		Claim result = super.remove(index);
+		publish();
+		return result;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		boolean result = super.remove(o);
+		publish();
+		return result;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean result = super.removeAll(c);
+		publish();
+		return result;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		super.removeRange(fromIndex, toIndex);
+		publish();
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		boolean result = super.retainAll(c);
+		publish();
+		return result;
+	}
+
+	@Override
+	public Claim set(int index, Claim element) {
+		Claim result = super.set(index, element);
+		publish();
+		return result;
+	}
+
+}
@@ -0,0 +1,294 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable 2D R-tree over the X/Z bounds of the top level claims in one
+ * world, bulk loaded with Sort-Tile-Recursive packing. Answers rectangle,
+ * point and nearest claim queries in O(log n + k) instead of sampling the
+ * area with getClaimAt. Built by ClaimSnapshot the first time a world is
+ * queried, and thrown away with the snapshot.
+ */
+public class ClaimRTree {
+
+	private static final int NODE_SIZE = 16;
+
+	// entries, in leaf order.
+	private final Claim[] claims;
+	private final int[] eMinX, eMinZ, eMaxX, eMaxZ;
+
+	// nodes of every level, leaves first. a leaf's children are entries, any
+	// other node's children are nodes; either way they are contiguous.
+	private final int[] nMinX, nMinZ, nMaxX, nMaxZ, nFirst, nCount;
+	private final int leafCount;
+	private final int root;
+
+	public ClaimRTree(Collection<Claim> source) {
+		int n = source.size();
+		Claim[] input = source.toArray(new Claim[n]);
+		int[] order = strOrder(input);
+
+		claims = new Claim[n];
+		eMinX = new int[n];
+		eMinZ = new int[n];
+		eMaxX = new int[n];
+		eMaxZ = new int[n];
+		for (int i = 0; i < n; i++) {
+			Claim claim = input[order[i]];
+			claims[i] = claim;
+			eMinX[i] = minX(claim);
+			eMinZ[i] = minZ(claim);
+			eMaxX[i] = maxX(claim);
+			eMaxZ[i] = maxZ(claim);
+		}
+
+		// count the nodes of every level so the arrays can be sized up front.
+		int total = 0;
+		int levelSize = n;
+		do {
+			levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+			total += Math.max(levelSize, 1);
+		} while (levelSize > 1);
+
+		nMinX = new int[total];
+		nMinZ = new int[total];
+		nMaxX = new int[total];
+		nMaxZ = new int[total];
+		nFirst = new int[total];
+		nCount = new int[total];
+
+		// leaves, over the entries.
+		int node = 0;
+		for (int first = 0; first < n || node == 0; first += NODE_SIZE) {
+			int count = Math.min(NODE_SIZE, n - first);
+			initNode(node, first, count);
+			for (int i = first; i < first + count; i++)
+				extend(node, eMinX[i], eMinZ[i], eMaxX[i], eMaxZ[i]);
+			node++;
+		}
+		leafCount = node;
+
+		// upper levels, over the level below.
+		int levelFirst = 0;
+		int levelEnd = node;
+		while (levelEnd - levelFirst > 1) {
+			for (int first = levelFirst; first < levelEnd; first += NODE_SIZE) {
+				int count = Math.min(NODE_SIZE, levelEnd - first);
+				initNode(node, first, count);
+				for (int i = first; i < first + count; i++)
+					extend(node, nMinX[i], nMinZ[i], nMaxX[i], nMaxZ[i]);
+				node++;
+			}
+			levelFirst = levelEnd;
+			levelEnd = node;
+		}
+		root = node - 1;
+	}
+
+	private static int minX(Claim claim) {
+		return claim.minX;
+	}
+
+	private static int minZ(Claim claim) {
+		return claim.minZ;
+	}
+
+	private static int maxX(Claim claim) {
+		return claim.maxX;
+	}
+
+	private static int maxZ(Claim claim) {
+		return claim.maxZ;
+	}
+
+	// Sort-Tile-Recursive: sort by X centre, cut into vertical slices of
+	// sqrt(leaves) leaves each, then sort every slice by Z centre.
+	private static int[] strOrder(Claim[] input) {
+		int n = input.length;
+		long[] sortkeys = new long[n];
+		for (int i = 0; i < n; i++)
+			sortkeys[i] = ((long) (minX(input[i]) + maxX(input[i])) << 32) | i;
+		Arrays.sort(sortkeys);
+
+		int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+		int sliceSize = (int) Math.ceil(Math.sqrt(leaves)) * NODE_SIZE;
+		int[] order = new int[n];
+		for (int sliceStart = 0; sliceStart < n; sliceStart += sliceSize) {
+			int sliceEnd = Math.min(n, sliceStart + sliceSize);
+			for (int i = sliceStart; i < sliceEnd; i++) {
+				int index = (int) sortkeys[i];
+				sortkeys[i] = ((long) (minZ(input[index]) + maxZ(input[index])) << 32) | index;
+			}
+			Arrays.sort(sortkeys, sliceStart, sliceEnd);
+			for (int i = sliceStart; i < sliceEnd; i++)
+				order[i] = (int) sortkeys[i];
+		}
+		return order;
+	}
+
+	private void initNode(int node, int first, int count) {
+		nFirst[node] = first;
+		nCount[node] = count;
+		nMinX[node] = Integer.MAX_VALUE;
+		nMinZ[node] = Integer.MAX_VALUE;
+		nMaxX[node] = Integer.MIN_VALUE;
+		nMaxZ[node] = Integer.MIN_VALUE;
+	}
+
+	private void extend(int node, int minX, int minZ, int maxX, int maxZ) {
+		nMinX[node] = Math.min(nMinX[node], minX);
+		nMinZ[node] = Math.min(nMinZ[node], minZ);
+		nMaxX[node] = Math.max(nMaxX[node], maxX);
+		nMaxZ[node] = Math.max(nMaxZ[node], maxZ);
+	}
+
+	/**
+	 * number of claims in the tree.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return claims.length;
+	}
+
+	/**
+	 * finds the claim whose X/Z bounds contain the given column. Top level
+	 * claims never overlap, so there is at most one.
+	 *
+	 * @param x
+	 * @param z
+	 * @return the claim, or null if the column is wilderness.
+	 */
+	public Claim getClaimAt(int x, int z) {
+		return claims.length == 0 ? null : findAt(root, x, z);
+	}
+
+	private Claim findAt(int node, int x, int z) {
+		if (x < nMinX[node] || x > nMaxX[node] || z < nMinZ[node] || z > nMaxZ[node])
+			return null;
+		int end = nFirst[node] + nCount[node];
+		if (node < leafCount) {
+			for (int i = nFirst[node]; i < end; i++) {
+				if (x >= eMinX[i] && x <= eMaxX[i] && z >= eMinZ[i] && z <= eMaxZ[i])
+					return claims[i];
+			}
+			return null;
+		}
+		for (int child = nFirst[node]; child < end; child++) {
+			Claim found = findAt(child, x, z);
+			if (found != null)
+				return found;
+		}
+		return null;
+	}
+
+	/**
+	 * finds the claims that intersect, or are contained by, the given
+	 * rectangle. Bounds are inclusive.
+	 *
+	 * @param minX
+	 * @param minZ
+	 * @param maxX
+	 * @param maxZ
+	 * @param containedOnly
+	 *            if true, only claims entirely inside the rectangle are added.
+	 * @param result
+	 *            list the claims found are added to.
+	 */
+	public void search(int minX, int minZ, int maxX, int maxZ, boolean containedOnly, List<Claim> result) {
+		if (claims.length > 0)
+			search(root, minX, minZ, maxX, maxZ, containedOnly, result);
+	}
+
+	private void search(int node, int minX, int minZ, int maxX, int maxZ, boolean containedOnly, List<Claim> result) {
+		if (nMaxX[node] < minX || nMinX[node] > maxX || nMaxZ[node] < minZ || nMinZ[node] > maxZ)
+			return;
+		int end = nFirst[node] + nCount[node];
+		if (node < leafCount) {
+			for (int i = nFirst[node]; i < end; i++) {
+				if (containedOnly) {
+					if (eMinX[i] >= minX && eMaxX[i] <= maxX && eMinZ[i] >= minZ && eMaxZ[i] <= maxZ)
+						result.add(claims[i]);
+				} else if (eMaxX[i] >= minX && eMinX[i] <= maxX && eMaxZ[i] >= minZ && eMinZ[i] <= maxZ) {
+					result.add(claims[i]);
+				}
+			}
+			return;
+		}
+		for (int child = nFirst[node]; child < end; child++)
+			search(child, minX, minZ, maxX, maxZ, containedOnly, result);
+	}
+
+	// distance from a column to a rectangle, measured as the larger of the X
+	// and Z gaps. 0 when the column is inside.
+	private static int distance(int x, int z, int minX, int minZ, int maxX, int maxZ) {
+		int dx = x < minX ? minX - x : (x > maxX ? x - maxX : 0);
+		int dz = z < minZ ? minZ - z : (z > maxZ ? z - maxZ : 0);
+		return Math.max(dx, dz);
+	}
+
+	/**
+	 * finds the k claims nearest to the given column, nearest first. Distance
+	 * is the larger of the X and Z gaps between the column and the claim's
+	 * edge, so a claim the column is inside has distance 0.
+	 *
+	 * @param x
+	 * @param z
+	 * @param k
+	 *            maximum number of claims to find.
+	 * @param maxDistance
+	 *            claims further away than this are ignored.
+	 * @param result
+	 *            list the claims found are added to.
+	 * @param distances
+	 *            receives the distance of each claim found, in the same
+	 *            order. must have room for k values. may be null.
+	 * @return number of claims found.
+	 */
+	public int nearest(int x, int z, int k, int maxDistance, List<Claim> result, int[] distances) {
+		if (claims.length == 0 || k <= 0)
+			return 0;
+		Claim[] best = new Claim[k];
+		int[] bestDistance = new int[k];
+		Arrays.fill(bestDistance, maxDistance == Integer.MAX_VALUE ? maxDistance : maxDistance + 1);
+		nearest(root, x, z, best, bestDistance);
+		int found = 0;
+		for (int i = 0; i < k && best[i] != null; i++) {
+			result.add(best[i]);
+			if (distances != null)
+				distances[i] = bestDistance[i];
+			found++;
+		}
+		return found;
+	}
+
+	private void nearest(int node, int x, int z, Claim[] best, int[] bestDistance) {
+		int k = best.length;
+		// prune nodes that can't beat the current k-th best.
+		if (distance(x, z, nMinX[node], nMinZ[node], nMaxX[node], nMaxZ[node]) >= bestDistance[k - 1])
+			return;
+		int end = nFirst[node] + nCount[node];
+		if (node < leafCount) {
+			for (int i = nFirst[node]; i < end; i++) {
+				int d = distance(x, z, eMinX[i], eMinZ[i], eMaxX[i], eMaxZ[i]);
+				if (d >= bestDistance[k - 1])
+					continue;
+				// insertion into the sorted best list.
+				int pos = k - 1;
+				while (pos > 0 && bestDistance[pos - 1] > d) {
+					best[pos] = best[pos - 1];
+					bestDistance[pos] = bestDistance[pos - 1];
+					pos--;
+				}
+				best[pos] = claims[i];
+				bestDistance[pos] = d;
+			}
+			return;
+		}
+		for (int child = nFirst[node]; child < end; child++)
+			nearest(child, x, z, best, bestDistance);
+	}
+
+}
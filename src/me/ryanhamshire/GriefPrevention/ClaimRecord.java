@@ -0,0 +1,147 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * A claim as read from secondary storage, before it is turned into a Claim.
+ * Holds only strings and numbers, so records can be parsed on worker threads;
+ * resolving the world and building the Claim happens later, on the thread
+ * that adds the claims to the DataStore (see DataStore.addLoadedClaims()).
+ */
+class ClaimRecord {
+
+	// null means the claim has no ID yet, and needs one assigned.
+	Long id;
+	UUID uuid;
+	String worldName;
+	int lesserX, lesserY, lesserZ;
+	int greaterX, greaterY, greaterZ;
+	String ownerName;
+	String[] builders = new String[0];
+	String[] containers = new String[0];
+	String[] accessors = new String[0];
+	String[] managers = new String[0];
+	boolean neverdelete;
+	Date modifiedDate;
+	// file the record was read from, for the flat file store.
+	File source;
+	// true if the stored data was incomplete (no UUID) and should be written
+	// back once loaded.
+	boolean needsSave;
+	ArrayList<ClaimRecord> children = new ArrayList<ClaimRecord>();
+
+	// set by DataStore.addLoadedClaims() when the record was rejected.
+	Claim conflict;
+
+	/**
+	 * sets the corners from "world;x;y;z" location strings.
+	 *
+	 * @param lesser
+	 * @param greater
+	 * @throws Exception
+	 *             if either string is malformed.
+	 */
+	void setCorners(String lesser, String greater) throws Exception {
+		String[] low = splitLocation(lesser);
+		String[] high = splitLocation(greater);
+		worldName = low[0];
+		lesserX = Integer.parseInt(low[1]);
+		lesserY = Integer.parseInt(low[2]);
+		lesserZ = Integer.parseInt(low[3]);
+		greaterX = Integer.parseInt(high[1]);
+		greaterY = Integer.parseInt(high[2]);
+		greaterZ = Integer.parseInt(high[3]);
+	}
+
+	/**
+	 * retrieves the world name from a "world;x;y;z" location string.
+	 *
+	 * @param location
+	 * @return
+	 */
+	static String worldOf(String location) {
+		int split = location.indexOf(';');
+		return split < 0 ? location : location.substring(0, split);
+	}
+
+	private static String[] splitLocation(String location) throws Exception {
+		String[] elements = location == null ? new String[0] : location.split(";");
+		if (elements.length != 4) {
+			throw new Exception("Expected four distinct parts to the location string:{" + location + "}");
+		}
+		return elements;
+	}
+
+	/**
+	 * copies a claim, and its subdivisions if it's a top level claim. Must
+	 * be called on the thread that changes the claim; the record can then be
+	 * used on any thread.
+	 *
+	 * @param claim
+	 * @return
+	 */
+	static ClaimRecord fromClaim(Claim claim) {
+		ClaimRecord record = new ClaimRecord();
+		record.id = claim.id;
+		record.uuid = claim.getUUID();
+		record.ownerName = claim.claimOwnerName;
+		Location lesser = claim.getLesserBoundaryCorner();
+		Location greater = claim.getGreaterBoundaryCorner();
+		record.worldName = lesser.getWorld().getName();
+		record.lesserX = lesser.getBlockX();
+		record.lesserY = lesser.getBlockY();
+		record.lesserZ = lesser.getBlockZ();
+		record.greaterX = greater.getBlockX();
+		record.greaterY = greater.getBlockY();
+		record.greaterZ = greater.getBlockZ();
+		ArrayList<String> builders = new ArrayList<String>();
+		ArrayList<String> containers = new ArrayList<String>();
+		ArrayList<String> accessors = new ArrayList<String>();
+		ArrayList<String> managers = new ArrayList<String>();
+		claim.getPermissions(builders, containers, accessors, managers);
+		record.builders = builders.toArray(new String[builders.size()]);
+		record.containers = containers.toArray(new String[containers.size()]);
+		record.accessors = accessors.toArray(new String[accessors.size()]);
+		record.managers = managers.toArray(new String[managers.size()]);
+		record.neverdelete = claim.neverdelete;
+		if (claim.modifiedDate != null)
+			record.modifiedDate = new Date(claim.modifiedDate.getTime());
+		if (claim.parent == null) {
+			for (Claim child : claim.children)
+				record.children.add(fromClaim(child));
+		}
+		return record;
+	}
+
+	/**
+	 * builds the claim this record describes, along with its subdivisions.
+	 *
+	 * @param world
+	 *            the world named by the record.
+	 * @return
+	 */
+	Claim toClaim(World world) {
+		Claim claim = new Claim(new Location(world, lesserX, lesserY, lesserZ), new Location(world, greaterX, greaterY, greaterZ), ownerName, builders, containers, accessors, managers, id, neverdelete);
+		if (uuid != null)
+			claim.setUUID(uuid);
+		if (modifiedDate != null)
+			claim.modifiedDate = modifiedDate;
+		for (ClaimRecord child : children) {
+			Claim subdivision = new Claim(new Location(world, child.lesserX, child.lesserY, child.lesserZ), new Location(world, child.greaterX, child.greaterY, child.greaterZ), ownerName, child.builders, child.containers, child.accessors, child.managers, child.id, child.neverdelete);
+			if (child.uuid != null)
+				subdivision.setUUID(child.uuid);
+			if (child.modifiedDate != null)
+				subdivision.modifiedDate = child.modifiedDate;
+			subdivision.parent = claim;
+			claim.children.add(subdivision);
+		}
+		return claim;
+	}
+
+}
@@ -0,0 +1,156 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of the claim chunk index at one point in time. ClaimArray
+ * builds a new snapshot whenever claims are added or removed and publishes it
+ * through a volatile reference, so any thread can resolve claims without
+ * taking the DataStore lock. Nothing reachable from a published snapshot is
+ * ever modified.
+ */
+public class ClaimSnapshot {
+
+	static final ClaimSnapshot EMPTY = new ClaimSnapshot(0, Collections.<String, ChunkClaimMap> emptyMap());
+
+	private final long version;
+	private final Map<String, ChunkClaimMap> worlds;
+	// range query indexes, built on first use.
+	private final ConcurrentHashMap<String, ClaimRTree> trees = new ConcurrentHashMap<String, ClaimRTree>();
+
+	ClaimSnapshot(long version, Map<String, ChunkClaimMap> worlds) {
+		this.version = version;
+		this.worlds = new HashMap<String, ChunkClaimMap>(worlds);
+	}
+
+	/**
+	 * retrieves the top level claims touching the given chunk.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param chunkX
+	 *            chunk X coordinate (block X >> 4)
+	 * @param chunkZ
+	 *            chunk Z coordinate (block Z >> 4)
+	 * @return list of claims, or null if there are no claims in that chunk.
+	 *         the returned list must not be modified.
+	 */
+	public List<Claim> getClaims(String worldname, int chunkX, int chunkZ) {
+		return getChunk(worldname, chunkX, chunkZ);
+	}
+
+	/**
+	 * quick check for chunks that can't hold any claim. Cheaper than
+	 * getClaims(), but may answer false for a chunk that is in fact
+	 * unclaimed.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return true if there is certainly no claim in that chunk.
+	 */
+	public boolean isUnclaimedChunk(String worldname, int chunkX, int chunkZ) {
+		ChunkClaimMap worldchunks = worlds.get(worldname);
+		return worldchunks == null || !worldchunks.mightContain(chunkX, chunkZ);
+	}
+
+	ChunkClaimList getChunk(String worldname, int chunkX, int chunkZ) {
+		ChunkClaimMap worldchunks = worlds.get(worldname);
+		if (worldchunks == null)
+			return null;
+		return worldchunks.get(chunkX, chunkZ);
+	}
+
+	/**
+	 * finds the top level claim covering a block column. Height is not
+	 * considered.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param x
+	 *            block X coordinate.
+	 * @param z
+	 *            block Z coordinate.
+	 * @return the claim, or null if the column is not claimed.
+	 */
+	public Claim getTopLevelClaimAt(String worldname, int x, int z) {
+		ChunkClaimList chunkclaims = getChunk(worldname, x >> 4, z >> 4);
+		return chunkclaims == null ? null : chunkclaims.getClaimAt(x, z);
+	}
+
+	/**
+	 * finds the top level claims covering many block columns at once. Height
+	 * is not considered. Runs of positions in the same chunk share one chunk
+	 * lookup, so positions should be passed roughly grouped by chunk, as
+	 * explosion and piston block lists already are.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @param xs
+	 *            block X coordinates.
+	 * @param zs
+	 *            block Z coordinates, aligned with xs.
+	 * @param result
+	 *            receives the claim for each position, or null where the
+	 *            column is not claimed. at least as long as xs.
+	 */
+	public void getTopLevelClaimsAt(String worldname, int[] xs, int[] zs, Claim[] result) {
+		ChunkClaimMap worldchunks = worlds.get(worldname);
+		ChunkClaimList chunkclaims = null;
+		long lastKey = 0;
+		for (int i = 0; i < xs.length; i++) {
+			if (worldchunks == null) {
+				result[i] = null;
+				continue;
+			}
+			long key = ChunkClaimMap.chunkKey(xs[i] >> 4, zs[i] >> 4);
+			if (i == 0 || key != lastKey) {
+				chunkclaims = worldchunks.mightContain(key) ? worldchunks.get(key) : null;
+				lastKey = key;
+			}
+			result[i] = chunkclaims == null ? null : chunkclaims.getClaimAt(xs[i], zs[i]);
+		}
+	}
+
+	/**
+	 * retrieves the range query index for the top level claims of a world.
+	 * The index is built the first time it is asked for.
+	 * 
+	 * @param worldname
+	 *            name of the world.
+	 * @return R-tree over the claims in that world. Empty if the world has no
+	 *         claims.
+	 */
+	public ClaimRTree getTree(String worldname) {
+		ClaimRTree tree = trees.get(worldname);
+		if (tree == null) {
+			ChunkClaimMap worldchunks = worlds.get(worldname);
+			Set<Claim> worldclaims = Collections.newSetFromMap(new IdentityHashMap<Claim, Boolean>());
+			if (worldchunks != null)
+				worldchunks.collectClaims(worldclaims);
+			tree = new ClaimRTree(worldclaims);
+			ClaimRTree existing = trees.putIfAbsent(worldname, tree);
+			if (existing != null)
+				tree = existing;
+		}
+		return tree;
+	}
+
+	/**
+	 * version number of this snapshot. Increases every time the claim index
+	 * changes.
+	 * 
+	 * @return
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+}
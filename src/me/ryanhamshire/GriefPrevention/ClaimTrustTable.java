@@ -0,0 +1,156 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.entity.Player;
+
+/**
+ * The trust entries of one claim, sorted by kind and permission level so a
+ * check doesn't have to walk and re-parse every entry. Built by Claim from
+ * its permission map and managers list, and rebuilt whenever they change;
+ * never modified once built.
+ * <p>
+ * Entries are player names, "g:" group references or "[node]" Bukkit
+ * permission nodes. A leading "!" turns an entry into a denial, which wins
+ * over any entry granting the same level.
+ */
+class ClaimTrustTable {
+
+	// the entries granting (or denying) one level.
+	private static final class Entries {
+		// lower cased player names.
+		final HashSet<String> names = new HashSet<String>();
+		// upper cased group names, without the "g:" prefix. membership is
+		// looked up at check time, as the groups config can be reloaded.
+		final ArrayList<String> groups = new ArrayList<String>();
+		// permission nodes, without the brackets.
+		final ArrayList<String> nodes = new ArrayList<String>();
+
+		void add(String identifier) {
+			if (identifier.length() > 2 && identifier.regionMatches(true, 0, "g:", 0, 2)) {
+				groups.add(identifier.substring(2).toUpperCase());
+			} else if (identifier.startsWith("[") && identifier.endsWith("]")) {
+				if (identifier.length() > 2)
+					nodes.add(identifier.substring(1, identifier.length() - 1));
+			} else {
+				names.add(identifier.toLowerCase(Locale.ENGLISH));
+			}
+		}
+
+		boolean matchesName(String playerName) {
+			if (names.contains(playerName.toLowerCase(Locale.ENGLISH)))
+				return true;
+			if (groups.isEmpty())
+				return false;
+			Set<String> playerGroups = GriefPrevention.instance.config_player_groups.getGroupNamesForPlayer(playerName);
+			if (playerGroups.isEmpty())
+				return false;
+			for (int i = 0; i < groups.size(); i++) {
+				if (playerGroups.contains(groups.get(i)))
+					return true;
+			}
+			return false;
+		}
+
+		boolean matches(Player player) {
+			if (matchesName(player.getName()))
+				return true;
+			for (int i = 0; i < nodes.size(); i++) {
+				if (player.hasPermission(nodes.get(i)))
+					return true;
+			}
+			return false;
+		}
+
+		boolean isEmpty() {
+			return names.isEmpty() && groups.isEmpty() && nodes.isEmpty();
+		}
+	}
+
+	private static final ClaimPermission[] LEVELS = ClaimPermission.values();
+
+	private final Entries[] allowed = new Entries[LEVELS.length];
+	private final Entries[] denied = new Entries[LEVELS.length];
+	private final Entries managers = new Entries();
+	private final int version;
+
+	/**
+	 * compiles a claim's trust entries.
+	 *
+	 * @param permissions
+	 *            the claim's identifier to permission level map.
+	 * @param managerList
+	 *            the claim's managers.
+	 * @param version
+	 *            the claim's trust version the entries were read at.
+	 */
+	ClaimTrustTable(Map<String, ClaimPermission> permissions, List<String> managerList, int version) {
+		this.version = version;
+		for (Map.Entry<String, ClaimPermission> entry : permissions.entrySet()) {
+			String identifier = entry.getKey();
+			ClaimPermission level = entry.getValue();
+			if (identifier == null || level == null)
+				continue;
+			Entries[] target = allowed;
+			if (identifier.startsWith("!")) {
+				identifier = identifier.substring(1);
+				target = denied;
+			}
+			if (target[level.ordinal()] == null)
+				target[level.ordinal()] = new Entries();
+			target[level.ordinal()].add(identifier);
+		}
+		for (String manager : managerList) {
+			if (manager != null && manager.length() > 0)
+				managers.add(manager);
+		}
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * whether a player is explicitly granted a permission level, not counting
+	 * "public".
+	 *
+	 * @param player
+	 * @param level
+	 * @return
+	 */
+	boolean hasPermission(Player player, ClaimPermission level) {
+		Entries deny = denied[level.ordinal()];
+		if (deny != null && deny.matches(player))
+			return false;
+		Entries allow = allowed[level.ordinal()];
+		return allow != null && allow.matches(player);
+	}
+
+	/**
+	 * whether a player is one of the claim's managers, directly, through a
+	 * group or through a bracketed permission node.
+	 *
+	 * @param player
+	 * @return
+	 */
+	boolean isManager(Player player) {
+		return !managers.isEmpty() && managers.matches(player);
+	}
+
+	/**
+	 * whether a player name is one of the claim's managers, directly or
+	 * through a group. Permission nodes can't be checked without a Player.
+	 *
+	 * @param playerName
+	 * @return
+	 */
+	boolean isManager(String playerName) {
+		return !managers.isEmpty() && managers.matchesName(playerName);
+	}
+
+}
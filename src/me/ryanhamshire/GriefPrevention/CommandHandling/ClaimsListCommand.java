@@ -56,7 +56,8 @@ public class ClaimsListCommand extends GriefPreventionCommand {
 
 		// load the target player's data
 		PlayerData playerData = inst.dataStore.getPlayerData(otherPlayer.getName());
-		GriefPrevention.sendMessage(player, TextMode.Instr, " " + playerData.accruedClaimBlocks + "(+" + (playerData.bonusClaimBlocks + inst.dataStore.getGroupBonusBlocks(otherPlayer.getName())) + ")=" + (playerData.accruedClaimBlocks + playerData.bonusClaimBlocks + inst.dataStore.getGroupBonusBlocks(otherPlayer.getName())));
+		int groupBonusBlocks = inst.dataStore.getGroupBonusBlocks(otherPlayer.getName());
+		GriefPrevention.sendMessage(player, TextMode.Instr, " " + playerData.accruedClaimBlocks + "(+" + (playerData.bonusClaimBlocks + groupBonusBlocks) + ")=" + (playerData.accruedClaimBlocks + playerData.bonusClaimBlocks + groupBonusBlocks));
 		for (int i = 0; i < playerData.claims.size(); i++) {
 			Claim claim = playerData.claims.get(i);
 			GriefPrevention.sendMessage(player, TextMode.Instr, "  (Area:" + claim.getArea() + ") " + GriefPrevention.getfriendlyLocationString(claim.getLesserBoundaryCorner()));
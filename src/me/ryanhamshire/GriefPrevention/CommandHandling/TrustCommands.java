@@ -169,7 +169,7 @@ public class TrustCommands extends GriefPreventionCommand {
 			} else {
 				currentClaim.setPermission(recipientName, permissionLevel);
 			}
-			inst.dataStore.saveClaim(currentClaim);
+			inst.dataStore.saveClaimLater(currentClaim);
 		}
 
 		// notify player
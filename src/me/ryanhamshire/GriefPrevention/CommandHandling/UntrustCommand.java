@@ -94,7 +94,7 @@ public class UntrustCommand extends GriefPreventionCommand {
 				}
 
 				// save changes
-				inst.dataStore.saveClaim(claim);
+				inst.dataStore.saveClaimLater(claim);
 			}
 
 			// beautify for output
@@ -138,7 +138,7 @@ public class UntrustCommand extends GriefPreventionCommand {
 			}
 
 			// save changes
-			inst.dataStore.saveClaim(claim);
+			inst.dataStore.saveClaimLater(claim);
 		}
 
 		return true;
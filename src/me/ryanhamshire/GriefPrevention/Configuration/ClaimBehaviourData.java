@@ -111,89 +111,92 @@ public class ClaimBehaviourData {
 		}
 
 		public boolean PerformTest(Location testLocation, Player testPlayer, boolean ShowMessages) {
-			boolean testresult = false;
-			try {
-				WorldConfig wc = GriefPrevention.instance.getWorldCfg(testLocation.getWorld());
-				PlayerData pd = null;
-				// System.out.println("PerformTest:" + this.name());
-				if (testPlayer == null)
-					return testresult = true;
-				if (testPlayer != null)
-					pd = GriefPrevention.instance.dataStore.getPlayerData(testPlayer.getName());
-				if ((pd != null) && pd.ignoreClaims || this == RequireNone)
-					return true;
-
-
-
+			// System.out.println("PerformTest:" + this.name());
+			if (testPlayer == null)
+				return true;
+			PlayerData pd = GriefPrevention.instance.dataStore.getPlayerData(testPlayer.getName());
+			if ((pd != null) && pd.ignoreClaims || this == RequireNone)
+				return true;
+
+			return PerformTest(GriefPrevention.instance.dataStore.getClaimAt(testLocation, false), testPlayer, ShowMessages);
+		}
 
-				String result = null;
-				Claim atposition = GriefPrevention.instance.dataStore.getClaimAt(testLocation, false);
-				if (atposition == null)
-					return testresult = true; // unexpected...
-				switch (this) {
-				case Disabled:
-					if (testPlayer != null && ShowMessages)
-						GriefPrevention.sendMessage(testPlayer, TextMode.Err, Messages.ConfigDisabled);
-					return testresult = false;
-				case RequireNone:
-					return testresult = true;
-				case RequireOwner:
-					if (atposition.getOwnerName().equalsIgnoreCase(testPlayer.getName())) {
-						return testresult = true;
+		/**
+		 * tests a player against an already resolved claim. Unlike the
+		 * Location overload this doesn't consider ignoreclaims; the caller
+		 * is expected to have done so.
+		 * 
+		 * @param atposition
+		 *            claim at the tested position, from getClaimAt(location,
+		 *            false). null passes.
+		 * @param testPlayer
+		 * @param ShowMessages
+		 * @return
+		 */
+		public boolean PerformTest(Claim atposition, Player testPlayer, boolean ShowMessages) {
+			String result = null;
+			if (atposition == null)
+				return true; // unexpected...
+			switch (this) {
+			case Disabled:
+				if (testPlayer != null && ShowMessages)
+					GriefPrevention.sendMessage(testPlayer, TextMode.Err, Messages.ConfigDisabled);
+				return false;
+			case RequireNone:
+				return true;
+			case RequireOwner:
+				if (atposition.getOwnerName().equalsIgnoreCase(testPlayer.getName())) {
+					return true;
 
-					} else {
-						if (ShowMessages)
-							GriefPrevention.sendMessage(testPlayer, TextMode.Err, "You need to Own the claim to do that.");
-						return testresult = false;
-					}
-				case RequireManager:
-
-					if (atposition.isManager(testPlayer.getName())) {
-						return testresult = true; // success
-					} else {
-						// failed! if showmessages is on, show that message.
-						if (ShowMessages)
-							GriefPrevention.sendMessage(testPlayer, TextMode.Err, "You need to have Manager trust to do that.");
-						return testresult = false;
-					}
-				case RequireBuild:
-
-					if (null == (result = atposition.allowBuild(testPlayer))) {
-						return true; // success
-					} else {
-						// failed! if showmessages is on, show that message.
-						if (ShowMessages)
-							GriefPrevention.sendMessage(testPlayer, TextMode.Err, result);
-						return testresult = false;
-					}
-				case RequireAccess:
-
-					if (null == (result = atposition.allowAccess(testPlayer))) {
-						return testresult = true; // success
-					} else {
-						// failed! if showmessages is on, show that message.
-						if (ShowMessages)
-							GriefPrevention.sendMessage(testPlayer, TextMode.Err, result);
-						return testresult = false;
-					}
-				case RequireContainer:
-
-					if (null == (result = atposition.allowContainers(testPlayer))) {
-						return testresult = true; // success
-					} else {
-						// failed! if showmessages is on, show that message.
-						if (ShowMessages)
-							GriefPrevention.sendMessage(testPlayer, TextMode.Err, result);
-						return testresult = false;
-					}
-				default:
-					// System.out.println("defaulting on " + name());
-					return testresult = false;
+				} else {
+					if (ShowMessages)
+						GriefPrevention.sendMessage(testPlayer, TextMode.Err, "You need to Own the claim to do that.");
+					return false;
+				}
+			case RequireManager:
+
+				if (atposition.isManager(testPlayer.getName())) {
+					return true; // success
+				} else {
+					// failed! if showmessages is on, show that message.
+					if (ShowMessages)
+						GriefPrevention.sendMessage(testPlayer, TextMode.Err, "You need to have Manager trust to do that.");
+					return false;
 				}
-			} finally {
-				// System.out.println("ClaimBehaviour returning " + testresult);
+			case RequireBuild:
+
+				if (null == (result = atposition.allowBuild(testPlayer))) {
+					return true; // success
+				} else {
+					// failed! if showmessages is on, show that message.
+					if (ShowMessages)
+						GriefPrevention.sendMessage(testPlayer, TextMode.Err, result);
+					return false;
+				}
+			case RequireAccess:
+
+				if (null == (result = atposition.allowAccess(testPlayer))) {
+					return true; // success
+				} else {
+					// failed! if showmessages is on, show that message.
+					if (ShowMessages)
+						GriefPrevention.sendMessage(testPlayer, TextMode.Err, result);
+					return false;
+				}
+			case RequireContainer:
+
+				if (null == (result = atposition.allowContainers(testPlayer))) {
+					return true; // success
+				} else {
+					// failed! if showmessages is on, show that message.
+					if (ShowMessages)
+						GriefPrevention.sendMessage(testPlayer, TextMode.Err, result);
+					return false;
+				}
+			default:
+				// System.out.println("defaulting on " + name());
+				return false;
 			}
-
 		}
 	}
 
@@ -277,26 +280,32 @@ public class ClaimBehaviourData {
 		SiegeDefenderOverride = Defender;
 		SiegeBystanderOverride = ByStander;
         SiegeNonPlayerOverride = NonPlayer;
+		plan = null;
 		return this;
 	}
     public ClaimBehaviourData setSiegeAttackerOverride(SiegePVPOverrideConstants Attacker){
         SiegeAttackerOverride = Attacker;
+        plan = null;
         return this;
     }
     public ClaimBehaviourData setSiegeDefenderOverride(SiegePVPOverrideConstants Defender){
         SiegeDefenderOverride = Defender;
+        plan = null;
         return this;
     }
     public ClaimBehaviourData setSiegeBystanderOverride(SiegePVPOverrideConstants Bystander){
         SiegeBystanderOverride = Bystander;
+        plan = null;
         return this;
     }
     public ClaimBehaviourData setSiegeNonPlayerOverride(SiegePVPOverrideConstants nonPlayer){
         SiegeNonPlayerOverride = nonPlayer;
+        plan = null;
         return this;
     }
 	public ClaimBehaviourData setPVPOverride(SiegePVPOverrideConstants newPVP){
 		this.PvPOverride = newPVP;
+		plan = null;
 		return this;
 	}
 	
@@ -416,6 +425,7 @@ public class ClaimBehaviourData {
 		
 		outConfig.set(NodePath + ".Claims.ClaimControl", ClaimBehaviour.name());
 		Debugger.Write(this.toString(),DebugLevel.Verbose);
+		plan = new Plan(this);
 
 	}
 
@@ -439,7 +449,7 @@ public class ClaimBehaviourData {
 	 */
 	public ClaimAllowanceConstants Allowed(Entity Target,Player RelevantPlayer,boolean ShowMessages){
 
-        Debugger.Write("ClaimBehaviourData::Allowed-" + this.getBehaviourName(), DebugLevel.Verbose);
+        Debugger.Write(DebugLevel.Verbose, "ClaimBehaviourData::Allowed-%s", this.getBehaviourName());
 
 
 
@@ -450,7 +460,7 @@ public class ClaimBehaviourData {
 		else if(!(((Tameable)Target).getOwner()==null)){
 			Tameable testTamed = (Tameable)Target;
 			if(testTamed.getOwner().getName().equalsIgnoreCase(RelevantPlayer.getName())){
-                Debugger.Write("ClaimBehaviourData::Allowed- Forcing allowance for Tameable owned by " + RelevantPlayer.getName(),DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "ClaimBehaviourData::Allowed- Forcing allowance for Tameable owned by %s", RelevantPlayer.getName());
 				return ClaimAllowanceConstants.Allow_Forced;
             }
 			else
@@ -519,43 +529,78 @@ public class ClaimBehaviourData {
 	 */
 
 	public ClaimAllowanceConstants Allowed(Location position, Player RelevantPlayer, boolean ShowMessages, boolean fireEvent) {
+		Claim claimAt = GriefPrevention.instance.dataStore.getClaimAt(position, true);
+		return Allowed(position, RelevantPlayer, ShowMessages, fireEvent, claimAt, null);
+	}
+
+	/**
+	 * returns whether this Behaviour is allowed at the given location, using a
+	 * claim and PlayerData the caller already has, so they aren't looked up
+	 * again. Callers checking many positions at once (explosions, for
+	 * example) should use this.
+	 * 
+	 * @param position
+	 *            Position to test.
+	 * @param RelevantPlayer
+	 *            Player to test. Can be null for actions or behaviours that do
+	 *            not involve a player.
+	 * @param ShowMessages
+	 *            Whether a Denied result will display an appropriate message.
+	 * @param fireEvent
+	 *            Whether this call will fire the PermissionCheckEvent.
+	 * @param claimAt
+	 *            the claim at position, as returned by
+	 *            getClaimAt(position, true). null means the wilderness.
+	 * @param playerData
+	 *            RelevantPlayer's PlayerData, or null to look it up.
+	 * @return whether this behaviour is Allowed or Denied at the given position and for the given player.
+	 */
+	public ClaimAllowanceConstants Allowed(Location position, Player RelevantPlayer, boolean ShowMessages, boolean fireEvent, Claim claimAt, PlayerData playerData) {
 		ClaimAllowanceConstants returned = ClaimAllowanceConstants.Allow;
+		Plan plan = getPlan();
 		try {
-			Debugger.Write("Behaviour: " +this.getBehaviourName(), DebugLevel.Verbose);
+			Debugger.Write(DebugLevel.Verbose, "Behaviour: %s", this.getBehaviourName());
+
+			PlayerData pd = null;
+			boolean ignoringclaims = false;
+			if (RelevantPlayer != null) {
+				pd = playerData != null ? playerData : GriefPrevention.instance.dataStore.getPlayerData(RelevantPlayer.getName());
+				if (pd != null)
+					ignoringclaims = pd.ignoreClaims;
+
+			}
 
             //if there are special rules...
             if(this.SpecialRuleFlags.size()>0){
-                Debugger.Write("SpecialRuleFlags found on element named " + this.BehaviourName,DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "SpecialRuleFlags found on element named %s", this.BehaviourName);
                 if(RelevantPlayer!=null){
 
                     Player p = RelevantPlayer;
-                    Debugger.Write("SpecialRuleFlags testing with Player " + p.getName(),DebugLevel.Verbose);
-                    PlayerData pd = GriefPrevention.instance.dataStore.getPlayerData(p.getName());
+                    Debugger.Write(DebugLevel.Verbose, "SpecialRuleFlags testing with Player %s", p.getName());
                     //check them all. Right now it doesn't really make sense to have more than one,
                     //and some are sorta mutually exclusive, but more might be added. Exclusivity will
                     //(hopefully) get documented, if it is ever added.
                     ClaimAllowanceConstants cac = ClaimAllowanceConstants.None;
-                    Claim GrabClaim = GriefPrevention.instance.dataStore.getClaimAt(position,true);
                     boolean InClaim=false;
-                    if(GrabClaim!=null && GrabClaim.allowBuild(p)==null) InClaim=true;
+                    if(claimAt!=null && claimAt.allowBuild(p)==null) InClaim=true;
                     for(SpecialRules sr:this.SpecialRuleFlags){
 
                         if(sr==SpecialRules.ClaimRule_RequireClaims){
                             //if they have no claims, return deny.
-                            Debugger.Write("RequireClaims: Player has " + String.valueOf(pd.claims.size()) + " claims.",DebugLevel.Verbose);
+                            Debugger.Write(DebugLevel.Verbose, "RequireClaims: Player has %s claims.", pd.claims.size());
                             if(pd.claims.size()==0) cac = ClaimAllowanceConstants.Deny;
                         }
                         if(sr==SpecialRules.ClaimRule_RequireNoClaims){
                             //if they have claims, deny.
-                            Debugger.Write("RequireNoClaims: Player has " + String.valueOf(pd.claims.size()) + " claims.",DebugLevel.Verbose);
+                            Debugger.Write(DebugLevel.Verbose, "RequireNoClaims: Player has %s claims.", pd.claims.size());
                             if(pd.claims.size()>0) cac = ClaimAllowanceConstants.Deny;
                         }
                         if(sr==SpecialRules.ClaimRule_Claim){
-                            Debugger.Write("ClaimRule_Claim: Player In claim:" + String.valueOf(InClaim),DebugLevel.Verbose);
+                            Debugger.Write(DebugLevel.Verbose, "ClaimRule_Claim: Player In claim:%s", InClaim);
                             if(InClaim) return ClaimAllowanceConstants.Allow;
                         }
                         if(sr==SpecialRules.ClaimRule_Wilderness){
-                            Debugger.Write("ClaimRule_Wilderness: Player In claim:" + String.valueOf(InClaim),DebugLevel.Verbose);
+                            Debugger.Write(DebugLevel.Verbose, "ClaimRule_Wilderness: Player In claim:%s", InClaim);
                             if(!InClaim) return ClaimAllowanceConstants.Allow;
                         }
 
@@ -570,15 +615,8 @@ public class ClaimBehaviourData {
             }
 
 
-			PlayerData pd = null;
-			boolean ignoringclaims = false;
-			if (RelevantPlayer != null) {
-				pd = GriefPrevention.instance.dataStore.getPlayerData(RelevantPlayer.getName());
-				if (pd != null)
-					ignoringclaims = pd.ignoreClaims;
-
-			}
-			if (fireEvent) {
+			// nobody can change the result if nobody is listening.
+			if (fireEvent && PermissionCheckEvent.hasListeners()) {
 				PermissionCheckEvent permcheck = new PermissionCheckEvent(this, RelevantPlayer);
 
 				Bukkit.getPluginManager().callEvent(permcheck);
@@ -590,25 +628,19 @@ public class ClaimBehaviourData {
 
 			
 			//check pvp...
-			if(pd!=null && pd.inPvpCombat()){
+			if(plan.pvpOverride && pd!=null && pd.inPvpCombat()){
 				
-				if(this.PvPOverride!=SiegePVPOverrideConstants.None){
-					
-					if(PvPOverride == SiegePVPOverrideConstants.Allow){
-						return ClaimAllowanceConstants.Allow;
-					}
-					else if(PvPOverride == SiegePVPOverrideConstants.Deny){
-						return ClaimAllowanceConstants.Deny;
-					}
-						
+				if(PvPOverride == SiegePVPOverrideConstants.Allow){
+					return ClaimAllowanceConstants.Allow;
+				}
+				else if(PvPOverride == SiegePVPOverrideConstants.Deny){
+					return ClaimAllowanceConstants.Deny;
 				}
-				
-				
 				
 			}
 			
 			
-			Claim testclaim = GriefPrevention.instance.dataStore.getClaimAt(position, true);
+			Claim testclaim = claimAt;
 			if (testclaim != null) {
 				if (ignoringclaims)
 					return ClaimAllowanceConstants.Allow;
@@ -617,6 +649,7 @@ public class ClaimBehaviourData {
 				//if the claim is under siege, apply the siege overrides, if available.
 				
 				if(testclaim.siegeData != null){
+					if(plan.siegeOverrides){
 
 					SiegePVPOverrideConstants useval = SiegePVPOverrideConstants.None;
 					//siege overrides apply to players being seiged or attacking, but also
@@ -682,14 +715,17 @@ public class ClaimBehaviourData {
 						
 						
 					}
+					}
 					
 				}
-				else if (!this.ClaimBehaviour.PerformTest(position, RelevantPlayer, ShowMessages))
+				// the claim mode test looks at the claim at the position's
+				// height, which is below the claim for blocks under it.
+				else if (plan.claimTest && RelevantPlayer != null && !this.ClaimBehaviour.PerformTest(testclaim.atHeight(position.getBlockY()), RelevantPlayer, ShowMessages))
                         return returned = ClaimAllowanceConstants.Deny;
 
 				
 				
-				boolean varresult = this.Claims.Allow(position, RelevantPlayer, ShowMessages);
+				boolean varresult = plan.claimsAlways || (!plan.claimsNever && this.Claims.Allow(position, RelevantPlayer, ShowMessages));
 
 				return returned = (varresult ? ClaimAllowanceConstants.Allow : ClaimAllowanceConstants.Deny);
 
@@ -701,10 +737,11 @@ public class ClaimBehaviourData {
 			 * ()).seaLevelOverride(); int yposition = position.getBlockY();
 			 * boolean abovesealevel = yposition > sealevel;
 			 */
-			else if (testclaim == null) {
+			else {
 				// we aren't inside a claim.
 				// System.out.println(BehaviourName + "Wilderness test...");
-				ClaimAllowanceConstants wildernessresult = Wilderness.Allow(position, RelevantPlayer, ShowMessages && RelevantPlayer != null) ? ClaimAllowanceConstants.Allow : ClaimAllowanceConstants.Deny;
+				boolean wildernessallowed = plan.wildernessAlways || (!plan.wildernessNever && Wilderness.Allow(position, RelevantPlayer, ShowMessages && RelevantPlayer != null));
+				ClaimAllowanceConstants wildernessresult = wildernessallowed ? ClaimAllowanceConstants.Allow : ClaimAllowanceConstants.Deny;
 				// if(wildernessresult.Denied() && ShowMessages &&
 				// RelevantPlayer!=null){
 				// GriefPrevention.sendMessage(RelevantPlayer, TextMode.Err,
@@ -713,12 +750,10 @@ public class ClaimBehaviourData {
 				return (returned = wildernessresult);
 
 			}
-
-			return (returned = ClaimAllowanceConstants.Allow);
 		} finally {
 			 
 			 
-			Debugger.Write("ClaimBehaviourData returning:\"" + returned.name() + "\"" + " For " + BehaviourName, DebugLevel.Verbose);
+			Debugger.Write(DebugLevel.Verbose, "ClaimBehaviourData returning:\"%s\" For %s", returned.name(), BehaviourName);
             if(ShowMessages) if(hasDenialMessage()) GriefPrevention.sendMessage(RelevantPlayer,TextMode.Err,DenialMessage);
             try {
                // throw new Exception("stack trace");
@@ -728,6 +763,40 @@ public class ClaimBehaviourData {
             }
 		}
 	}
+
+	// the parts of Allowed() this behaviour's settings can actually reach,
+	// worked out once rather than on every check. setters drop it, and the
+	// next check compiles it again.
+	private static final class Plan {
+		final boolean pvpOverride;
+		final boolean siegeOverrides;
+		final boolean claimTest;
+		final boolean claimsAlways;
+		final boolean claimsNever;
+		final boolean wildernessAlways;
+		final boolean wildernessNever;
+
+		Plan(ClaimBehaviourData data) {
+			pvpOverride = data.PvPOverride == SiegePVPOverrideConstants.Allow || data.PvPOverride == SiegePVPOverrideConstants.Deny;
+			siegeOverrides = data.SiegeAttackerOverride != SiegePVPOverrideConstants.None || data.SiegeDefenderOverride != SiegePVPOverrideConstants.None
+					|| data.SiegeBystanderOverride != SiegePVPOverrideConstants.None || data.SiegeNonPlayerOverride != SiegePVPOverrideConstants.None;
+			claimTest = data.ClaimBehaviour != ClaimBehaviourMode.RequireNone;
+			claimsAlways = data.Claims.allowsAlways();
+			claimsNever = data.Claims.deniesAlways();
+			wildernessAlways = data.Wilderness.allowsAlways();
+			wildernessNever = data.Wilderness.deniesAlways();
+		}
+	}
+
+	private volatile Plan plan;
+
+	private Plan getPlan() {
+		Plan result = plan;
+		if (result == null)
+			plan = result = new Plan(this);
+		return result;
+	}
+
     private boolean hasDenialMessage(){
         return this.DenialMessage!=null && DenialMessage.length()>0;
     }
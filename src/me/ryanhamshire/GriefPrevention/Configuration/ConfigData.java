@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -60,6 +61,11 @@ public class ConfigData {
 	private String TemplateFile;
 
 	private HashMap<String, WorldConfig> WorldCfg = new HashMap<String, WorldConfig>();
+	// the loaded configurations keyed on the World instances, which is what
+	// every event handler looks them up by. Never modified once published;
+	// loading a configuration publishes a copy with it added, so lookups
+	// need neither a lock nor the world's name.
+	private volatile IdentityHashMap<World, WorldConfig> ByWorld = new IdentityHashMap<World, WorldConfig>();
     private boolean GlobalPVP = true;
     private boolean GlobalSiege = true;
     private boolean GlobalSpam = true;
@@ -293,6 +299,30 @@ public class ConfigData {
 	public WorldConfig getWorldConfig(World grabfor) {
 		if (this.SingleWorldConfig != null)
 			return SingleWorldConfig;
+		WorldConfig found = ByWorld.get(grabfor);
+		if (found != null)
+			return found;
+		return loadWorldConfig(grabfor);
+	}
+
+	/**
+	 * forgets the World instance of an unloaded world, so it can be garbage
+	 * collected. Its configuration is kept, and is used again if the world is
+	 * loaded again.
+	 * 
+	 * @param unloaded
+	 */
+	public synchronized void forgetWorld(World unloaded) {
+		if (!ByWorld.containsKey(unloaded))
+			return;
+		IdentityHashMap<World, WorldConfig> copy = new IdentityHashMap<World, WorldConfig>(ByWorld);
+		copy.remove(unloaded);
+		ByWorld = copy;
+	}
+
+	// finds the configuration for a world not yet in ByWorld, loading it or
+	// creating it from the template if need be.
+	private synchronized WorldConfig loadWorldConfig(World grabfor) {
 		String worldName = grabfor.getName();
 
 		// if it's not in the hashmap...
@@ -348,7 +378,11 @@ public class ConfigData {
 			// save target
 		}
 		// after the above logic, we know it's in the hashmap, so return that.
-		return WorldCfg.get(worldName);
+		WorldConfig loaded = WorldCfg.get(worldName);
+		IdentityHashMap<World, WorldConfig> copy = new IdentityHashMap<World, WorldConfig>(ByWorld);
+		copy.put(grabfor, loaded);
+		ByWorld = copy;
+		return loaded;
 
 	}
 
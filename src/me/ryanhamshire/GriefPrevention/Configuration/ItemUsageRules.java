@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.MaterialCollection;
+import me.ryanhamshire.GriefPrevention.MaterialInfo;
 import me.ryanhamshire.GriefPrevention.TextMode;
 import me.ryanhamshire.GriefPrevention.Configuration.ClaimBehaviourData.ClaimAllowanceConstants;
 
@@ -17,7 +19,7 @@ public class ItemUsageRules {
 
 	private String Description;
 
-	private List<Integer> ItemIDs;
+	private MaterialCollection ItemMaterials = new MaterialCollection();
 
 	private BlockPlacementRules PlayerLocationRules;
 
@@ -27,9 +29,8 @@ public class ItemUsageRules {
 
 		List<String> Items = Source.getStringList(NodePath + ".IDs");
 
-		ItemIDs = new ArrayList<Integer>();
 		for (String iterate : Items) {
-			ItemIDs.add(Integer.parseInt(iterate));
+			addItemID(Integer.parseInt(iterate));
 
 		}
 		Target.set(NodePath + ".IDs", Items);
@@ -43,14 +44,18 @@ public class ItemUsageRules {
 		Description = pDescription;
 		PlayerLocationRules = pPlayerLocation;
 		TargetLocationRules = pTargetLocation;
-		ItemIDs = new ArrayList<Integer>();
 		for (int iterate : pItemIDs) {
-			ItemIDs.add(iterate);
+			addItemID(iterate);
 		}
 	}
 
+	private void addItemID(int ItemID) {
+		// item IDs needn't be known Materials, so don't look up a name.
+		ItemMaterials.add(new MaterialInfo(ItemID, String.valueOf(ItemID)));
+	}
+
 	public boolean Applicable(ItemStack testItem) {
-		return ItemIDs.contains(testItem.getTypeId());
+		return ItemMaterials.hasMaterial(testItem.getTypeId());
 	}
 
 	public String getDescription() {
@@ -58,6 +63,10 @@ public class ItemUsageRules {
 	}
 
 	public List<Integer> getItemIDs() {
+		List<Integer> ItemIDs = new ArrayList<Integer>();
+		for (MaterialInfo iterate : ItemMaterials.getMaterials()) {
+			ItemIDs.add(iterate.getTypeID());
+		}
 		return ItemIDs;
 	}
 
@@ -75,6 +75,9 @@ public class PlaceBreakOverrides {
 
 
     HashMap<Integer,List<OverrideData>> BreakOverrides = new HashMap<Integer, List<OverrideData>>();
+    //every type ID that is a key of BreakOverrides. most blocks have no override, so this
+    //lets getBehaviourforBlock turn them away without boxing the ID for a HashMap lookup.
+    private MaterialCollection OverriddenMaterials = new MaterialCollection();
     //index each Material to the ClaimBehaviourData that is the first Override to list that Material.
     //the list can have multiple entries because it lists all the Rules that apply to a given material, without taking their additional
     //criteria into account. The first item in the List to return true on "TestBlock()" will have it's rule used.
@@ -102,8 +105,10 @@ public class PlaceBreakOverrides {
 
     private void addDirect(int ID,OverrideData additem){
         Debugger.Write("Adding direct:" + String.valueOf(ID) + " od:" + additem.getName(),Debugger.DebugLevel.Verbose);
-        if(!BreakOverrides.containsKey(ID))
+        if(!BreakOverrides.containsKey(ID)) {
             BreakOverrides.put(ID,new ArrayList<OverrideData>());
+            OverriddenMaterials.add(new MaterialInfo(ID, String.valueOf(ID)));
+        }
 
         BreakOverrides.get(ID).add(additem);
 
@@ -111,10 +116,10 @@ public class PlaceBreakOverrides {
     }
     public ClaimBehaviourData getBehaviourforBlock(Block blockfor){
 
-        Integer blockID = blockfor.getTypeId();
-        Debugger.Write("getBehaviourforBlock called on id:" + String.valueOf(blockID) + " material Name:" + blockfor.getType().name(), Debugger.DebugLevel.Verbose);
-        if(!BreakOverrides.containsKey(blockID)) {
-            Debugger.Write("BreakOverrides does not contain ID key...", Debugger.DebugLevel.Verbose) ;
+        int blockID = blockfor.getTypeId();
+        Debugger.Write(Debugger.DebugLevel.Verbose, "getBehaviourforBlock called on id:%s material Name:%s", blockID, blockfor.getType().name());
+        if(!OverriddenMaterials.hasMaterial(blockID)) {
+            Debugger.Write(Debugger.DebugLevel.Verbose, "BreakOverrides does not contain ID key...");
             return null; //not in the HashMap, so nothing to return. we will return null.
         }
 
@@ -135,6 +140,7 @@ public class PlaceBreakOverrides {
     private void Copy(PlaceBreakOverrides Source){
         Debugger.Write("Copying existing PlaceBreakOverrides",Debugger.DebugLevel.Verbose);
         this.BreakOverrides = Source.BreakOverrides;
+        this.OverriddenMaterials = Source.OverriddenMaterials;
 
     }
     @Override
@@ -227,6 +233,7 @@ public class PlaceBreakOverrides {
                 //does this material exist as a key?
                 if(!BreakOverrides.containsKey(grabmat)){
                     BreakOverrides.put(grabmat,new ArrayList<OverrideData>());
+                    OverriddenMaterials.add(new MaterialInfo(grabmat, String.valueOf(grabmat)));
                 }
 
 
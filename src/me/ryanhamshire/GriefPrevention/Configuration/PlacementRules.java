@@ -219,6 +219,25 @@ public class PlacementRules {
 		}
 		return currentresult;
 	}
+	/**
+	 * whether Allow() returns true everywhere, for anybody. ClaimBehaviourData
+	 * uses this to skip the sea level lookup.
+	 * 
+	 * @return
+	 */
+	public boolean allowsAlways() {
+		return AboveSeaLevel.Allowed() && BelowSeaLevel.Allowed() && RequiredPermissions.isEmpty();
+	}
+
+	/**
+	 * whether Allow() returns false everywhere, for anybody.
+	 * 
+	 * @return
+	 */
+	public boolean deniesAlways() {
+		return AboveSeaLevel.Denied() && BelowSeaLevel.Denied() && RequiredPermissions.isEmpty();
+	}
+
 	/**
 	 * determines if this Placementrule allows for the given location.
 	 * 
@@ -80,7 +80,7 @@ public class SiegeableData {
         for(SiegeableData loopdata:list){
             if(loopdata.doesMatch(testmat))
             {
-                Debugger.Write("Material Match Found:" + testmat.name(), Debugger.DebugLevel.Verbose);
+                Debugger.Write(Debugger.DebugLevel.Verbose, "Material Match Found:%s", testmat);
                 return loopdata.getRequiredBlastPower();
 
             }
@@ -21,7 +21,13 @@ package me.ryanhamshire.GriefPrevention;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import me.ryanhamshire.GriefPrevention.Debugger.DebugLevel;
 import me.ryanhamshire.GriefPrevention.Configuration.WorldConfig;
@@ -62,6 +68,10 @@ public abstract class DataStore {
 	// in-memory cache for claim data
 	ClaimArray claims = new ClaimArray();
 
+	// recent results of the claim permission checks. results older than 5
+	// seconds are recomputed, to pick up permission plugin changes.
+	PermissionCache permissionCache = new PermissionCache(4096, 5000);
+
 	// turns a location into a string, useful in data storage
 	private String locationStringDelimiter = ";";
 	// in-memory cache for messages
@@ -71,10 +81,28 @@ public abstract class DataStore {
 	Long nextClaimID = (long) 0;
 	// in-memory cache for group (permission-based) data
 	protected ConcurrentHashMap<String, Integer> permissionToBonusBlocksMap = new ConcurrentHashMap<String, Integer>();
+	// group bonus block totals of online players, keyed by lower cased name.
+	// dropped on join and whenever the groups change, and refreshed
+	// periodically since permission plugins don't say when they change.
+	private ConcurrentHashMap<String, Integer> groupBonusBlocksCache = new ConcurrentHashMap<String, Integer>();
+	private long groupBonusBlocksRefresh = 0;
+	private static final long GROUP_BONUS_REFRESH_INTERVAL = 1000L * 60;
 
 	// in-memory cache for player data
 	protected ConcurrentHashMap<String, PlayerData> playerNameToPlayerDataMap = new ConcurrentHashMap<String, PlayerData>();
 
+	// player data (by lower cased name) and top level claims (by ID) changed
+	// since they were last written. saveDirtyData() writes each once, so a
+	// burst of changes to one player or claim costs a single write.
+	private ConcurrentHashMap<String, PlayerData> dirtyPlayerData = new ConcurrentHashMap<String, PlayerData>();
+	private ConcurrentHashMap<Long, Claim> dirtyClaims = new ConcurrentHashMap<Long, Claim>();
+
+	/**
+	 * ticks between the writes of changes saved with savePlayerDataLater()
+	 * and saveClaimLater().
+	 */
+	public static final long DIRTY_SAVE_INTERVAL = 20L * 30;
+
     protected Set<String> ClearInventoryOnJoinPlayers = new HashSet<String>();
 
 	// timestamp for each siege cooldown to end
@@ -119,7 +147,7 @@ public abstract class DataStore {
 
             if(!containsClaim(newClaim,ownerData.claims))
 			ownerData.claims.add(newClaim);
-			this.savePlayerData(newClaim.getOwnerName(), ownerData);
+			this.savePlayerDataLater(newClaim.getOwnerName(), ownerData);
 		}
 
 		// make sure the claim is saved to disk
@@ -156,6 +184,7 @@ public abstract class DataStore {
 
 		currentValue += amount;
 		this.permissionToBonusBlocksMap.put(groupName, currentValue);
+		this.clearGroupBonusBlocksCache();
 
 		// write changes to storage to ensure they don't get lost
 		this.saveGroupBonusBlocks(groupName, currentValue);
@@ -189,6 +218,7 @@ public abstract class DataStore {
 
 		// transfer
 		claim.setOwnerName(newOwnerName);
+		this.claims.updateOwner(claim);
 		this.saveClaim(claim);
 
 		// adjust blocks and other records
@@ -209,16 +239,21 @@ public abstract class DataStore {
 	 * @param playerName
 	 */
 	public synchronized void clearCachedPlayerData(String playerName) {
-		this.playerNameToPlayerDataMap.remove(playerName);
+		String key = playerName.toLowerCase();
+		this.playerNameToPlayerDataMap.remove(key);
+		// write out changes still waiting for saveDirtyData() now. Left in
+		// place, the dropped object would be saved later on top of whatever
+		// was saved from a freshly loaded copy in the meantime.
+		PlayerData pending = dirtyPlayerData.remove(key);
+		if (pending != null)
+			this.savePlayerData(dirtyName(key, pending), pending);
 	}
 
 	void close() {
+		shutdownLoadPool();
+		this.saveDirtyData();
 
-		for (Claim c : this.claims.claimmap.values()) {
-			// System.out.println("Saving Claim ID:" + c.getID());
-			this.saveClaim(c);
-
-		}
+		this.saveClaims(new ArrayList<Claim>(this.claims.claimmap.values()));
 
         for(String pname:this.playerNameToPlayerDataMap.keySet()){
             this.savePlayerData(pname,playerNameToPlayerDataMap.get(pname));
@@ -287,14 +322,13 @@ public abstract class DataStore {
 		newClaim.parent = parent;
 
 		// ensure this new claim won't overlap any existing claims
-		ArrayList<Claim> claimsToCheck;
+		List<Claim> claimsToCheck;
 		if (newClaim.parent != null) {
-			claimsToCheck = newClaim.parent.children;
+			claimsToCheck = newClaim.parent.getChildrenIn(newClaim.minX, newClaim.minZ, newClaim.maxX, newClaim.maxZ);
 		} else {
-			ArrayList<String> claimchunks = ClaimArray.getChunks(newClaim);
 			claimsToCheck = new ArrayList<Claim>();
-			for (String chunk : claimchunks) {
-				ArrayList<Claim> chunkclaims = this.claims.chunkmap.get(chunk);
+			for (long chunk : ClaimArray.getChunkKeys(newClaim)) {
+				List<Claim> chunkclaims = this.claims.getClaims(world.getName(), ChunkClaimMap.keyX(chunk), ChunkClaimMap.keyZ(chunk));
 				if (chunkclaims == null) {
 					continue;
 				}
@@ -318,18 +352,22 @@ public abstract class DataStore {
 		}
 		if (oldclaim == null) {
 			if (doRaiseEvent) {
-				ClaimBeforeCreateEvent claimevent = new ClaimBeforeCreateEvent(newClaim, claimcreator);
-				Bukkit.getServer().getPluginManager().callEvent(claimevent);
-				if (claimevent.isCancelled()) {
-					result.succeeded = CreateClaimResult.Result.Canceled;
-					return result;
+				if (ClaimBeforeCreateEvent.hasListeners()) {
+					ClaimBeforeCreateEvent claimevent = new ClaimBeforeCreateEvent(newClaim, claimcreator);
+					Bukkit.getServer().getPluginManager().callEvent(claimevent);
+					if (claimevent.isCancelled()) {
+						result.succeeded = CreateClaimResult.Result.Canceled;
+						return result;
+					}
 				}
                 //also raise deprecated NewClaimCreated Event.
-                NewClaimCreated ncc = new NewClaimCreated(newClaim);
-                Bukkit.getServer().getPluginManager().callEvent(ncc);
-                if(claimevent.isCancelled()){
-                    result.succeeded = CreateClaimResult.Result.Canceled;
-                    return result;
+                if (NewClaimCreated.hasListeners()) {
+                    NewClaimCreated ncc = new NewClaimCreated(newClaim);
+                    Bukkit.getServer().getPluginManager().callEvent(ncc);
+                    if(ncc.isCancelled()){
+                        result.succeeded = CreateClaimResult.Result.Canceled;
+                        return result;
+                    }
                 }
 
 			}
@@ -346,8 +384,10 @@ public abstract class DataStore {
 		// otherwise add this new claim to the data store to make it effective
 		this.addClaim(newClaim);
 
-		ClaimAfterCreateEvent claimevent = new ClaimAfterCreateEvent(newClaim, claimcreator);
-		Bukkit.getServer().getPluginManager().callEvent(claimevent);
+		if (ClaimAfterCreateEvent.hasListeners()) {
+			ClaimAfterCreateEvent claimevent = new ClaimAfterCreateEvent(newClaim, claimcreator);
+			Bukkit.getServer().getPluginManager().callEvent(claimevent);
+		}
 
 		// then return success along with reference to new claim
 		result.succeeded = CreateClaimResult.Result.Success;
@@ -399,7 +439,7 @@ public abstract class DataStore {
 		Debugger.Write("Deleting Claim:" + claim.getID(), DebugLevel.Verbose);
 
 		// fire the delete Claim event.
-		if (sendevent) {
+		if (sendevent && ClaimDeletedEvent.hasListeners()) {
 			ClaimDeletedEvent ev = new ClaimDeletedEvent(claim, p);
 			Bukkit.getPluginManager().callEvent(ev);
 			if (ev.isCancelled())
@@ -419,6 +459,8 @@ public abstract class DataStore {
 		// remove from memory
 		claims.removeID(claim.id);
 		claim.inDataStore = false;
+		if (claim.id != null)
+			dirtyClaims.remove(claim.id, claim);
 		for (int j = 0; j < claim.children.size(); j++) {
 			claim.children.get(j).inDataStore = false;
 		}
@@ -436,7 +478,7 @@ public abstract class DataStore {
 					break;
 				}
 			}
-			this.savePlayerData(claim.getOwnerName(), ownerData);
+			this.savePlayerDataLater(claim.getOwnerName(), ownerData);
 		}
 		return true;
 	}
@@ -604,6 +646,7 @@ public abstract class DataStore {
 		for (int i = 0; i < siegeData.claims.size(); i++) {
 			Claim claim = siegeData.claims.get(i);
 			claim.siegeData = null;
+			claim.permissionsChanged();
 			this.siegeCooldownRemaining.put(siegeData.attacker.getName() + "_" + claim.getOwnerName(), cooldownEnd);
 
 			// if doors should be opened for looting, do that now
@@ -698,13 +741,11 @@ public abstract class DataStore {
 		// this.deleteClaim(claim);
 
 		// re-create it at the new depth
-		claim.lesserBoundaryCorner.setY(newDepth);
-		claim.greaterBoundaryCorner.setY(newDepth);
+		claim.setDepth(newDepth);
 
 		// make all subdivisions reach to the same depth
 		for (int i = 0; i < claim.children.size(); i++) {
-			claim.children.get(i).lesserBoundaryCorner.setY(newDepth);
-			claim.children.get(i).greaterBoundaryCorner.setY(newDepth);
+			claim.children.get(i).setDepth(newDepth);
 		}
 
 		// save changes
@@ -720,7 +761,7 @@ public abstract class DataStore {
 			World loadedworld = Bukkit.getServer().createWorld(new WorldCreator(iterate));
 			// we need to call the WorldLoaded() method manually.
 			for(DataStore ds:LoadTargets){
-				ds.WorldLoaded(loadedworld);
+				ds.loadWorldClaims(loadedworld);
 			}
 			
 
@@ -747,7 +788,7 @@ public abstract class DataStore {
      * @param id UUID to retrieve.
      * @return Claim with the given UUID, or null if there aren't any with that UUID.
      */
-    synchronized public Claim getClaim(UUID id){
+    public Claim getClaim(UUID id){
         return claims.get(id);
     }
 	/**
@@ -757,7 +798,7 @@ public abstract class DataStore {
 	 *            The ID of the claim.
 	 * @return null if there is no claim by that ID, otherwise, the claim.
 	 */
-	synchronized public Claim getClaim(long i) {
+	public Claim getClaim(long i) {
 		return claims.getID(i);
 	}
 
@@ -767,12 +808,14 @@ public abstract class DataStore {
 	 * 
 	 * @return The Claim Array.
 	 */
-	synchronized public ClaimArray getClaimArray() {
+	public ClaimArray getClaimArray() {
 		return claims;
 	}
 
 	/**
-	 * Gets the claim at a specific location
+	 * Gets the claim at a specific location. Reads the published claim
+	 * snapshot, so this doesn't lock the DataStore and is safe to call from
+	 * any thread.
 	 * 
 	 * @param location
 	 * @param ignoreHeight
@@ -781,7 +824,7 @@ public abstract class DataStore {
 	 * @return claim in the given location. Null, if no Claim at the given
 	 *         location.
 	 */
-	synchronized public Claim getClaimAt(Location location, boolean ignoreHeight) {
+	public Claim getClaimAt(Location location, boolean ignoreHeight) {
 
 
 
@@ -791,52 +834,37 @@ public abstract class DataStore {
         //        " Ignoreheight:" + ignoreHeight,DebugLevel.Verbose);
 
         //Debugger.Write("ChunkMap Size:" + claims.chunkmap.size() + " claimworldmap:" + claims.claimworldmap.size() + " ClaimMap:" + claims.claimmap.size(),DebugLevel.Verbose);
+		int x = location.getBlockX();
+		int y = location.getBlockY();
+		int z = location.getBlockZ();
+		String worldName = location.getWorld().getName();
+		// most lookups are in the wilderness; rule those out with the
+		// claimed chunk bitset before doing anything else.
+		if (claims.isUnclaimedChunk(worldName, x >> 4, z >> 4))
+			return null;
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(location.getWorld());
 		if(!wc.getClaimsEnabled()) return null;
-		// create a temporary "fake" claim in memory for comparison purposes
-		Claim tempClaim = new Claim();
-		tempClaim.lesserBoundaryCorner = location;
 
-		// Let's get all the claims in this block's chunk
-		String chunkstr = getChunk(location);
-		ArrayList<Claim> aclaims = claims.chunkmap.get(chunkstr);
+		// find the top level claim owning this block column. claims in a
+		// chunk are rasterized per column, so this doesn't scan the chunk.
+		Claim claim = claims.getTopLevelClaimAt(worldName, x, z);
 
 		// If there are no claims here, let's return null.
-		if (aclaims == null) {
+		if (claim == null || (!ignoreHeight && y < claim.minY)) {
 			return null;
 		}
 
-		// otherwise, search all existing claims in the chunk until we find the
-		// right claim
-		for (Claim claim : aclaims) {
-			if (claim.parent != null)
-				continue;
-			//
-			// if(claim.greaterThan(tempClaim)) return null; //removed. Could be
-			// changed to use a SortedSet.
-			// Sequential search in a single chunk is unlikely to be slower than
-			// a Tree lookup though.
-
-			// find a top level claim
-			if (claim.contains(location, ignoreHeight, false)) {
-				// when we find a top level claim, if the location is in one of
-				// its subdivisions,
-				// return the SUBDIVISION, not the top level claim
-				for (int j = 0; j < claim.children.size(); j++) {
-					Claim subdivision = claim.children.get(j);
-					if (subdivision.contains(location, ignoreHeight, false))
-						return subdivision;
-				}
-
-				return claim;
-			}
+		// when we find a top level claim, if the location is in one of
+		// its subdivisions, return the SUBDIVISION, not the top level claim
+		Claim subdivision = claim.getChildAt(x, y, z, ignoreHeight);
+		if (subdivision != null) {
+			return subdivision;
 		}
 
-		// if no claim found, return null
-		return null;
+		return claim;
 	}
 
-	synchronized public Claim getClaimAt(Location location, boolean ignoreHeight, Claim cachedClaim) {
+	public Claim getClaimAt(Location location, boolean ignoreHeight, Claim cachedClaim) {
 
 		if (cachedClaim != null && cachedClaim.inDataStore && cachedClaim.contains(location, ignoreHeight, false))
 			return cachedClaim;
@@ -845,12 +873,74 @@ public abstract class DataStore {
 
 	}
 
+	/**
+	 * resolves the claims at many block positions of one world in a single
+	 * pass, as getClaimAt(location, false) would for each of them. All
+	 * positions are resolved against the same snapshot of the claim index,
+	 * without locking.
+	 * 
+	 * @param world
+	 *            world the positions are in.
+	 * @param xs
+	 *            block X coordinates.
+	 * @param ys
+	 *            block Y coordinates.
+	 * @param zs
+	 *            block Z coordinates.
+	 * @return array aligned with the coordinate arrays, holding the claim or
+	 *         subdivision at each position, or null where there is none.
+	 */
+	public Claim[] resolveClaims(World world, int[] xs, int[] ys, int[] zs) {
+		return resolveClaims(world, xs, ys, zs, false);
+	}
+
+	/**
+	 * resolves the claims at many block positions of one world in a single
+	 * pass, as getClaimAt(location, ignoreHeight) would for each of them.
+	 * 
+	 * @param world
+	 *            world the positions are in.
+	 * @param xs
+	 *            block X coordinates.
+	 * @param ys
+	 *            block Y coordinates.
+	 * @param zs
+	 *            block Z coordinates.
+	 * @param ignoreHeight
+	 *            true means positions UNDER a claim still belong to it.
+	 * @return array aligned with the coordinate arrays, holding the claim or
+	 *         subdivision at each position, or null where there is none.
+	 */
+	public Claim[] resolveClaims(World world, int[] xs, int[] ys, int[] zs, boolean ignoreHeight) {
+		if (xs.length != ys.length || xs.length != zs.length)
+			throw new IllegalArgumentException("coordinate arrays differ in length");
+		Claim[] result = new Claim[xs.length];
+		if (xs.length == 0 || !GriefPrevention.instance.getWorldCfg(world).getClaimsEnabled())
+			return result;
+
+		claims.getTopLevelClaimsAt(world.getName(), xs, zs, result);
+		for (int i = 0; i < result.length; i++) {
+			Claim claim = result[i];
+			if (claim == null)
+				continue;
+			if (!ignoreHeight && ys[i] < claim.minY) {
+				result[i] = null;
+				continue;
+			}
+			Claim subdivision = claim.getChildAt(xs[i], ys[i], zs[i], ignoreHeight);
+			if (subdivision != null)
+				result[i] = subdivision;
+		}
+		return result;
+	}
+
 	synchronized public Long[] getClaimIds() {
 		return claims.claimmap.keySet().toArray(new Long[claims.claimmap.size()]);
 	}
 
 	/**
-	 * returns the set of claims that are within the given range.
+	 * returns the set of claims and subdivisions that are within the given
+	 * range. Heights are ignored.
 	 * 
 	 * @param Lesser
 	 *            Lesser Boundary.
@@ -858,11 +948,12 @@ public abstract class DataStore {
 	 *            Greater Boundary.
 	 * @param Inclusive
 	 *            if true, the result Set will only include Claims that are
-	 *            entirely encompassed by the given locations.
+	 *            entirely encompassed by the given locations. Otherwise, every
+	 *            claim that overlaps the range is included.
 	 * @return Set of claims.
 	 */
 
-	synchronized public Set<Claim> getClaimsIn(Location Lesser, Location Greater, boolean Inclusive) {
+	public Set<Claim> getClaimsIn(Location Lesser, Location Greater, boolean Inclusive) {
 
 
 		if (Lesser == null)
@@ -872,37 +963,24 @@ public abstract class DataStore {
         WorldConfig wc = GriefPrevention.instance.getWorldCfg(Greater.getWorld());
         if(!wc.getClaimsEnabled()) return new HashSet<Claim>();
 		int LessX = Math.min(Lesser.getBlockX(), Greater.getBlockX());
-		int LessY = Math.min(Lesser.getBlockY(), Greater.getBlockY());
 		int LessZ = Math.min(Lesser.getBlockZ(), Greater.getBlockZ());
 
 		int GreatX = Math.max(Lesser.getBlockX(), Greater.getBlockX());
-		int GreatY = Math.max(Lesser.getBlockY(), Greater.getBlockY());
 		int GreatZ = Math.max(Lesser.getBlockZ(), Greater.getBlockZ());
 
-		Location pta = new Location(Lesser.getWorld(), LessX, LessY, LessZ);
-		Location ptb = new Location(Lesser.getWorld(), GreatX, GreatY, GreatZ);
-		Claim tempclaim = new Claim();
-		tempclaim.lesserBoundaryCorner = pta;
-		tempclaim.greaterBoundaryCorner = ptb;
-		int minclaimsize = wc.getMinClaimSize();
+		// a subdivision lies inside its parent, so only the parents of claims
+		// overlapping the range need their subdivisions looked at.
+		ArrayList<Claim> found = new ArrayList<Claim>();
+		claims.getSnapshot().getTree(Lesser.getWorld().getName()).search(LessX, LessZ, GreatX, GreatZ, false, found);
 		HashSet<Claim> result = new HashSet<Claim>();
-		// iterate on X and Z.
-		for (int x = LessX; x < GreatX; x += minclaimsize) {
-			for (int z = LessZ; z < GreatZ; z += minclaimsize) {
-
-				Claim foundclaim = getClaimAt(new Location(Lesser.getWorld(), x, 64, z), false);
-				if (foundclaim != null) {
-					if (!Inclusive || tempclaim.contains(foundclaim, true)) {
-						z = foundclaim.getGreaterBoundaryCorner().getBlockZ() + 1;
-						if (!result.contains(foundclaim))
-							result.add(foundclaim);
-					}
-				}
-
+		for (Claim claim : found) {
+			if (!Inclusive || (claim.minX >= LessX && claim.maxX <= GreatX && claim.minZ >= LessZ && claim.maxZ <= GreatZ))
+				result.add(claim);
+			for (Claim subdivision : claim.getChildrenIn(LessX, LessZ, GreatX, GreatZ)) {
+				if (!Inclusive || (subdivision.minX >= LessX && subdivision.maxX <= GreatX && subdivision.minZ >= LessZ && subdivision.maxZ <= GreatZ))
+					result.add(subdivision);
 			}
-
 		}
-
 		return result;
 
 	}
@@ -914,12 +992,12 @@ public abstract class DataStore {
 	 *            Chunk to investigate.
 	 * @return claims within the given Chunk.
 	 */
-	synchronized public List<Claim> getClaimsInChunk(Chunk target) {
+	public List<Claim> getClaimsInChunk(Chunk target) {
 
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(target.getWorld());
 		if(!wc.getClaimsEnabled()) return new ArrayList<Claim>();
-		String chunkstr = this.getChunk(target);
-		return claims.getClaims(chunkstr);
+		List<Claim> result = claims.getClaims(target.getWorld().getName(), target.getX(), target.getZ());
+		return result == null ? new ArrayList<Claim>() : result;
 
 	}
 
@@ -930,7 +1008,7 @@ public abstract class DataStore {
 	 *            Location, which lies on the Chunk to investigate.
 	 * @return Claims within the chunk occupied by the given Location.
 	 */
-	synchronized public List<Claim> getClaimsInChunk(Location targetLocation) {
+	public List<Claim> getClaimsInChunk(Location targetLocation) {
 
 		return getClaimsInChunk(targetLocation.getChunk());
 
@@ -947,20 +1025,51 @@ public abstract class DataStore {
 	 * @return
 	 */
 	public synchronized int getGroupBonusBlocks(String playerName) {
+		long now = System.currentTimeMillis();
+		if (now >= groupBonusBlocksRefresh) {
+			groupBonusBlocksCache.clear();
+			groupBonusBlocksRefresh = now + GROUP_BONUS_REFRESH_INTERVAL;
+		}
+
+		String key = playerName.toLowerCase();
+		Integer cached = groupBonusBlocksCache.get(key);
+		if (cached != null)
+			return cached;
+
+		// offline players get nothing, and aren't cached as they can't be
+		// checked.
+		Player player = GriefPrevention.instance.getServer().getPlayer(playerName);
+		if (player == null)
+			return 0;
+
 		int bonusBlocks = 0;
-		Set<String> keys = permissionToBonusBlocksMap.keySet();
-		Iterator<String> iterator = keys.iterator();
-		while (iterator.hasNext()) {
-			String groupName = iterator.next();
-			Player player = GriefPrevention.instance.getServer().getPlayer(playerName);
-			if (player != null && player.hasPermission(groupName)) {
-				bonusBlocks += this.permissionToBonusBlocksMap.get(groupName);
+		for (Map.Entry<String, Integer> entry : permissionToBonusBlocksMap.entrySet()) {
+			if (player.hasPermission(entry.getKey())) {
+				bonusBlocks += entry.getValue();
 			}
 		}
 
+		groupBonusBlocksCache.put(key, bonusBlocks);
 		return bonusBlocks;
 	}
 
+	/**
+	 * forgets a player's cached group bonus blocks, so they are recomputed
+	 * from his permissions on next use.
+	 * 
+	 * @param playerName
+	 */
+	public void invalidateGroupBonusBlocks(String playerName) {
+		groupBonusBlocksCache.remove(playerName.toLowerCase());
+	}
+
+	/**
+	 * forgets every player's cached group bonus blocks.
+	 */
+	public void clearGroupBonusBlocksCache() {
+		groupBonusBlocksCache.clear();
+	}
+
 	synchronized public String getMessage(Messages messageID, String... args) {
 		String message = messages[messageID.ordinal()];
 
@@ -972,32 +1081,29 @@ public abstract class DataStore {
 		return message;
 	}
 
-	synchronized public ClaimDistanceResult getNearestClaim(Location testLocation, int MaxDistance) {
-
-		int XPos = testLocation.getBlockX();
-		int ZPos = testLocation.getBlockZ();
-		int[] signsuse = new int[] { -1, 1 };
-		for (int sign : signsuse) {
-
-			for (int xtest = 0; xtest < MaxDistance; xtest++) {
-				// calculate XPosition.
-				int useXPos = XPos + (xtest * sign);
-				for (int ztest = 0; ztest < MaxDistance; ztest++) {
-					int useZPos = ZPos + (ztest * sign);
-					Location corelocation = new Location(testLocation.getWorld(), useXPos, 64, useZPos);
-					Claim grabclaim = getClaimAt(corelocation, true);
-					if (grabclaim != null) {
-						return new ClaimDistanceResult(grabclaim, Math.min(xtest, ztest));
-					}
-
-				}
-
-			}
-
-		}
+	/**
+	 * finds the top level claim nearest to a location. Distance is measured
+	 * as the larger of the X and Z distances to the claim's edge, so a
+	 * location inside a claim has distance 0.
+	 * 
+	 * @param testLocation
+	 *            location to search from.
+	 * @param MaxDistance
+	 *            only claims closer than this are considered.
+	 * @return the nearest claim and its distance, or null if there is no
+	 *         claim that close.
+	 */
+	public ClaimDistanceResult getNearestClaim(Location testLocation, int MaxDistance) {
 
-		return null;
+		if (MaxDistance <= 0)
+			return null;
+		ArrayList<Claim> found = new ArrayList<Claim>(1);
+		int[] distance = new int[1];
+		ClaimRTree tree = claims.getSnapshot().getTree(testLocation.getWorld().getName());
+		if (tree.nearest(testLocation.getBlockX(), testLocation.getBlockZ(), 1, MaxDistance - 1, found, distance) == 0)
+			return null;
 
+		return new ClaimDistanceResult(found.get(0), distance[0]);
 	}
 
 	/**
@@ -1009,6 +1115,8 @@ public abstract class DataStore {
 	 * @return
 	 */
 	synchronized public PlayerData getPlayerData(String playerName) {
+		// the cache is keyed in lower case; the data keeps the name as given.
+		String originalName = playerName;
         playerName=playerName.toLowerCase();
 		// first, look in memory
 		PlayerData playerData = this.playerNameToPlayerDataMap.get(playerName);
@@ -1016,7 +1124,7 @@ public abstract class DataStore {
 		// if not there, look in secondary storage
 		if (playerData == null) {
 			playerData = this.getPlayerDataFromStorage(playerName);
-			playerData.playerName = playerName;
+			playerData.playerName = originalName;
 			// make sure they don't have more than the maximum number of claim
 			// blcoks.
 			if (playerData.accruedClaimBlocks > GriefPrevention.instance.config_claims_maxAccruedBlocks) {
@@ -1024,12 +1132,7 @@ public abstract class DataStore {
 			}
 			// find all the claims belonging to this player and note them for
 			// future reference
-			for (int i = 0; i < this.claims.size(); i++) {
-				Claim claim = this.claims.get(i);
-				if (claim.getOwnerName().equals(playerName)) {
-					playerData.claims.add(claim);
-				}
-			}
+			playerData.claims.addAll(this.claims.getClaimsByOwner(playerName));
 
 			// shove that new player data into the hash map cache
 			this.playerNameToPlayerDataMap.put(playerName, playerData);
@@ -1340,6 +1443,18 @@ public abstract class DataStore {
 		String xString = elements[1];
 		String yString = elements[2];
 		String zString = elements[3];
+		World world = worldFromName(worldName);
+
+		// convert those numerical strings to integer values
+		int x = Integer.parseInt(xString);
+		int y = Integer.parseInt(yString);
+		int z = Integer.parseInt(zString);
+
+		return new Location(world, x, y, z);
+	}
+
+	// finds, or failing that loads, the world with the given name
+	World worldFromName(String worldName) throws WorldNotFoundException {
 		World world;
 		// identify world the claim is in
 		try {
@@ -1355,13 +1470,7 @@ public abstract class DataStore {
 				throw new WorldNotFoundException("World not found: \"" + worldName + "\"");
 			}
 		}
-
-		// convert those numerical strings to integer values
-		int x = Integer.parseInt(xString);
-		int y = Integer.parseInt(yString);
-		int z = Integer.parseInt(zString);
-
-		return new Location(world, x, y, z);
+		return world;
 	}
 
 	String locationToString(Location location) {
@@ -1449,13 +1558,15 @@ public abstract class DataStore {
 				return res;
 			}
 		}
-		ClaimResizeEvent cre = new ClaimResizeEvent(claim, newLesser, newGreater, claimcreator);
-		Bukkit.getPluginManager().callEvent(cre);
-		if (cre.isCancelled()) {
-			CreateClaimResult res = new CreateClaimResult();
-			res.claim = claim;
-			res.succeeded = CreateClaimResult.Result.Canceled;
-			return res;
+		if (ClaimResizeEvent.hasListeners()) {
+			ClaimResizeEvent cre = new ClaimResizeEvent(claim, newLesser, newGreater, claimcreator);
+			Bukkit.getPluginManager().callEvent(cre);
+			if (cre.isCancelled()) {
+				CreateClaimResult res = new CreateClaimResult();
+				res.claim = claim;
+				res.succeeded = CreateClaimResult.Result.Canceled;
+				return res;
+			}
 		}
 
 		String PreviousOwner = claim.claimOwnerName;
@@ -1546,10 +1657,76 @@ public abstract class DataStore {
 		this.writeClaimToStorage(claim);
 	}
 
+	/**
+	 * marks a claim as changed, to be saved with the next saveDirtyData().
+	 * Use this instead of saveClaim() for changes that can wait a little, so
+	 * several of them cost one write.
+	 * 
+	 * @param claim
+	 */
+	public void saveClaimLater(Claim claim) {
+		while (claim.parent != null)
+			claim = claim.parent;
+		// it needs an ID to be tracked, and getting one saves it anyway.
+		if (claim.id == null) {
+			this.saveClaim(claim);
+			return;
+		}
+		dirtyClaims.put(claim.id, claim);
+	}
+
+	/**
+	 * marks player data as changed, to be saved with the next
+	 * saveDirtyData(). Use this instead of savePlayerData() for changes that
+	 * can wait a little.
+	 * 
+	 * @param playerName
+	 * @param playerData
+	 */
+	public void savePlayerDataLater(String playerName, PlayerData playerData) {
+		dirtyPlayerData.put(playerName.toLowerCase(), playerData);
+	}
+
+	/**
+	 * writes everything marked with saveClaimLater() or savePlayerDataLater()
+	 * since the last call. Runs every DIRTY_SAVE_INTERVAL ticks, and when the
+	 * DataStore closes.
+	 */
+	public void saveDirtyData() {
+		for (Map.Entry<String, PlayerData> entry : dirtyPlayerData.entrySet()) {
+			// a change made from here on marks it again.
+			if (dirtyPlayerData.remove(entry.getKey(), entry.getValue()))
+				this.savePlayerData(dirtyName(entry.getKey(), entry.getValue()), entry.getValue());
+		}
+		for (Map.Entry<Long, Claim> entry : dirtyClaims.entrySet()) {
+			Claim claim = entry.getValue();
+			if (dirtyClaims.remove(entry.getKey(), claim) && claim.inDataStore)
+				this.saveClaim(claim);
+		}
+	}
+
+	// the name to save dirty player data under; the map key is only the
+	// lower cased name.
+	private static String dirtyName(String key, PlayerData playerData) {
+		return playerData.playerName != null ? playerData.playerName : key;
+	}
+
 	synchronized public void saveClaimData() {
 
 	}
 
+	/**
+	 * saves a number of claims at once. Stores that can write several claims
+	 * in one go override this; by default each is passed to saveClaim().
+	 * 
+	 * @param claims
+	 */
+	void saveClaims(Collection<Claim> claims) {
+		for (Claim c : claims) {
+			this.saveClaim(c);
+		}
+	}
+
 	abstract void saveGroupBonusBlocks(String groupName, int amount);
 
 	/**
@@ -1584,6 +1761,7 @@ public abstract class DataStore {
 		attackerData.siegeData = siegeData;
 		defenderData.siegeData = siegeData;
 		defenderClaim.siegeData = siegeData;
+		defenderClaim.permissionsChanged();
 
 		// Raise the event, and cancel if necessary.
 		SiegeStartEvent startevent = new SiegeStartEvent(siegeData);
@@ -1630,16 +1808,185 @@ public abstract class DataStore {
 		// otherwise extend the siege
 		playerData.siegeData.claims.add(claim);
 		claim.siegeData = playerData.siegeData;
+		claim.permissionsChanged();
 	}
 
 	abstract void WorldLoaded(World worldload);
 
+	// pool that claim records are parsed on while loading. created on first
+	// use, shut down when the DataStore closes.
+	private static ExecutorService loadPool;
+
+	private static synchronized ExecutorService getLoadPool() {
+		if (loadPool == null) {
+			loadPool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					// daemon, so an idle pool never holds up shutdown.
+					Thread thread = new Thread(r, "GriefPrevention claim loader");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return loadPool;
+	}
+
+	private static synchronized void shutdownLoadPool() {
+		if (loadPool != null) {
+			loadPool.shutdown();
+			loadPool = null;
+		}
+	}
+
+	/**
+	 * runs claim parsing tasks in parallel and waits for all of them. The
+	 * tasks must not touch Bukkit or take the DataStore lock.
+	 * 
+	 * @param tasks
+	 * @return the results, in task order. tasks that returned null or failed
+	 *         are left out.
+	 */
+	<T> List<T> parseInParallel(List<Callable<T>> tasks) {
+		List<T> results = new ArrayList<T>(tasks.size());
+		if (tasks.isEmpty())
+			return results;
+		List<Future<T>> futures;
+		try {
+			futures = getLoadPool().invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return results;
+		}
+		for (Future<T> future : futures) {
+			try {
+				T result = future.get();
+				if (result != null)
+					results.add(result);
+			} catch (ExecutionException e) {
+				GriefPrevention.AddLogEntry("Unable to load claim data: " + e.getCause());
+				e.getCause().printStackTrace();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * adds claims read from secondary storage, in one pass. Records are taken
+	 * in order; one whose lesser corner lies in a claim that is already
+	 * loaded, or in one accepted earlier in the list, is rejected. Accepted
+	 * claims are inserted into the claim index all at once.
+	 * 
+	 * @param records
+	 * @return the rejected records, each with its conflict set.
+	 */
+	synchronized List<ClaimRecord> addLoadedClaims(List<ClaimRecord> records) {
+		List<ClaimRecord> rejected = new ArrayList<ClaimRecord>();
+		List<Claim> accepted = new ArrayList<Claim>(records.size());
+		List<ClaimRecord> acceptedRecords = new ArrayList<ClaimRecord>(records.size());
+		HashMap<String, World> worlds = new HashMap<String, World>();
+		// what this call has accepted so far, for the overlap check.
+		HashMap<String, ChunkClaimMap> pending = new HashMap<String, ChunkClaimMap>();
+
+		for (ClaimRecord record : records) {
+			World world = worlds.get(record.worldName);
+			if (world == null) {
+				try {
+					world = worldFromName(record.worldName);
+				} catch (WorldNotFoundException e) {
+					continue;
+				}
+				worlds.put(record.worldName, world);
+			}
+
+			Claim claim = record.toClaim(world);
+			if (claim.id == null) {
+				claim.id = this.nextClaimID;
+				this.incrementNextClaimID();
+			}
+
+			// search for another claim overlapping this one
+			Claim conflict = this.getClaimAt(claim.lesserBoundaryCorner, true);
+			ChunkClaimMap worldpending = pending.get(record.worldName);
+			if (conflict == null && worldpending != null) {
+				ChunkClaimList candidates = worldpending.get(record.lesserX >> 4, record.lesserZ >> 4);
+				if (candidates != null) {
+					for (Claim candidate : candidates) {
+						if (candidate.contains(record.lesserX, record.lesserY, record.lesserZ, true, false)) {
+							conflict = candidate;
+							break;
+						}
+					}
+				}
+			}
+			if (conflict != null) {
+				record.conflict = conflict;
+				rejected.add(record);
+				continue;
+			}
+
+			if (worldpending == null) {
+				worldpending = new ChunkClaimMap();
+				pending.put(record.worldName, worldpending);
+			}
+			for (long chunk : ClaimArray.getChunkKeys(claim)) {
+				ChunkClaimList candidates = worldpending.get(chunk);
+				if (candidates == null) {
+					candidates = new ChunkClaimList(ChunkClaimMap.keyX(chunk), ChunkClaimMap.keyZ(chunk));
+					worldpending.put(chunk, candidates);
+				}
+				candidates.add(claim);
+			}
+			accepted.add(claim);
+			acceptedRecords.add(record);
+		}
+
+		this.claims.addAll(accepted);
+
+		for (int i = 0; i < accepted.size(); i++) {
+			Claim claim = accepted.get(i);
+			claim.inDataStore = true;
+			for (Claim subdivision : claim.children)
+				subdivision.inDataStore = true;
+
+			// player data already in memory won't pick the claim up by itself
+			if (!claim.isAdminClaim()) {
+				PlayerData ownerData = this.playerNameToPlayerDataMap.get(claim.getOwnerName().toLowerCase());
+				if (ownerData != null && !containsClaim(claim, ownerData.claims))
+					ownerData.claims.add(claim);
+			}
+
+			if (acceptedRecords.get(i).needsSave)
+				this.saveClaim(claim);
+		}
+		return rejected;
+	}
+
+	/**
+	 * loads the claims for a world. The claims read are published to other
+	 * threads all at once when loading finishes, rather than one at a time.
+	 * 
+	 * @param worldload
+	 */
+	void loadWorldClaims(World worldload) {
+		this.claims.beginBatch();
+		try {
+			this.WorldLoaded(worldload);
+		} finally {
+			this.claims.endBatch();
+		}
+	}
+
 	void WorldUnloaded(World worldunload) {
 		Debugger.Write("World " + worldunload + " is unloading.", DebugLevel.Informational);
 		int accum = 0;
 		try {
-			for (Claim c : this.getClaimArray().claimworldmap.get(worldunload.getName())) {
-				this.saveClaim(c);
+			// removing claims changes the world's list, so work from a copy.
+			ArrayList<Claim> unloading = new ArrayList<Claim>(this.getClaimArray().claimworldmap.get(worldunload.getName()));
+			this.saveClaims(unloading);
+			for (Claim c : unloading) {
 				this.getClaimArray().removeID(c.getID()); // remove this claim.;
 				accum++;
                 if(!c.isAdminClaim()){
@@ -0,0 +1,175 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Properties;
+
+/**
+ * A few open connections to the database, each used by one caller at a time.
+ * Every connection keeps the statements prepared on it, so the server parses
+ * and plans a given query once per connection instead of once per use.
+ * <p>
+ * Get a connection with take() and hand it back with give() in a finally
+ * block. Connections that hit an error should be given back as broken, which
+ * closes them; the next take() opens a fresh one.
+ */
+class DatabaseConnectionPool {
+
+	// connections idle longer than this are checked before they're handed
+	// out, in case the server dropped them meanwhile.
+	private static final long VALIDATE_AFTER = 30000L;
+
+	static final class PooledConnection {
+		final Connection connection;
+		private final HashMap<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+		private long lastUsed;
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+			this.lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * prepares a statement on this connection, or reuses the one prepared
+		 * for the same SQL before, with its parameters cleared.
+		 *
+		 * @param sql
+		 * @return
+		 * @throws SQLException
+		 */
+		PreparedStatement prepare(String sql) throws SQLException {
+			PreparedStatement statement = statements.get(sql);
+			if (statement == null) {
+				statement = connection.prepareStatement(sql);
+				statements.put(sql, statement);
+			} else {
+				statement.clearParameters();
+			}
+			return statement;
+		}
+
+		private void close() {
+			for (PreparedStatement statement : statements.values()) {
+				try {
+					statement.close();
+				} catch (SQLException e) {
+				}
+			}
+			statements.clear();
+			try {
+				connection.close();
+			} catch (SQLException e) {
+			}
+		}
+	}
+
+	private final String url;
+	private final Properties properties;
+	private final int maxIdle;
+	private final ArrayDeque<PooledConnection> idle = new ArrayDeque<PooledConnection>();
+	private boolean closed = false;
+
+	/**
+	 * @param url
+	 *            JDBC URL to connect to.
+	 * @param properties
+	 *            connection properties, like user and password.
+	 * @param maxIdle
+	 *            most connections kept open while nobody uses them. More may
+	 *            be open while many callers are busy at once.
+	 */
+	DatabaseConnectionPool(String url, Properties properties, int maxIdle) {
+		this.url = url;
+		this.properties = properties;
+		this.maxIdle = Math.max(1, maxIdle);
+	}
+
+	/**
+	 * @return the JDBC URL connected to.
+	 */
+	String getUrl() {
+		return url;
+	}
+
+	/**
+	 * gets a connection that's not in use, opening one if none is idle.
+	 *
+	 * @return
+	 * @throws SQLException
+	 *             if no connection could be made, or the pool is closed.
+	 */
+	PooledConnection take() throws SQLException {
+		while (true) {
+			PooledConnection pooled;
+			synchronized (this) {
+				if (closed)
+					throw new SQLException("The database connection pool is closed.");
+				pooled = idle.pollFirst();
+			}
+			if (pooled == null)
+				return new PooledConnection(DriverManager.getConnection(url, properties));
+			if (isUsable(pooled))
+				return pooled;
+			pooled.close();
+		}
+	}
+
+	/**
+	 * hands a connection back.
+	 *
+	 * @param pooled
+	 *            connection from take(); null is ignored.
+	 * @param broken
+	 *            whether using it failed. Broken connections are closed
+	 *            rather than reused.
+	 */
+	void give(PooledConnection pooled, boolean broken) {
+		if (pooled == null)
+			return;
+		if (!broken) {
+			pooled.lastUsed = System.currentTimeMillis();
+			synchronized (this) {
+				if (!closed && idle.size() < maxIdle) {
+					idle.offerFirst(pooled);
+					return;
+				}
+			}
+		}
+		pooled.close();
+	}
+
+	/**
+	 * closes every idle connection. Connections still in use are closed as
+	 * they're given back.
+	 */
+	void close() {
+		ArrayDeque<PooledConnection> closing;
+		synchronized (this) {
+			closed = true;
+			closing = new ArrayDeque<PooledConnection>(idle);
+			idle.clear();
+		}
+		for (PooledConnection pooled : closing)
+			pooled.close();
+	}
+
+	private boolean isUsable(PooledConnection pooled) {
+		try {
+			if (pooled.connection.isClosed())
+				return false;
+			if (System.currentTimeMillis() - pooled.lastUsed < VALIDATE_AFTER)
+				return true;
+			return pooled.connection.isValid(5);
+		} catch (SQLException e) {
+			return false;
+		} catch (AbstractMethodError e) {
+			// pre JDBC 4 driver; assume it's fine.
+			return true;
+		}
+	}
+
+}
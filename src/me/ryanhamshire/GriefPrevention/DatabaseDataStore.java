@@ -19,16 +19,17 @@
 package me.ryanhamshire.GriefPrevention;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.text.SimpleDateFormat;
+import java.sql.Timestamp;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+import me.ryanhamshire.GriefPrevention.DatabaseConnectionPool.PooledConnection;
 import me.ryanhamshire.GriefPrevention.Debugger.DebugLevel;
-import me.ryanhamshire.GriefPrevention.exceptions.WorldNotFoundException;
 
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -37,60 +38,112 @@ import org.bukkit.configuration.ConfigurationSection;
 //manages data stored in the file system
 public class DatabaseDataStore extends DataStore {
     public static String ConfigDescriptor = "mysql";
-    private Connection databaseConnection = null;
+
+	// claim columns, in the order claimRow() returns them.
+	private static final String CLAIM_COLUMNS = "id,uid,parentuid,owner,lessercorner,greatercorner,builders,containers,accessors,managers,parentid,neverdelete,world,minx,minz,maxx,maxz";
+
+	private static final String CLAIM_UPSERT = "INSERT INTO griefprevention_claimdata (" + CLAIM_COLUMNS + ") VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) "
+			+ "ON DUPLICATE KEY UPDATE uid=VALUES(uid),parentuid=VALUES(parentuid),owner=VALUES(owner),lessercorner=VALUES(lessercorner),greatercorner=VALUES(greatercorner),"
+			+ "builders=VALUES(builders),containers=VALUES(containers),accessors=VALUES(accessors),managers=VALUES(managers),parentid=VALUES(parentid),neverdelete=VALUES(neverdelete),"
+			+ "world=VALUES(world),minx=VALUES(minx),minz=VALUES(minz),maxx=VALUES(maxx),maxz=VALUES(maxz)";
+	private static final String CLAIM_INSERT = "INSERT INTO griefprevention_claimdata (" + CLAIM_COLUMNS + ") VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+	private static final String CLAIM_UPDATE = "UPDATE griefprevention_claimdata SET uid=?,parentuid=?,owner=?,lessercorner=?,greatercorner=?,builders=?,containers=?,accessors=?,managers=?,parentid=?,neverdelete=?,"
+			+ "world=?,minx=?,minz=?,maxx=?,maxz=? WHERE id=?";
+	private static final String CLAIM_DELETE = "DELETE FROM griefprevention_claimdata WHERE id=? OR parentid=?";
+
+	// every claim in a world, top level and subdivisions alike.
+	private static final String CLAIM_SELECT_WORLD = "SELECT * FROM griefprevention_claimdata WHERE world=?";
+	// the top level claims in a world overlapping a region, then their
+	// subdivisions.
+	private static final String CLAIM_SELECT_REGION = "SELECT * FROM griefprevention_claimdata WHERE world=? AND parentid=-1 AND minx<=? AND maxx>=? AND minz<=? AND maxz>=? "
+			+ "UNION ALL SELECT c.* FROM griefprevention_claimdata p JOIN griefprevention_claimdata c ON c.parentid=p.id "
+			+ "WHERE p.world=? AND p.parentid=-1 AND p.minx<=? AND p.maxx>=? AND p.minz<=? AND p.maxz>=?";
+
+	private static final String PLAYER_UPSERT = "INSERT INTO griefprevention_playerdata (name,lastlogin,accruedblocks,bonusblocks,clearonjoin) VALUES (?,?,?,?,?) "
+			+ "ON DUPLICATE KEY UPDATE lastlogin=VALUES(lastlogin),accruedblocks=VALUES(accruedblocks),bonusblocks=VALUES(bonusblocks),clearonjoin=VALUES(clearonjoin)";
+	private static final String PLAYER_INSERT = "INSERT INTO griefprevention_playerdata (name,lastlogin,accruedblocks,bonusblocks,clearonjoin) VALUES (?,?,?,?,?)";
+	private static final String PLAYER_UPDATE = "UPDATE griefprevention_playerdata SET lastlogin=?,accruedblocks=?,bonusblocks=?,clearonjoin=? WHERE name=?";
+
+	private DatabaseConnectionPool connectionPool = null;
 
 	private String databaseUrl;
 	private String password;
 	private String userName;
 
+	// whether claim ids and player names have unique indexes, so saves can be
+	// single upserts. Without them a save is an UPDATE, then an INSERT if
+	// that matched nothing.
+	private boolean useUpserts = false;
+
 	public DatabaseDataStore(ConfigurationSection Source, ConfigurationSection Target) throws Exception {
 		initialize(Source, Target);
 
 	}
 
+	/**
+	 * uses connections from the given pool, skipping the configuration and
+	 * the messages. Lets the store be tried against any database.
+	 *
+	 * @param connectionPool
+	 * @throws Exception
+	 *             if the tables couldn't be set up.
+	 */
+	DatabaseDataStore(DatabaseConnectionPool connectionPool) throws Exception {
+		this.connectionPool = connectionPool;
+		this.databaseUrl = connectionPool.getUrl();
+		this.initializeTables();
+	}
+
 
 	@Override
 	synchronized void close() {
 		// System.out.println("DatabaseStore closing: Claims #" +
 		// this.claims.size());
 		super.close();
-		if (this.databaseConnection != null) {
-			try {
-				if (!this.databaseConnection.isClosed()) {
-					this.databaseConnection.close();
-				}
-			} catch (SQLException e) {
-			}
-			;
+		if (this.connectionPool != null) {
+			this.connectionPool.close();
 		}
 
-		this.databaseConnection = null;
+		this.connectionPool = null;
 	}
 
 	// deletes a top level claim from the database
 	@Override
 	synchronized void deleteClaimFromSecondaryStorage(Claim claim) {
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
-			this.refreshDataConnection();
+			connection = this.connectionPool.take();
 
-			Statement statement = this.databaseConnection.createStatement();
-			statement.execute("DELETE FROM griefprevention_claimdata WHERE id=" + claim.id + ";");
-			statement.execute("DELETE FROM griefprevention_claimdata WHERE parentid=" + claim.id + ";");
+			PreparedStatement statement = connection.prepare(CLAIM_DELETE);
+			statement.setLong(1, claim.id);
+			statement.setLong(2, claim.id);
+			statement.executeUpdate();
+			broken = false;
 		} catch (SQLException e) {
 			GriefPrevention.AddLogEntry("Unable to delete data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
 			GriefPrevention.AddLogEntry(e.getMessage());
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
 	}
 
 	@Override
 	public boolean deletePlayerData(String playerName) {
-		// TODO Auto-generated method stub
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
-			this.refreshDataConnection();
-			Statement statement = this.databaseConnection.createStatement();
-			return statement.execute("DELETE FROM griefprevention_playerdata WHERE name='" + playerName + "';");
-		} catch (Exception exx) {
-			exx.printStackTrace();
+			connection = this.connectionPool.take();
+			PreparedStatement statement = connection.prepare("DELETE FROM griefprevention_playerdata WHERE name=?");
+			statement.setString(1, playerName);
+			statement.executeUpdate();
+			broken = false;
+		} catch (SQLException e) {
+			GriefPrevention.AddLogEntry("Unable to delete data for player " + playerName + ".  Details: " + e.getMessage());
+			e.printStackTrace();
+			return false;
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
 
 		return true;
@@ -99,14 +152,14 @@ public class DatabaseDataStore extends DataStore {
 
 	@Override
 	public List<PlayerData> getAllPlayerData() {
-		// TODO Auto-generated method stub
 		super.ForceLoadAllClaims(this);
 		List<PlayerData> generateList = new ArrayList<PlayerData>();
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
 
-			this.refreshDataConnection();
-			Statement statement = databaseConnection.createStatement();
-			ResultSet gotplayers = statement.executeQuery("SELECT * FROM griefprevention_playerdata");
+			connection = this.connectionPool.take();
+			ResultSet gotplayers = connection.prepare("SELECT * FROM griefprevention_playerdata").executeQuery();
 			while (gotplayers.next()) {
 				// name,lastlogin,accruedblocks,bonusblocks
 				String pname = gotplayers.getString("name");
@@ -118,43 +171,59 @@ public class DatabaseDataStore extends DataStore {
 				pd.lastLogin = lastlog;
 				pd.accruedClaimBlocks = accrued;
 				pd.bonusClaimBlocks = bonus;
+				pd.ClearInventoryOnJoin = gotplayers.getBoolean("clearonjoin");
 				generateList.add(pd);
 
 			}
+			gotplayers.close();
+			broken = false;
 			return generateList;
 
-		} catch (Exception exx) {
-
+		} catch (SQLException e) {
+			GriefPrevention.AddLogEntry("Unable to read player data.  Details: " + e.getMessage());
+			e.printStackTrace();
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
 		return new ArrayList<PlayerData>();
 	}
 
 	@Override
-	synchronized PlayerData getPlayerDataFromStorage(String playerName) {
+	PlayerData getPlayerDataFromStorage(String playerName) {
 		PlayerData playerData = new PlayerData();
 		playerData.playerName = playerName;
 
+		PooledConnection connection = null;
+		boolean broken = true;
+		boolean found = false;
 		try {
-			this.refreshDataConnection();
+			connection = this.connectionPool.take();
 
-			Statement statement = this.databaseConnection.createStatement();
-			ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_playerdata WHERE name='" + playerName + "';");
+			PreparedStatement statement = connection.prepare("SELECT * FROM griefprevention_playerdata WHERE name=?");
+			statement.setString(1, playerName);
+			ResultSet results = statement.executeQuery();
 
-			// if there's no data for this player, create it with defaults
-			if (!results.next()) {
-				this.savePlayerData(playerName, playerData);
-			}
-			//
 			// otherwise, just read from the database
-			else {
+			if (results.next()) {
+				found = true;
 				playerData.lastLogin = results.getTimestamp("lastlogin");
 				playerData.accruedClaimBlocks = results.getInt("accruedblocks");
 				playerData.bonusClaimBlocks = results.getInt("bonusblocks");
                 playerData.ClearInventoryOnJoin = results.getBoolean("clearonjoin");
 			}
+			results.close();
+			broken = false;
 		} catch (SQLException e) {
 			GriefPrevention.AddLogEntry("Unable to retrieve data for player " + playerName + ".  Details:");
 			GriefPrevention.AddLogEntry(e.getMessage());
+			return playerData;
+		} finally {
+			this.connectionPool.give(connection, broken);
+		}
+
+		// if there's no data for this player, create it with defaults
+		if (!found) {
+			this.savePlayerData(playerName, playerData);
 		}
 
 		return playerData;
@@ -162,17 +231,22 @@ public class DatabaseDataStore extends DataStore {
 
 	@Override
 	public boolean hasPlayerData(String pName) {
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
-			this.refreshDataConnection();
-			Statement statement = this.databaseConnection.createStatement();
-			ResultSet results = statement.executeQuery("SELECT COUNT(*) FROM griefprevention_playerdata WHERE name='" + pName + "';");
-			results.next();
-			int gotcount = results.getInt("Count");
-			if (gotcount > 0)
-				return true;
+			connection = this.connectionPool.take();
+			PreparedStatement statement = connection.prepare("SELECT 1 FROM griefprevention_playerdata WHERE name=? LIMIT 1");
+			statement.setString(1, pName);
+			ResultSet results = statement.executeQuery();
+			boolean exists = results.next();
+			results.close();
+			broken = false;
+			return exists;
 
 		} catch (SQLException e) {
 
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
 		return false;
 	}
@@ -186,9 +260,12 @@ public class DatabaseDataStore extends DataStore {
     public ConcurrentHashMap<String, Integer> getAllGroupBonusBlocks() {
         // load group data into memory
         ConcurrentHashMap<String, Integer> bonuses = new ConcurrentHashMap<String,Integer>();
+        PooledConnection connection = null;
+        boolean broken = true;
         try {
-            Statement statement = databaseConnection.createStatement();
-            ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_playerdata;");
+            connection = this.connectionPool.take();
+            // all group names start with a dollar sign.
+            ResultSet results = connection.prepare("SELECT name,bonusblocks FROM griefprevention_playerdata WHERE name LIKE '$%'").executeQuery();
 
 
             while (results.next()) {
@@ -206,8 +283,12 @@ public class DatabaseDataStore extends DataStore {
 
                 bonuses.put(groupName, groupBonusBlocks);
             }
+            results.close();
+            broken = false;
         } catch (SQLException ex) {
             return null;
+        } finally {
+            this.connectionPool.give(connection, broken);
         }
         return bonuses;
     }
@@ -218,13 +299,17 @@ public class DatabaseDataStore extends DataStore {
 		// "jdbc:mysql://<hostname>/database"
 		String FormatString = "jdbc:mysql://%s:%s/%s";
 
-
+		// a full JDBC URL, if set, is used instead of Host, Port and Database.
+		String grabjdbcurl = Source.getString("URL", "");
+		String grabdriver = Source.getString("Driver", "com.mysql.jdbc.Driver");
+		Target.set("URL", grabjdbcurl);
+		Target.set("Driver", grabdriver);
 
 			String grabhost = Source.getString("Host", "localhost");
             String grabport = Source.getString("Port","3306");
 			String grabdbname = Source.getString("Database", "GriefPrevention");
 
-			databaseUrl = String.format(FormatString, grabhost,grabport, grabdbname);
+			databaseUrl = grabjdbcurl.length() > 0 ? grabjdbcurl : String.format(FormatString, grabhost,grabport, grabdbname);
 			Target.set("Host", grabhost);
             Target.set("Port",grabport);
 			Target.set("Database", grabdbname);
@@ -233,29 +318,53 @@ public class DatabaseDataStore extends DataStore {
 
 		userName = Source.getString("Username", "");
 		this.password = Source.getString("Password", "");
+		int poolSize = Source.getInt("ConnectionPoolSize", 4);
 
-		//Target.set("URL", databaseUrl);
 		Target.set("Username", userName);
 		Target.set("Password", password);
+		Target.set("ConnectionPoolSize", poolSize);
 
 		try {
 			// load the java driver for mySQL
-			Class.forName("com.mysql.jdbc.Driver");
+			Class.forName(grabdriver);
 		} catch (Exception e) {
-			GriefPrevention.AddLogEntry("ERROR: Unable to load Java's mySQL database driver.  Check to make sure you've installed it properly.");
+			GriefPrevention.AddLogEntry("ERROR: Unable to load the database driver " + grabdriver + ".  Check to make sure you've installed it properly.");
 			e.printStackTrace();
             throw e;
 		}
 
+		// set username/pass properties
+		Properties connectionProps = new Properties();
+		connectionProps.put("user", this.userName);
+		connectionProps.put("password", this.password);
+		// lets the mySQL driver send a batch of inserts as one statement.
+		// other drivers may reject properties they don't know.
+		if (this.databaseUrl.startsWith("jdbc:mysql:"))
+			connectionProps.put("rewriteBatchedStatements", "true");
+		this.connectionPool = new DatabaseConnectionPool(this.databaseUrl, connectionProps, poolSize);
+
+		this.initializeTables();
+
+		// load claims data into memory
+		//results = statement.executeQuery("SELECT * FROM griefprevention_claimdata;");
+
+		super.initialize(Source, Target);
+	}
+
+	// creates and upgrades the tables, and loads the next claim ID and the
+	// group bonus blocks.
+	private void initializeTables() throws Exception {
+		PooledConnection connection = null;
 		try {
-			this.refreshDataConnection();
+			connection = this.connectionPool.take();
 		} catch (Exception e2) {
 			GriefPrevention.AddLogEntry("ERROR: Unable to connect to database.  Check your config file settings.");
             e2.printStackTrace();
             throw e2;
 		}
-		GriefPrevention.AddLogEntry("Java MySQL driver loaded and connection established.");
+		GriefPrevention.AddLogEntry("Database driver loaded and connection established.");
 		try {
+			Connection databaseConnection = connection.connection;
 			// ensure the data tables exist
 			Statement statement = databaseConnection.createStatement();
 
@@ -278,39 +387,54 @@ public class DatabaseDataStore extends DataStore {
 
 				statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_playerdata (name VARCHAR(50), lastlogin DATETIME, accruedblocks INT(15), bonusblocks INT(15));");
 
-                ResultSet tempresult = statement.executeQuery("SHOW COLUMNS FROM griefprevention_playerdata LIKE 'clearonjoin';");
-                if(!tempresult.next()){
+                if(!hasColumn(databaseConnection, "griefprevention_playerdata", "clearonjoin")){
                     statement.execute("ALTER TABLE griefprevention_playerdata ADD clearonjoin BOOLEAN NOT NULL DEFAULT 0;");
                 }
-				tempresult = statement.executeQuery("SHOW COLUMNS FROM griefprevention_claimdata LIKE 'neverdelete';");
-				if (!tempresult.next()) {
+				if (!hasColumn(databaseConnection, "griefprevention_claimdata", "neverdelete")) {
 					statement.execute("ALTER TABLE griefprevention_claimdata ADD neverdelete BOOLEAN NOT NULL DEFAULT 0;");
 				}
 
-                tempresult = statement.executeQuery("SHOW COLUMNS FROM griefprevention_claimdata LIKE 'uid'");
-                if(!tempresult.next()){
+                if(!hasColumn(databaseConnection, "griefprevention_claimdata", "uid")){
                     statement.execute("ALTER TABLE griefprevention_claimdata ADD uid char(36) NOT NULL DEFAULT ''");
                     statement.execute("CREATE INDEX griefprevention_claimuid ON griefprevention_claimdata (uid)");
 
                 }
-                tempresult = statement.executeQuery("SHOW COLUMNS FROM griefprevention_claimdata LIKE 'parentuid'");
-                if(!tempresult.next()){
+                if(!hasColumn(databaseConnection, "griefprevention_claimdata", "parentuid")){
                     statement.execute("ALTER TABLE griefprevention_claimdata ADD parentuid char(36) NOT NULL DEFAULT ''");
                 }
-				
+
+				// the world and x/z bounds as columns of their own, so claims
+				// can be looked up by world or region through an index rather
+				// than by matching the corner strings.
+				if (!hasColumn(databaseConnection, "griefprevention_claimdata", "world")) {
+					GriefPrevention.AddLogEntry("Adding world and boundary columns to griefprevention_claimdata.");
+					statement.execute("ALTER TABLE griefprevention_claimdata ADD COLUMN (world VARCHAR(100) NOT NULL DEFAULT '', minx INT NOT NULL DEFAULT 0, minz INT NOT NULL DEFAULT 0, maxx INT NOT NULL DEFAULT 0, maxz INT NOT NULL DEFAULT 0)");
+					statement.execute("CREATE INDEX griefprevention_claimworldx ON griefprevention_claimdata (world, parentid, minx, maxx)");
+					statement.execute("CREATE INDEX griefprevention_claimworldz ON griefprevention_claimdata (world, parentid, minz, maxz)");
+					statement.execute("CREATE INDEX griefprevention_claimparent ON griefprevention_claimdata (parentid)");
+				}
+				// fill them in for rows written without them, by this upgrade
+				// or by an older version of the plugin.
+				int filled = fillClaimBounds(connection);
+				if (filled > 0)
+					GriefPrevention.AddLogEntry("Filled in the world and boundaries of " + filled + " claims.");
+
+				// upserts need claim ids and player names to be unique.
+				this.useUpserts = ensureUniqueIndex(databaseConnection, "griefprevention_claimdata", "id", "griefprevention_claimid")
+						& ensureUniqueIndex(databaseConnection, "griefprevention_playerdata", "name", "griefprevention_playername");
 			}
+			statement.close();
 		} catch (Exception e3) {
+			this.connectionPool.give(connection, true);
 			GriefPrevention.AddLogEntry("ERROR: Unable to create the necessary database table.  Details:");
 			GriefPrevention.AddLogEntry(e3.getMessage());
             e3.printStackTrace();
             throw e3;
 		}
 
-		// load group data into memory
-    	this.permissionToBonusBlocksMap = getAllGroupBonusBlocks();
-
 		// load next claim number into memory
-        Statement statement = databaseConnection.createStatement();
+		try {
+        Statement statement = connection.connection.createStatement();
         ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_nextclaimid;");
 
 		// if there's nothing yet, add it
@@ -323,22 +447,99 @@ public class DatabaseDataStore extends DataStore {
 		else {
 			this.nextClaimID = results.getLong("nextid");
 		}
+		statement.close();
+		} finally {
+			this.connectionPool.give(connection, false);
+		}
 
-		// load claims data into memory
-		//results = statement.executeQuery("SELECT * FROM griefprevention_claimdata;");
+		// load group data into memory
+    	this.permissionToBonusBlocksMap = getAllGroupBonusBlocks();
+	}
 
-		super.initialize(Source, Target);
+	// looks a table up the way the database stores its name: upper or lower
+	// cased if it doesn't keep the case it was created with.
+	private static String storedName(DatabaseMetaData meta, String name) throws SQLException {
+		if (meta.storesUpperCaseIdentifiers())
+			return name.toUpperCase();
+		if (meta.storesLowerCaseIdentifiers())
+			return name.toLowerCase();
+		return name;
+	}
+
+	// whether a table in the current database has a column.
+	private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+		DatabaseMetaData meta = connection.getMetaData();
+		ResultSet columns = meta.getColumns(connection.getCatalog(), null, storedName(meta, table), null);
+		try {
+			while (columns.next()) {
+				if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME")))
+					return true;
+			}
+		} finally {
+			columns.close();
+		}
+		return false;
 	}
 
-	private void refreshDataConnection() throws SQLException {
-		if (this.databaseConnection == null || this.databaseConnection.isClosed()) {
-			// set username/pass properties
-			Properties connectionProps = new Properties();
-			connectionProps.put("user", this.userName);
-			connectionProps.put("password", this.password);
+	// fills in the world and bounds columns of claims saved without them,
+	// from the corner strings. Returns how many claims were filled in.
+	private static int fillClaimBounds(PooledConnection connection) throws SQLException {
+		ArrayList<Object[]> rows = new ArrayList<Object[]>();
+		Statement statement = connection.connection.createStatement();
+		try {
+			ResultSet results = statement.executeQuery("SELECT id,lessercorner,greatercorner FROM griefprevention_claimdata WHERE world=''");
+			while (results.next()) {
+				ClaimRecord corners = new ClaimRecord();
+				try {
+					corners.setCorners(results.getString("lessercorner"), results.getString("greatercorner"));
+				} catch (Exception e) {
+					// loading the claim reports it.
+					continue;
+				}
+				rows.add(new Object[] { corners.worldName, corners.lesserX, corners.lesserZ, corners.greaterX, corners.greaterZ, results.getLong("id") });
+			}
+			results.close();
+		} finally {
+			statement.close();
+		}
+		if (rows.isEmpty())
+			return 0;
+
+		PreparedStatement update = connection.prepare("UPDATE griefprevention_claimdata SET world=?,minx=?,minz=?,maxx=?,maxz=? WHERE id=?");
+		for (Object[] row : rows) {
+			for (int i = 0; i < row.length; i++)
+				update.setObject(i + 1, row[i]);
+			update.addBatch();
+		}
+		update.executeBatch();
+		return rows.size();
+	}
 
-			// establish connection
-			this.databaseConnection = DriverManager.getConnection(this.databaseUrl, connectionProps);
+	// adds a unique index on a column if it has none. Returns whether the
+	// column has one afterwards; it can't be added while the table holds
+	// duplicates.
+	private boolean ensureUniqueIndex(Connection connection, String table, String column, String indexName) {
+		try {
+			DatabaseMetaData meta = connection.getMetaData();
+			ResultSet indexes = meta.getIndexInfo(connection.getCatalog(), null, storedName(meta, table), true, false);
+			try {
+				while (indexes.next()) {
+					if (column.equalsIgnoreCase(indexes.getString("COLUMN_NAME")) && indexes.getShort("ORDINAL_POSITION") == 1)
+						return true;
+				}
+			} finally {
+				indexes.close();
+			}
+			Statement statement = connection.createStatement();
+			try {
+				statement.execute("CREATE UNIQUE INDEX " + indexName + " ON " + table + " (" + column + ")");
+			} finally {
+				statement.close();
+			}
+			return true;
+		} catch (SQLException e) {
+			GriefPrevention.AddLogEntry("Unable to add a unique index on " + table + "." + column + ", likely because of duplicate rows; saves will take two queries.  Details: " + e.getMessage());
+			return false;
 		}
 	}
 
@@ -364,35 +565,44 @@ public class DatabaseDataStore extends DataStore {
 		if (playerName.length() == 0)
 			return;
 
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
-			this.refreshDataConnection();
-
-			SimpleDateFormat sqlFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-			String dateString = sqlFormat.format(playerData.lastLogin);
-            String Existsquery = "SELECT true from griefprevention_playerdata WHERE name='%1$s'";
-            String UpdateFormat = "UPDATE griefprevention_playerdata SET name='%1$s',lastlogin='%2$s',accruedblocks='%3$s',bonusblocks='%4$s',clearonjoin='%5$s' WHERE name='%1$s'";
-            String insertFormat =
-                    "INSERT INTO griefprevention_playerdata (name,lastlogin,accruedblocks,bonusblocks,clearonjoin)  VALUES " +
-                            "('%1$s', '%2$s', '%3$s','%4$s','%5$s');";
-
-            Statement statement = databaseConnection.createStatement();
-			//statement.execute("DELETE FROM griefprevention_playerdata WHERE name='" + playerName + "';");
-            String buildexists = String.format(Existsquery,playerName);
-            String useSaveQuery = null;
-            ResultSet rs = statement.executeQuery(buildexists);
-            if(rs.next()){
-                useSaveQuery = String.format(UpdateFormat,playerName,dateString,playerData.accruedClaimBlocks,playerData.bonusClaimBlocks,playerData.ClearInventoryOnJoin?1:0);
-            }
-            else {
-                useSaveQuery = String.format(insertFormat,playerName,dateString,playerData.accruedClaimBlocks,playerData.bonusClaimBlocks,playerData.ClearInventoryOnJoin?1:0);
-            }
-
-             statement.execute(useSaveQuery);
-
+			connection = this.connectionPool.take();
+
+			Timestamp lastLogin = new Timestamp(playerData.lastLogin.getTime());
+			if (this.useUpserts) {
+				PreparedStatement upsert = connection.prepare(PLAYER_UPSERT);
+				upsert.setString(1, playerName);
+				upsert.setTimestamp(2, lastLogin);
+				upsert.setInt(3, playerData.accruedClaimBlocks);
+				upsert.setInt(4, playerData.bonusClaimBlocks);
+				upsert.setBoolean(5, playerData.ClearInventoryOnJoin);
+				upsert.executeUpdate();
+			} else {
+				PreparedStatement update = connection.prepare(PLAYER_UPDATE);
+				update.setTimestamp(1, lastLogin);
+				update.setInt(2, playerData.accruedClaimBlocks);
+				update.setInt(3, playerData.bonusClaimBlocks);
+				update.setBoolean(4, playerData.ClearInventoryOnJoin);
+				update.setString(5, playerName);
+				if (update.executeUpdate() == 0) {
+					PreparedStatement insert = connection.prepare(PLAYER_INSERT);
+					insert.setString(1, playerName);
+					insert.setTimestamp(2, lastLogin);
+					insert.setInt(3, playerData.accruedClaimBlocks);
+					insert.setInt(4, playerData.bonusClaimBlocks);
+					insert.setBoolean(5, playerData.ClearInventoryOnJoin);
+					insert.executeUpdate();
+				}
+			}
+			broken = false;
 
 		} catch (SQLException e) {
 			GriefPrevention.AddLogEntry("Unable to save data for player " + playerName + ".  Details:");
 			e.printStackTrace();
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
 	}
 
@@ -407,158 +617,171 @@ public class DatabaseDataStore extends DataStore {
 	public synchronized void setNextClaimID(long nextID) {
 		this.nextClaimID = nextID;
 
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
-			this.refreshDataConnection();
-
-			Statement statement = databaseConnection.createStatement();
-			statement.execute("DELETE FROM griefprevention_nextclaimid;");
-			statement.execute("INSERT INTO griefprevention_nextclaimid VALUES (" + nextID + ");");
+			connection = this.connectionPool.take();
+
+			PreparedStatement update = connection.prepare("UPDATE griefprevention_nextclaimid SET nextid=?");
+			update.setLong(1, nextID);
+			if (update.executeUpdate() == 0) {
+				PreparedStatement insert = connection.prepare("INSERT INTO griefprevention_nextclaimid VALUES (?)");
+				insert.setLong(1, nextID);
+				insert.executeUpdate();
+			}
+			broken = false;
 		} catch (SQLException e) {
 			GriefPrevention.AddLogEntry("Unable to set next claim ID to " + nextID + ".  Details:");
 			GriefPrevention.AddLogEntry(e.getMessage());
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
 	}
 
 	@Override
 	void WorldLoaded(World loading) {
+		PooledConnection connection = null;
+		boolean broken = true;
 		try {
             Debugger.Write("Database:Loading claims in world:" + loading.getName(), DebugLevel.Verbose);
-			Statement statement = databaseConnection.createStatement();
+			connection = this.connectionPool.take();
+			// one query brings back the world's claims with their
+			// subdivisions; the claims are built and indexed in one go
+			// afterwards.
+			PreparedStatement statement = connection.prepare(CLAIM_SELECT_WORLD);
+			statement.setString(1, loading.getName());
+			List<ClaimRecord> records = readClaimRecords(statement.executeQuery());
+			this.connectionPool.give(connection, false);
+			connection = null;
+
+			// if a claim overlaps one loaded before it, remove the one it
+			// overlaps from the database
+			for (ClaimRecord rejected : addLoadedClaims(records)) {
+				this.deleteClaimFromSecondaryStorage(rejected.conflict);
+			}
 
-            ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_claimdata where parentid=-1 AND lessercorner LIKE \"" + loading.getName() + ";%\";");
-			ArrayList<Claim> claimsToRemove = new ArrayList<Claim>();
+		} catch (Exception exx) {
+			GriefPrevention.AddLogEntry("Unable to load the claims in world " + loading.getName() + ".  Details: " + exx.getMessage());
+			exx.printStackTrace();
+		} finally {
+			this.connectionPool.give(connection, broken);
+		}
+
+	}
+
+	/**
+	 * reads the top level claims in a world that overlap a region, with all
+	 * their subdivisions, without adding them to the DataStore.
+	 *
+	 * @param worldName
+	 * @param minX
+	 * @param minZ
+	 * @param maxX
+	 * @param maxZ
+	 * @return the claims read, or an empty list if they couldn't be.
+	 */
+	List<ClaimRecord> readClaimRecords(String worldName, int minX, int minZ, int maxX, int maxZ) {
+		PooledConnection connection = null;
+		boolean broken = true;
+		try {
+			connection = this.connectionPool.take();
+			PreparedStatement statement = connection.prepare(CLAIM_SELECT_REGION);
+			// the same bounds for both halves of the union.
+			for (int offset = 0; offset <= 5; offset += 5) {
+				statement.setString(offset + 1, worldName);
+				statement.setInt(offset + 2, maxX);
+				statement.setInt(offset + 3, minX);
+				statement.setInt(offset + 4, maxZ);
+				statement.setInt(offset + 5, minZ);
+			}
+			List<ClaimRecord> records = readClaimRecords(statement.executeQuery());
+			broken = false;
+			return records;
+		} catch (SQLException e) {
+			GriefPrevention.AddLogEntry("Unable to read claims in " + worldName + " between " + minX + "," + minZ + " and " + maxX + "," + maxZ + ".  Details: " + e.getMessage());
+			return new ArrayList<ClaimRecord>();
+		} finally {
+			this.connectionPool.give(connection, broken);
+		}
+	}
 
+	// reads claim rows, top level claims and subdivisions in any order, and
+	// returns the top level claims with their subdivisions attached. Closes
+	// the results.
+	private List<ClaimRecord> readClaimRecords(ResultSet results) throws SQLException {
+		ArrayList<ClaimRecord> records = new ArrayList<ClaimRecord>();
+		HashMap<Long, ClaimRecord> byId = new HashMap<Long, ClaimRecord>();
+		HashMap<String, ClaimRecord> byUUID = new HashMap<String, ClaimRecord>();
+		ArrayList<ClaimRecord> children = new ArrayList<ClaimRecord>();
+		ArrayList<Long> childParentIds = new ArrayList<Long>();
+		ArrayList<String> childParentUUIDs = new ArrayList<String>();
+		try {
 			while (results.next()) {
 				try {
-					// skip subdivisions
-
 					long parentId = results.getLong("parentid");
-					if (parentId != -1)
-						continue;
-
-					long claimID = results.getLong("id");
-                    UUID uid = null;
-                    try {
-                        uid = UUID.fromString(results.getString("uid"));
-
-                    }
-                    catch(Exception exx){
-
-                    }
-                    if(uid==null) uid = UUID.randomUUID();
-					String lesserCornerString = results.getString("lessercorner");
-
-					String greaterCornerString = results.getString("greatercorner");
-
-					String ownerName = results.getString("owner");
-
-					String buildersString = results.getString("builders");
-					String[] builderNames = buildersString.split(";");
-
-					String containersString = results.getString("containers");
-					String[] containerNames = containersString.split(";");
-
-					String accessorsString = results.getString("accessors");
-					String[] accessorNames = accessorsString.split(";");
-
-					String managersString = results.getString("managers");
-					String[] managerNames = managersString.split(";");
-
-					boolean neverdelete = results.getBoolean("neverdelete");
-
-					Location lesserBoundaryCorner = this.locationFromString(lesserCornerString);
-					Location greaterBoundaryCorner = this.locationFromString(greaterCornerString);
-
-					
-					Claim topLevelClaim = new Claim(lesserBoundaryCorner, greaterBoundaryCorner, ownerName, builderNames, containerNames, accessorNames, managerNames, claimID, neverdelete);
-                    if(uid!=null)
-                        topLevelClaim.setUUID(uid);
-					// search for another claim overlapping this one
-					Claim conflictClaim = this.getClaimAt(topLevelClaim.lesserBoundaryCorner, true);
-
-					// if there is such a claim, mark it for later removal
-					if (conflictClaim != null) {
-						claimsToRemove.add(conflictClaim);
-						continue;
-					}
-
-					// otherwise, add this claim to the claims collection
-					else {
-                        addClaim(topLevelClaim);
-						topLevelClaim.inDataStore = true;
-					}
-
-					// look for any subdivisions for this claim
-					Statement statement2 = this.databaseConnection.createStatement();
-
-					ResultSet childResults = statement2.executeQuery("SELECT * FROM griefprevention_claimdata WHERE parentid=" + topLevelClaim.id + " OR (NOT parentuid='' AND parentuid='" + topLevelClaim.getUUID().toString() +"'");
-
-					while (childResults.next()) {
-
-						lesserCornerString = childResults.getString("lessercorner");
-						lesserBoundaryCorner = this.locationFromString(lesserCornerString);
-						Long subid = childResults.getLong("id");
-
-                        UUID childuid = null;
-                        try {
-                            childuid = UUID.fromString(results.getString("uid"));
-
-                        }
-                        catch(Exception exx){
-
-                        }
-                        if(childuid==null) childuid = UUID.randomUUID();
-
-						greaterCornerString = childResults.getString("greatercorner");
-						greaterBoundaryCorner = this.locationFromString(greaterCornerString);
-
-						buildersString = childResults.getString("builders");
-						builderNames = buildersString.split(";");
-
-						containersString = childResults.getString("containers");
-						containerNames = containersString.split(";");
-
-						accessorsString = childResults.getString("accessors");
-						accessorNames = accessorsString.split(";");
-
-						managersString = childResults.getString("managers");
-						managerNames = managersString.split(";");
-
-						neverdelete = results.getBoolean("neverdelete");
-
-						Claim childClaim = new Claim(lesserBoundaryCorner, greaterBoundaryCorner, ownerName, builderNames, containerNames, accessorNames, managerNames, subid, neverdelete);
-                        childClaim.setUUID(childuid);
-						// add this claim to the list of children of the current
-						// top level claim
-						childClaim.parent = topLevelClaim;
-
-						topLevelClaim.children.add(childClaim);
-
-						childClaim.inDataStore = true;
+					ClaimRecord record = readClaimRecord(results);
+					if (parentId == -1) {
+						record.ownerName = results.getString("owner");
+						records.add(record);
+						byId.put(record.id, record);
+						byUUID.put(record.uuid.toString(), record);
+					} else {
+						children.add(record);
+						childParentIds.add(parentId);
+						childParentUUIDs.add(results.getString("parentuid"));
 					}
 				} catch (SQLException e) {
 					GriefPrevention.AddLogEntry("Unable to load a claim.  Details: " + e.getMessage() + " ... " + results.toString());
 					e.printStackTrace();
-				} catch (WorldNotFoundException e) {
-					// We don't need to worry about this exception.
-					// This is just here to catch it so that the plugin
-					// can load without erroring out.
+				} catch (Exception e) {
+					GriefPrevention.AddLogEntry("Unable to load a claim.  Details: " + e.getMessage());
 				}
 			}
+		} finally {
+			results.close();
+		}
 
-			for (int i = 0; i < claimsToRemove.size(); i++) {
-				this.deleteClaimFromSecondaryStorage(claimsToRemove.get(i));
-			}
+		for (int i = 0; i < children.size(); i++) {
+			ClaimRecord topLevelClaim = byId.get(childParentIds.get(i));
+			String parentUUID = childParentUUIDs.get(i);
+			if (topLevelClaim == null && parentUUID != null && parentUUID.length() > 0)
+				topLevelClaim = byUUID.get(parentUUID);
+			// subdivisions whose claim isn't in the results are skipped.
+			if (topLevelClaim == null)
+				continue;
+			ClaimRecord childClaim = children.get(i);
+			// add this claim to the list of children of the current top level
+			// claim
+			topLevelClaim.children.add(childClaim);
+			topLevelClaim.needsSave |= childClaim.needsSave;
+		}
+		return records;
+	}
 
+	// reads the columns shared by top level claims and subdivisions
+	private ClaimRecord readClaimRecord(ResultSet results) throws Exception {
+		ClaimRecord record = new ClaimRecord();
+		record.id = results.getLong("id");
+		try {
+			record.uuid = UUID.fromString(results.getString("uid"));
 		} catch (Exception exx) {
-			System.out.println("Exception from databaseDataStore handling of WorldLoad-");
-			exx.printStackTrace();
+			record.uuid = null;
 		}
-
+		if (record.uuid == null) {
+			record.uuid = UUID.randomUUID();
+			record.needsSave = true;
+		}
+		record.setCorners(results.getString("lessercorner"), results.getString("greatercorner"));
+		record.builders = results.getString("builders").split(";");
+		record.containers = results.getString("containers").split(";");
+		record.accessors = results.getString("accessors").split(";");
+		record.managers = results.getString("managers").split(";");
+		record.neverdelete = results.getBoolean("neverdelete");
+		return record;
 	}
 
-	// actually writes claim data to the database
-	synchronized private void writeClaimData(Claim claim) throws SQLException {
+	// the values of a claim's columns, in CLAIM_COLUMNS order.
+	private Object[] claimRow(Claim claim) {
 		String lesserCornerString = this.locationToString(claim.getLesserBoundaryCorner());
 		String greaterCornerString = this.locationToString(claim.getGreaterBoundaryCorner());
 		String owner = claim.claimOwnerName; //we need the direct name, so Admin Claims aren't lost.
@@ -570,26 +793,6 @@ public class DatabaseDataStore extends DataStore {
         String uidString = claim.getUUID().toString();
 		claim.getPermissions(builders, containers, accessors, managers);
 
-		String buildersString = "";
-		for (int i = 0; i < builders.size(); i++) {
-			buildersString += builders.get(i) + ";";
-		}
-
-		String containersString = "";
-		for (int i = 0; i < containers.size(); i++) {
-			containersString += containers.get(i) + ";";
-		}
-
-		String accessorsString = "";
-		for (int i = 0; i < accessors.size(); i++) {
-			accessorsString += accessors.get(i) + ";";
-		}
-
-		String managersString = "";
-		for (int i = 0; i < managers.size(); i++) {
-			managersString += managers.get(i) + ";";
-		}
-
 		long parentId;
 		long id;
         String parentuidString = null;
@@ -607,49 +810,83 @@ public class DatabaseDataStore extends DataStore {
 			id = claim.id;
 		}
 
+		Location lesser = claim.getLesserBoundaryCorner();
+		Location greater = claim.getGreaterBoundaryCorner();
+		return new Object[] { id, uidString, parentuidString, owner, lesserCornerString, greaterCornerString, joinEntries(builders), joinEntries(containers), joinEntries(accessors), joinEntries(managers), parentId, claim.neverdelete,
+				lesser.getWorld().getName(), lesser.getBlockX(), lesser.getBlockZ(), greater.getBlockX(), greater.getBlockZ() };
+	}
 
-		try {
-			this.refreshDataConnection();
-			// if the ID is in the database, then
-			Statement idexists = databaseConnection.createStatement();
-			ResultSet itexists = idexists.executeQuery("SELECT COUNT(*) AS total FROM griefprevention_claimdata WHERE id=" + id);
-			itexists.next();
-			boolean useupdate = itexists.getInt("total") > 0;
-			//
-			if (useupdate) {
-				Statement updatestatement = databaseConnection.createStatement();
-				// statement.execute("CREATE TABLE IF NOT EXISTS
-				// griefprevention_claimdata
-				// (id INTEGER, owner VARCHAR(50),
-				// lessercorner VARCHAR(100),
-				// greatercorner VARCHAR(100),
-				// builders TEXT,
-				// containers TEXT,
-				// accessors TEXT,
-				// managers TEXT,
-				// parentid INTEGER,
-				// neverdelete BOOLEAN NOT NULL DEFAULT false);");
-				updatestatement.execute("UPDATE griefprevention_claimdata " + "SET id='" + id + "'" + ",uid='" + uidString + "'" + ",parentuid='" + parentuidString + "'" + ",owner='" + owner + "'" + ",lessercorner='" + lesserCornerString + "'" + ",greatercorner='" + greaterCornerString + "'" + ",builders='" + buildersString + "'" + ",containers='" + containersString + "'" + ",accessors='" + accessorsString + "'" + ",managers='" + managersString + "'" + ",parentid='" + parentId + "'" + ",neverdelete='" + (claim.neverdelete ? 1 : 0) + "' " + "WHERE id=" + id);
-				Debugger.Write("updated data into griefprevention_claimdata- ID:" + claim.getID() + " UUID:" + claim.getUUID().toString(), DebugLevel.Verbose);
+	private static String joinEntries(List<String> entries) {
+		StringBuilder joined = new StringBuilder();
+		for (int i = 0; i < entries.size(); i++) {
+			joined.append(entries.get(i)).append(';');
+		}
+		return joined.toString();
+	}
 
-			} else {
-				Statement statement = databaseConnection.createStatement();
-                String usefmt = "INSERT INTO griefprevention_claimdata (id,uid,parentuid,owner,lessercorner,greatercorner,builders,containers,accessors,managers,parentid,neverdelete) VALUES ('%s','%s','%s','%s','%s','%s','%s','%s','%s','%s','%s','%s');";
-                statement.execute(String.format(usefmt,
-                        String.valueOf(id),
-                        uidString,parentuidString,
-                        owner,
-                        lesserCornerString,greaterCornerString,
-                        buildersString,containersString,accessorsString,managersString,String.valueOf(parentId),(claim.neverdelete ? 1 : 0)
-                        ));
-
-				Debugger.Write("Successfully inserted data into griefprevention_claimdata- ID:" + claim.getID(), DebugLevel.Verbose);
-			}
-		} catch (SQLException e) {
+	// actually writes claim data to the database. All the claims go in one
+	// batch, and one transaction.
+	synchronized private void writeClaimData(List<Claim> claims) throws SQLException {
+		if (claims.isEmpty())
+			return;
+		ArrayList<Object[]> rows = new ArrayList<Object[]>(claims.size());
+		for (Claim claim : claims) {
+			rows.add(claimRow(claim));
+		}
 
-			GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
-			e.printStackTrace();
+		PooledConnection connection = this.connectionPool.take();
+		boolean broken = true;
+		try {
+			connection.connection.setAutoCommit(false);
+			try {
+				if (this.useUpserts) {
+					PreparedStatement upsert = connection.prepare(CLAIM_UPSERT);
+					for (Object[] row : rows) {
+						for (int i = 0; i < row.length; i++)
+							upsert.setObject(i + 1, row[i]);
+						upsert.addBatch();
+					}
+					upsert.executeBatch();
+				} else {
+					PreparedStatement update = connection.prepare(CLAIM_UPDATE);
+					for (Object[] row : rows) {
+						// id goes last, in the WHERE clause.
+						for (int i = 1; i < row.length; i++)
+							update.setObject(i, row[i]);
+						update.setObject(row.length, row[0]);
+						update.addBatch();
+					}
+					int[] updated = update.executeBatch();
+					PreparedStatement insert = null;
+					for (int r = 0; r < rows.size(); r++) {
+						if (r < updated.length && updated[r] != 0)
+							continue;
+						if (insert == null)
+							insert = connection.prepare(CLAIM_INSERT);
+						Object[] row = rows.get(r);
+						for (int i = 0; i < row.length; i++)
+							insert.setObject(i + 1, row[i]);
+						insert.addBatch();
+					}
+					if (insert != null)
+						insert.executeBatch();
+				}
+				connection.connection.commit();
+			} catch (SQLException e) {
+				try {
+					connection.connection.rollback();
+				} catch (SQLException e2) {
+				}
+				throw e;
+			} finally {
+				connection.connection.setAutoCommit(true);
+			}
+			broken = false;
+		} finally {
+			this.connectionPool.give(connection, broken);
 		}
+		if (Debugger.isEnabled(DebugLevel.Verbose))
+			Debugger.Write(DebugLevel.Verbose, "Saved %d rows into griefprevention_claimdata, starting with ID:%d", rows.size(), rows.get(0)[0]);
 	}
 
 	@Override
@@ -657,24 +894,47 @@ public class DatabaseDataStore extends DataStore {
 														// will ALWAYS be a top
 														// level claim
 	{
+		// the claim and its subdivisions
+		ArrayList<Claim> writing = new ArrayList<Claim>(1 + claim.children.size());
+		writing.add(claim);
+		writing.addAll(claim.children);
 		try {
-			this.refreshDataConnection();
-
-			// wipe out any existing data about this claim
-			// this.deleteClaimFromSecondaryStorage(claim);
-
-			// write top level claim data to the database
-			this.writeClaimData(claim);
+			this.writeClaimData(writing);
+		} catch (SQLException e) {
+			GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
+			e.printStackTrace();
+		}
+	}
 
-			// for each subdivision
-			for (int i = 0; i < claim.children.size(); i++) {
-				// write the subdivision's data to the database
-				this.writeClaimData(claim.children.get(i));
+	@Override
+	synchronized void saveClaims(Collection<Claim> claims) {
+		// subdivisions are saved with their parent, as by saveClaim().
+		LinkedHashSet<Claim> topLevel = new LinkedHashSet<Claim>();
+		for (Claim claim : claims) {
+			while (claim.parent != null)
+				claim = claim.parent;
+			topLevel.add(claim);
+		}
+		ArrayList<Claim> writing = new ArrayList<Claim>(topLevel.size());
+		for (Claim claim : topLevel) {
+			if (claim.id == null) {
+				claim.id = this.nextClaimID;
+				this.incrementNextClaimID();
 			}
+			writing.add(claim);
+			writing.addAll(claim.children);
+		}
+		try {
+			this.writeClaimData(writing);
 		} catch (SQLException e) {
-			GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
+			GriefPrevention.AddLogEntry("Unable to save data for " + topLevel.size() + " claims.  Details:");
 			e.printStackTrace();
 		}
 	}
 
+	@Override
+	synchronized public void saveClaimData() {
+		this.saveClaims(new ArrayList<Claim>(this.claims.claimmap.values()));
+	}
+
 }
@@ -42,6 +42,34 @@ public class Debugger {
 		 GriefPrevention.instance.debug.Output(Message, Level);
 	}
 
+	/**
+	 * writes a message built with String.format, formatting it only if the
+	 * level would be output. Hot paths should still check isEnabled() first
+	 * when the arguments themselves cost something to produce.
+	 * 
+	 * @param Level
+	 * @param format
+	 * @param args
+	 */
+	public static void Write(DebugLevel Level, String format, Object... args) {
+		if (isEnabled(Level))
+			GriefPrevention.instance.debug.Output(String.format(format, args), Level);
+	}
+
+	/**
+	 * returns whether messages of the given level are currently output, so
+	 * callers can skip building them.
+	 * 
+	 * @param Level
+	 * @return
+	 */
+	public static boolean isEnabled(DebugLevel Level) {
+		if (GriefPrevention.instance == null)
+			return false;
+		Debugger debug = GriefPrevention.instance.debug;
+		return debug != null && debug.outputs(Level);
+	}
+
 	private DebugLevel CurrentLevel;
 
 	public Debugger(DebugLevel DebuggingLevel) {
@@ -59,11 +87,13 @@ public class Debugger {
 	}
 
 	public void Output(String Message, DebugLevel Level) {
-        if (CurrentLevel == DebugLevel.None)
-			return;
-		if (CurrentLevel.applies(Level)) {
+		if (outputs(Level)) {
 			GriefPrevention.AddLogEntry("[" + Level.name() + "]:" + Message);
 		}
 	}
 
+	private boolean outputs(DebugLevel Level) {
+		return CurrentLevel != DebugLevel.None && CurrentLevel.applies(Level);
+	}
+
 }
@@ -130,7 +130,7 @@ class EntityEventHandler implements Listener {
 	// when an entity is damaged
 	@EventHandler(ignoreCancelled = true, priority = EventPriority.HIGHEST)
 	public void onEntityDamage(EntityDamageEvent event) {
-        Debugger.Write("onEntityDamage- " + event.getClass().getName() + "  instance:" + event.getEntity().getClass().getName(), Debugger.DebugLevel.Verbose);
+        Debugger.Write(Debugger.DebugLevel.Verbose, "onEntityDamage- %s  instance:%s", event.getClass().getName(), event.getEntity().getClass().getName());
 
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(event.getEntity().getWorld());
 		if (!wc.Enabled())
@@ -144,7 +144,7 @@ class EntityEventHandler implements Listener {
             EntityDamageByEntityEvent subEvent = (EntityDamageByEntityEvent) event;
                 Entity Damager = subEvent.getDamager();
                 if(Damager!=null){
-                    Debugger.Write("Damager instance:" + subEvent.getDamager().getClass().getName(), Debugger.DebugLevel.Verbose);
+                    Debugger.Write(Debugger.DebugLevel.Verbose, "Damager instance:%s", subEvent.getDamager().getClass().getName());
                 }
 
             if(!wc.getPvPEnabled()){
@@ -319,7 +319,7 @@ class EntityEventHandler implements Listener {
             }
 			// FEATURE: prevent pvp in the first minute after spawn, and prevent
 			// pvp when one or both players have no inventory
-            Debugger.Write("PVP Damage detected between " + ((Player)event.getEntity()).getName() + " And " + attacker.getName(),Debugger.DebugLevel.Verbose);
+            Debugger.Write(Debugger.DebugLevel.Verbose, "PVP Damage detected between %s And %s", ((Player)event.getEntity()).getName(), attacker.getName());
 			// doesn't apply when the attacker has the no pvp immunity
 			// permission
 
@@ -335,19 +335,19 @@ class EntityEventHandler implements Listener {
 			// otherwise if protecting spawning players
 			if (wc.getSpawnProtectEnabled() && !defender.hasPermission(PermNodes.NoPvPImmunityPermission)) {
 
-                Debugger.Write("Spawn Protection Enabled...", Debugger.DebugLevel.Verbose);
-                Debugger.Write("Defender PvPImmune=" + defenderData.pvpImmune, Debugger.DebugLevel.Verbose);
-                Debugger.Write("Attacker PvPImmune=" + attackerData.pvpImmune,Debugger.DebugLevel.Verbose);
+                Debugger.Write(Debugger.DebugLevel.Verbose, "Spawn Protection Enabled...");
+                Debugger.Write(Debugger.DebugLevel.Verbose, "Defender PvPImmune=%s", defenderData.pvpImmune);
+                Debugger.Write(Debugger.DebugLevel.Verbose, "Attacker PvPImmune=%s", attackerData.pvpImmune);
                 if(!defenderData.pvpImmune && attackerData.pvpImmune && wc.getSpawnProtectDisableonInstigate()){
                 //disable the attacker's pvp immunity.
-                    Debugger.Write("Disabling PVP immunity for attacking player," + attacker.getName(), Debugger.DebugLevel.Verbose);
+                    Debugger.Write(Debugger.DebugLevel.Verbose, "Disabling PVP immunity for attacking player,%s", attacker.getName());
 
                     attackerData.pvpImmune=false;
                 }
 
 				else{
                     if (defenderData.pvpImmune) {
-                        Debugger.Write("Defender is immune. Cancelling.",Debugger.DebugLevel.Verbose);
+                        Debugger.Write(Debugger.DebugLevel.Verbose, "Defender is immune. Cancelling.");
                         event.setCancelled(true);
                         CancelMMO((LivingEntity) event.getEntity());
                         GriefPrevention.sendMessage(attacker, TextMode.Err, Messages.ThatPlayerPvPImmune);
@@ -357,7 +357,7 @@ class EntityEventHandler implements Listener {
 
 				if (attackerData.pvpImmune) {
 					event.setCancelled(true);
-                    Debugger.Write("Attacker is immune. Cancelling.",Debugger.DebugLevel.Verbose);
+                    Debugger.Write(Debugger.DebugLevel.Verbose, "Attacker is immune. Cancelling.");
 					CancelMMO((LivingEntity) event.getEntity());
 					GriefPrevention.sendMessage(attacker, TextMode.Err, Messages.CantFightWhileImmune);
 					return;
@@ -669,7 +669,7 @@ class EntityEventHandler implements Listener {
         else
             preExplodeCheck = wc.getOtherExplosionBehaviour();
 
-        if (preExplodeCheck.Allowed(explodeEvent.getLocation(), null).Denied()) {
+        if (preExplodeCheck.Allowed(location, null, true, true, claimatEntity, null).Denied()) {
             //Debugger.Write("Explosion cancelled.", DebugLevel.Verbose);
             explodeEvent.setCancelled(true);
             explodeEvent.blockList().clear();
@@ -691,7 +691,23 @@ class EntityEventHandler implements Listener {
             usebehaviour = wc.getOtherExplosionBlockDamageBehaviour();
 
 
-        Claim claimpos = GriefPrevention.instance.dataStore.getClaimAt(explodeEvent.getLocation(),true);
+        Claim claimpos = claimatEntity;
+        // resolve the claims of every affected block in one go, rather than
+        // one lookup per block. blockClaims stays aligned with the original
+        // list; removed counts the blocks taken out of it so far. the claims
+        // are resolved ignoring height, as the block damage behaviour wants
+        // them; atHeight() gives the claim actually holding the block.
+        int[] xs = new int[blocks.size()];
+        int[] ys = new int[blocks.size()];
+        int[] zs = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            xs[i] = block.getX();
+            ys[i] = block.getY();
+            zs[i] = block.getZ();
+        }
+        Claim[] blockClaims = GriefPrevention.instance.dataStore.resolveClaims(location.getWorld(), xs, ys, zs, true);
+        int removed = 0;
         // //go through each block that was affected...
         for (int i = 0; i < blocks.size(); i++)
         {
@@ -699,28 +715,31 @@ class EntityEventHandler implements Listener {
 
 
             Block block = blocks.get(i);
-            Claim explodepos = GriefPrevention.instance.dataStore.getClaimAt(block.getLocation(),false);
+            Claim columnClaim = blockClaims[i + removed];
+            Claim explodepos = columnClaim == null ? null : columnClaim.atHeight(block.getY());
             if((explodepos!=null) && block.getState() instanceof InventoryHolder){
                 //System.out.println("Remove InventoryHolder item from explosion.");
                 blocks.remove(i--);
+                removed++;
                 continue;
             }
 
 
             if(explodepos!=null && explodepos.siegeData!=null){
                 //under siege...
-                Debugger.Write("Explosion Block in claim under siege.", Debugger.DebugLevel.Verbose);
+                Debugger.Write(Debugger.DebugLevel.Verbose, "Explosion Block in claim under siege.");
                 float gotpower=0;
                 //-1 is returned if it is not in that list.
                 if((i>0) && (-1==(gotpower=SiegeableData.getListPower(wc.getTNTSiegeBlocks(),block.getType())) ||
                         (gotpower > explodeEvent.getYield()))){
-                    Debugger.Write("cancelling:" + block.getType().name() + "Power=" + gotpower + " Yield:" + explodeEvent.getYield() + " i=" + i, Debugger.DebugLevel.Verbose);
+                    Debugger.Write(Debugger.DebugLevel.Verbose, "cancelling:%sPower=%s Yield:%s i=%s", block.getType().name(), gotpower, explodeEvent.getYield(), i);
                     //getListPower will return the power of the specified Material, or -1 if the material is
                     //not in the list. if it's not in the list, remove it; if the retrieved power is greater than the explosion events
                     //explosion yield, remove it.
 
                     //remove it.
                     blocks.remove(i--);
+                    removed++;
                     String usekey = GriefPrevention.getfriendlyLocationString(block.getLocation());
                     // if it already contains an entry, the block was broken
                     // during this siege
@@ -755,16 +774,18 @@ class EntityEventHandler implements Listener {
             }
             // creative rules stop all explosions, regardless of the other
             // settings.
-            if (wc.getDenyAllExplosions() || (usebehaviour != null && usebehaviour.Allowed(block.getLocation(), null).Denied())) {
+            if (wc.getDenyAllExplosions() || (usebehaviour != null && usebehaviour.Allowed(block.getLocation(), null, true, true, columnClaim, null).Denied())) {
                 // if not allowed. remove it...
                 blocks.remove(i--);
+                removed++;
                 continue;
             } else {
                 // it is allowed, however, if it is on a claim only allow if
                 // explosions are enabled for that claim.
-                claimpos = GriefPrevention.instance.dataStore.getClaimAt(block.getLocation(), false);
+                claimpos = explodepos;
                 if ( i>0 && claimpos != null && !claimpos.areExplosivesAllowed) {
                     blocks.remove(i--);
+                    removed++;
                 } else if (block.getType() == Material.LOG) {
                     GriefPrevention.instance.handleLogBroken(block);
                 }
@@ -795,7 +816,7 @@ class EntityEventHandler implements Listener {
 	 */
 	@EventHandler(ignoreCancelled = true, priority = EventPriority.NORMAL)
 	public void onEntityInteract(EntityInteractEvent event) {
-        Debugger.Write("onEntityInteract, instance:" + event.getEntity().getClass().getName(), Debugger.DebugLevel.Verbose);
+        Debugger.Write(Debugger.DebugLevel.Verbose, "onEntityInteract, instance:%s", event.getEntity().getClass().getName());
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(event.getEntity().getWorld());
 		if (!wc.Enabled())
 			return;
@@ -982,7 +1003,7 @@ class EntityEventHandler implements Listener {
 	@EventHandler(ignoreCancelled = true, priority = EventPriority.NORMAL)
 	public void onHangingBreak(HangingBreakEvent event) {
 		// FEATURE: claimed paintings are protected from breakage
-        Debugger.Write("onHangingBreak", Debugger.DebugLevel.Verbose);
+        Debugger.Write(Debugger.DebugLevel.Verbose, "onHangingBreak");
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(event.getEntity().getWorld());
 		if (!wc.Enabled())
 			return;
@@ -1160,7 +1181,7 @@ class EntityEventHandler implements Listener {
         Location placedpos = getAffectedLocation(event);
 
 
-        Debugger.Write("onpaintingPlace:" + event.getEntity().getClass().getName(),Debugger.DebugLevel.Verbose);
+        Debugger.Write(Debugger.DebugLevel.Verbose, "onpaintingPlace:%s", event.getEntity().getClass().getName());
 
 
 
@@ -1207,7 +1228,7 @@ class EntityEventHandler implements Listener {
 		if (!wc.Enabled())
 			return;
 		// all of this is anti theft code
-        Debugger.Write("Vehicle Damage, of " + event.getVehicle().getClass().getName(),Debugger.DebugLevel.Verbose);
+        Debugger.Write(Debugger.DebugLevel.Verbose, "Vehicle Damage, of %s", event.getVehicle().getClass().getName());
 		// determine which player is attacking, if any
 		Player attacker = null;
 		Entity damageSource = event.getAttacker();
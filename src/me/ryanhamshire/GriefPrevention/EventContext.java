@@ -0,0 +1,192 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.ArrayDeque;
+
+import me.ryanhamshire.GriefPrevention.Configuration.ClaimBehaviourData;
+import me.ryanhamshire.GriefPrevention.Configuration.ClaimBehaviourData.ClaimAllowanceConstants;
+import me.ryanhamshire.GriefPrevention.Configuration.WorldConfig;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+/**
+ * What an event handler has looked up so far about the position it is
+ * handling: the world configuration, the acting player's PlayerData, the claim
+ * there and the ClaimBehaviourData results already computed. The checks made
+ * while handling one event share it, so each of those is looked up once per
+ * event rather than once per check.
+ * <p>
+ * Contexts are pooled per thread. Get one with acquire() and hand it back
+ * with release() in a finally block; events can fire from inside handlers, so
+ * several may be in use at once.
+ */
+public final class EventContext {
+
+	// results remembered per context. handlers make a handful of checks, so a
+	// short array beats a map.
+	private static final int MAX_RESULTS = 8;
+
+	private static final ThreadLocal<ArrayDeque<EventContext>> pool = new ThreadLocal<ArrayDeque<EventContext>>() {
+		@Override
+		protected ArrayDeque<EventContext> initialValue() {
+			return new ArrayDeque<EventContext>();
+		}
+	};
+
+	/**
+	 * gets a context for a player acting on a block.
+	 *
+	 * @param player
+	 *            acting player; may be null.
+	 * @param block
+	 * @return
+	 */
+	public static EventContext acquire(Player player, Block block) {
+		return acquire(player, block.getLocation());
+	}
+
+	/**
+	 * gets a context for a player acting at a location.
+	 *
+	 * @param player
+	 *            acting player; may be null.
+	 * @param location
+	 * @return
+	 */
+	public static EventContext acquire(Player player, Location location) {
+		EventContext context = pool.get().pollFirst();
+		if (context == null)
+			context = new EventContext();
+		context.player = player;
+		context.location = location;
+		return context;
+	}
+
+	private Player player;
+	private Location location;
+	private WorldConfig worldConfig;
+	private PlayerData playerData;
+	private boolean claimResolved;
+	private Claim claim;
+
+	private final ClaimBehaviourData[] behaviours = new ClaimBehaviourData[MAX_RESULTS];
+	private final boolean[] forPlayer = new boolean[MAX_RESULTS];
+	private final boolean[] messagesShown = new boolean[MAX_RESULTS];
+	private final ClaimAllowanceConstants[] results = new ClaimAllowanceConstants[MAX_RESULTS];
+	private int resultCount;
+
+	private EventContext() {
+	}
+
+	/**
+	 * hands this context back to the pool. It must not be used afterwards.
+	 */
+	public void release() {
+		player = null;
+		location = null;
+		worldConfig = null;
+		playerData = null;
+		forgetClaims();
+		pool.get().offerFirst(this);
+	}
+
+	public Player getPlayer() {
+		return player;
+	}
+
+	public Location getLocation() {
+		return location;
+	}
+
+	public WorldConfig getWorldConfig() {
+		if (worldConfig == null)
+			worldConfig = GriefPrevention.instance.getWorldCfg(location.getWorld());
+		return worldConfig;
+	}
+
+	/**
+	 * retrieves the acting player's data.
+	 *
+	 * @return PlayerData, or null if there is no player.
+	 */
+	public PlayerData getPlayerData() {
+		if (playerData == null && player != null)
+			playerData = GriefPrevention.instance.dataStore.getPlayerData(player.getName());
+		return playerData;
+	}
+
+	/**
+	 * retrieves the claim at the location, as getClaimAt(location,
+	 * ignoreHeight) would.
+	 *
+	 * @param ignoreHeight
+	 * @return
+	 */
+	public Claim getClaim(boolean ignoreHeight) {
+		if (!claimResolved) {
+			claim = GriefPrevention.instance.dataStore.getClaimAt(location, true);
+			claimResolved = true;
+		}
+		if (ignoreHeight || claim == null)
+			return claim;
+		return claim.atHeight(location.getBlockY());
+	}
+
+	/**
+	 * checks a ClaimBehaviourData for the acting player at the location, or
+	 * reuses the result of an identical earlier check. A result computed
+	 * without messages is recomputed if messages are now wanted.
+	 *
+	 * @param behaviour
+	 * @param ShowMessages
+	 * @return
+	 */
+	public ClaimAllowanceConstants allowed(ClaimBehaviourData behaviour, boolean ShowMessages) {
+		return allowed(behaviour, true, ShowMessages);
+	}
+
+	/**
+	 * checks a ClaimBehaviourData at the location without a player, as
+	 * explosions and other world actions are.
+	 *
+	 * @param behaviour
+	 * @param ShowMessages
+	 * @return
+	 */
+	public ClaimAllowanceConstants allowedWithoutPlayer(ClaimBehaviourData behaviour, boolean ShowMessages) {
+		return allowed(behaviour, false, ShowMessages);
+	}
+
+	private ClaimAllowanceConstants allowed(ClaimBehaviourData behaviour, boolean withPlayer, boolean ShowMessages) {
+		for (int i = 0; i < resultCount; i++) {
+			if (behaviours[i] == behaviour && forPlayer[i] == withPlayer && (messagesShown[i] || !ShowMessages))
+				return results[i];
+		}
+		Player checkPlayer = withPlayer ? player : null;
+		ClaimAllowanceConstants result = behaviour.Allowed(location, checkPlayer, ShowMessages, true, getClaim(true), withPlayer ? getPlayerData() : null);
+		if (resultCount < MAX_RESULTS) {
+			behaviours[resultCount] = behaviour;
+			forPlayer[resultCount] = withPlayer;
+			messagesShown[resultCount] = ShowMessages;
+			results[resultCount] = result;
+			resultCount++;
+		}
+		return result;
+	}
+
+	/**
+	 * drops the resolved claim and every remembered result, for handlers that
+	 * create, resize or otherwise change claims partway through.
+	 */
+	public void forgetClaims() {
+		claimResolved = false;
+		claim = null;
+		for (int i = 0; i < resultCount; i++) {
+			behaviours[i] = null;
+			results[i] = null;
+		}
+		resultCount = 0;
+	}
+
+}
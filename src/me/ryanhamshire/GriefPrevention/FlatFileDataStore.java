@@ -23,6 +23,7 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
 import me.ryanhamshire.GriefPrevention.Claim;
@@ -30,7 +31,6 @@ import me.ryanhamshire.GriefPrevention.Debugger;
 import me.ryanhamshire.GriefPrevention.GriefPrevention;
 import me.ryanhamshire.GriefPrevention.PlayerData;
 import me.ryanhamshire.GriefPrevention.DataStore;
-import me.ryanhamshire.GriefPrevention.exceptions.WorldNotFoundException;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -539,30 +539,34 @@ public class FlatFileDataStore extends DataStore {
 		GriefPrevention.AddLogEntry("When you're satisfied that all your data have been safely migrated, consider deleting those folders.");
 	}
 
-	void readClaim(File SourceFile) {
+	/**
+	 * parses a claim file into a ClaimRecord. Only reads the file; safe to
+	 * run on a worker thread.
+	 * 
+	 * @param SourceFile
+	 *            claim file to read.
+	 * @param worldName
+	 *            only claims in this world are parsed. null for any world.
+	 * @return the record, or null if the claim is in another world or
+	 *         couldn't be read.
+	 */
+	ClaimRecord parseClaimFile(File SourceFile, String worldName) {
         Debugger.Write("Reading claim from " + SourceFile.getPath(), Debugger.DebugLevel.Verbose);
 		// reads a single Claim.
-		// loads this claim from the given file.
-		if (SourceFile.getPath().startsWith("_"))
-			return;
 		Long claimID;
 		try {
 			claimID = Long.parseLong(SourceFile.getName());
 		}
 
 		// because some older versions used a different file name pattern before
-		// claim IDs were introduced,
-		// those files need to be "converted" by renaming them to a unique ID
+		// claim IDs were introduced, those files need to be "converted" by
+		// renaming them to a unique ID. that is left to the loading thread.
 		catch (Exception e) {
-			claimID = this.nextClaimID;
-			this.incrementNextClaimID();
-			File newFile = new File(claimDataFolderPath + File.separator + String.valueOf(this.nextClaimID));
-			SourceFile.renameTo(newFile);
-			SourceFile = newFile;
+			claimID = null;
 		}
 		BufferedReader inStream = null;
+		ClaimRecord topLevelClaim = null;
 		try {
-			Claim topLevelClaim = null;
 			FileReader fr = new FileReader(SourceFile.getAbsolutePath());
 			inStream = new BufferedReader(fr);
 			String line = inStream.readLine();
@@ -588,128 +592,93 @@ public class FlatFileDataStore extends DataStore {
                     grabUID=null;
                 }
 
+				// the top level claim's lesser corner tells us the world; skip
+				// claims in worlds other than the one being loaded.
+				if (topLevelClaim == null && worldName != null && !worldName.equals(ClaimRecord.worldOf(line))) {
+					return null;
+				}
+
+				ClaimRecord record = new ClaimRecord();
+				record.uuid = grabUID;
+				record.needsSave = grabUID == null;
+				record.source = SourceFile;
+				record.modifiedDate = new Date(SourceFile.lastModified());
 
 				// first line is lesser boundary corner location
-				String splitentry = line.split(";")[0];
-				// if the world doesn't exist yet, we need to create a
-				// DeferredWorldClaim instance and
-				// add it to the dataStore hashMap.
-				Location lesserBoundaryCorner = null;
-				Location greaterBoundaryCorner = null;
-				lesserBoundaryCorner = this.locationFromString(line);
+				String lesserCorner = line;
 				// second line is greater boundary corner location
 				line = inStream.readLine();
-				greaterBoundaryCorner = this.locationFromString(line);
+				record.setCorners(lesserCorner, line);
 
 				// third line is owner name
 				line = inStream.readLine();
 				String ownerName = line;
+				record.ownerName = ownerName;
 
 				// is there PlayerData for this gai?
 
 				if (!hasPlayerData(ownerName) && GriefPrevention.instance.config_claims_deleteclaimswithunrecognizedowners) {
 					// PlayerData not found, don't load this claim.
 					GriefPrevention.AddLogEntry("discarded Claim belonging to " + ownerName + " Because there is no PlayerData for that Player.");
-					return;
+					return null;
 				}
 
 				// fourth line is list of builders
 				line = inStream.readLine();
-				String[] builderNames = line.split(";");
+				record.builders = line.split(";");
 
 				// fifth line is list of players who can access containers
 				line = inStream.readLine();
-				String[] containerNames = line.split(";");
+				record.containers = line.split(";");
 
 				// sixth line is list of players who can use buttons and
 				// switches
 				line = inStream.readLine();
-				String[] accessorNames = line.split(";");
+				record.accessors = line.split(";");
 
 				// seventh line is list of players who can grant permissions
 				line = inStream.readLine();
 				if (line == null)
 					line = "";
-				String[] managerNames = line.split(";");
+				record.managers = line.split(";");
 
 				// Eighth line either contains whether the claim can ever be
 				// deleted, or the divider for the subclaims
-				boolean neverdelete = false;
 				line = inStream.readLine();
 				if (line == null)
 					line = "";
 				if (!line.contains("==========")) {
-					neverdelete = Boolean.parseBoolean(line);
+					record.neverdelete = Boolean.parseBoolean(line);
 				}
 
 				// Sub claims below this line
 				while (line != null && !line.contains("=========="))
 					line = inStream.readLine();
 
-				// build a claim instance from those data
-				// if this is the first claim loaded from this file, it's the
+				// if this is the first claim read from this file, it's the
 				// top level claim
-
 				if (topLevelClaim == null) {
-					// instantiate
-					topLevelClaim = new Claim(lesserBoundaryCorner, greaterBoundaryCorner, ownerName, builderNames, containerNames, accessorNames, managerNames, claimID, neverdelete);
-                    topLevelClaim.setUUID(grabUID);
-					// search for another claim overlapping this one
-
-					Claim conflictClaim = this.getClaimAt(topLevelClaim.lesserBoundaryCorner, true);
-
-					// if there is such a claim, delete this file and move on to
-					// the next
-					if (conflictClaim != null) {
-						// System.out.println("Deleting Claim File:" +
-						// SourceFile.getAbsolutePath() +
-						// " as it is overlapped by ID #" +
-						// conflictClaim.getID());
-						inStream.close();
-						SourceFile.delete();
-						line = null;
-						continue;
-					}
-
-					// otherwise, add this claim to the claims collection
-					else {
-						topLevelClaim.modifiedDate = new Date(SourceFile.lastModified());
-
-						addClaim(topLevelClaim);
-
-						topLevelClaim.inDataStore = true;
-					}
+					record.id = claimID;
+					topLevelClaim = record;
 				}
 
 				// otherwise there's already a top level claim, so this must be
 				// a subdivision of that top level claim
 				else {
-
 					// if it starts with "sub:" then it is a subid.
-
 					// as such, try to read in the subclaim ID.
-
-					Claim subdivision = new Claim(lesserBoundaryCorner, greaterBoundaryCorner,topLevelClaim.getOwnerName() , builderNames, containerNames, accessorNames, managerNames, claimID, neverdelete);
-                    subdivision.setUUID(grabUID);
-                    try {subdivision.id = Long.parseLong(subclaimtext);}
+                    try {record.id = Long.parseLong(subclaimtext);}
                     catch(NumberFormatException nfe){
-                        subdivision.id=new Long(-1);
+                        record.id=new Long(-1);
                     }
-					subdivision.modifiedDate = new Date(SourceFile.lastModified());
-					subdivision.parent = topLevelClaim;
-					topLevelClaim.children.add(subdivision);
-					subdivision.inDataStore = true;
+					record.worldName = topLevelClaim.worldName;
+					topLevelClaim.children.add(record);
+					topLevelClaim.needsSave |= record.needsSave;
 				}
 
 				// move up to the first line in the next subdivision
 				line = inStream.readLine();
 			}
-
-			inStream.close();
-		}
-		// We don't need to log any additional error messages for this error.
-		catch (WorldNotFoundException e) {
-			// Nothing to do here.
 		}
 
 		// if there's any problem with the file's content, log an error message
@@ -717,6 +686,7 @@ public class FlatFileDataStore extends DataStore {
 		catch (Exception e) {
 			GriefPrevention.AddLogEntry("Unable to load data for claim \"" + SourceFile.getName() + "\": " + e.getClass().getName() + "-" + e.getMessage());
 			e.printStackTrace();
+			topLevelClaim = null;
 		}
 
 		try {
@@ -727,7 +697,7 @@ public class FlatFileDataStore extends DataStore {
             Debugger.Write("Exception reading claim. ", Debugger.DebugLevel.Verbose);
             Debugger.Write(exception, Debugger.DebugLevel.Verbose);
 		}
-
+		return topLevelClaim;
 	}
 
 	// grants a group (players with a specific permission) bonus claim blocks as
@@ -853,18 +823,44 @@ public class FlatFileDataStore extends DataStore {
 	@Override
 	void WorldLoaded(World loaded) {
 
-		int claimsread = 0;
+		// parse every claim file in parallel; the ones in other worlds are
+		// dropped as soon as their first corner has been read.
 		File claimDataFolder = new File(claimDataFolderPath);
 		File[] files = claimDataFolder.listFiles();
-		for (File iterate : files) {
-
-			if (getClaimWorld(iterate).equals(loaded.getName())) {
-				claimsread++;
-				readClaim(iterate);
+		if (files == null)
+			return;
+		final String worldName = loaded.getName();
+		List<Callable<ClaimRecord>> tasks = new ArrayList<Callable<ClaimRecord>>(files.length);
+		for (final File iterate : files) {
+			// skip folders, and the _nextClaimID file.
+			if (!iterate.isFile() || iterate.getName().startsWith("_"))
+				continue;
+			tasks.add(new Callable<ClaimRecord>() {
+				public ClaimRecord call() {
+					return parseClaimFile(iterate, worldName);
+				}
+			});
+		}
+		List<ClaimRecord> records = parseInParallel(tasks);
+
+		// files from older versions are renamed to a new claim ID. done here,
+		// in file order, since it hands out IDs.
+		for (ClaimRecord record : records) {
+			if (record.id == null) {
+				record.id = this.nextClaimID;
+				this.incrementNextClaimID();
+				File newFile = new File(claimDataFolderPath + File.separator + String.valueOf(record.id));
+				record.source.renameTo(newFile);
+				record.source = newFile;
+				record.needsSave = true;
 			}
+		}
 
+		// a claim overlapped by one loaded before it is deleted.
+		for (ClaimRecord rejected : addLoadedClaims(records)) {
+			rejected.source.delete();
 		}
-        Debugger.Write("Read in " + claimsread + " Claims for world:" + loaded.getName(), Debugger.DebugLevel.Verbose);
+        Debugger.Write("Read in " + records.size() + " Claims for world:" + loaded.getName(), Debugger.DebugLevel.Verbose);
 		// System.out.println("Read in " + claimsread + " Claims for world:" +
 		// loaded.getName());
 
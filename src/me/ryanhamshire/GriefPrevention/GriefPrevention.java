@@ -38,6 +38,7 @@ import me.ryanhamshire.GriefPrevention.events.GPUnloadEvent;
 import me.ryanhamshire.GriefPrevention.tasks.DeliverClaimBlocksTask;
 import me.ryanhamshire.GriefPrevention.tasks.EntityCleanupTask;
 import me.ryanhamshire.GriefPrevention.tasks.RestoreNatureProcessingTask;
+import me.ryanhamshire.GriefPrevention.tasks.SaveDirtyDataTask;
 import me.ryanhamshire.GriefPrevention.tasks.SendPlayerMessageTask;
 import me.ryanhamshire.GriefPrevention.tasks.TreeCleanupTask;
 import net.milkbowl.vault.economy.Economy;
@@ -252,11 +253,13 @@ public class GriefPrevention extends JavaPlugin {
 
 	public PlayerGroups config_player_groups = null;
 
-	private String config_Storage_Kind; // currently supported:flat and mysql.
+	private String config_Storage_Kind; // currently supported:flat, yaml, journal and mysql.
+	private boolean config_Storage_WriteBehind; // whether saves are written on a separate thread.
 
 	
 	
-	public ConfigData Configuration = null;
+	// replaced as a whole on reload.
+	public volatile ConfigData Configuration = null;
 
 	// this handles data storage, like player and region data
 	public DataStore dataStore;
@@ -281,15 +284,34 @@ public class GriefPrevention extends JavaPlugin {
         return allowBreak(player,location,true);
     }
 	public String allowBreak(Player player, Location location,boolean ShowMessages) {
-		PlayerData playerData = this.dataStore.getPlayerData(player.getName());
-		Claim claim = this.dataStore.getClaimAt(location, false);
-		WorldConfig wc = GriefPrevention.instance.getWorldCfg(player.getWorld());
+		EventContext context = EventContext.acquire(player, location);
+		try {
+			return allowBreak(context, ShowMessages);
+		} finally {
+			context.release();
+		}
+	}
+
+	/**
+	 * break permission check for the player and location of an event
+	 * context, reusing whatever the handler has already looked up.
+	 * 
+	 * @param context
+	 * @param ShowMessages
+	 * @return null if allowed, otherwise the reason.
+	 */
+	public String allowBreak(EventContext context, boolean ShowMessages) {
+		Player player = context.getPlayer();
+		Location location = context.getLocation();
+		PlayerData playerData = context.getPlayerData();
+		Claim claim = context.getClaim(false);
+		WorldConfig wc = context.getWorldConfig();
 		// exception: administrators in ignore claims mode, and special player
 		// accounts created by server mods
         ClaimBehaviourData cbd = null;
         if(null!=(cbd =wc.getBlockBreakOverrides().getBehaviourforBlock(location.getBlock()))){
             ClaimBehaviourData.ClaimAllowanceConstants cac;
-            if((cac=cbd.Allowed(location,player,ShowMessages)).Allowed()){
+            if((cac=context.allowed(cbd,ShowMessages)).Allowed()){
                 return null;
             }
             else if(cac== ClaimBehaviourData.ClaimAllowanceConstants.Deny_Forced){
@@ -333,16 +355,34 @@ public class GriefPrevention extends JavaPlugin {
 	}
 
 	public String allowBuild(Player player, Location location) {
-		PlayerData playerData = this.dataStore.getPlayerData(player.getName());
-		Claim claim = this.dataStore.getClaimAt(location, false);
-		WorldConfig wc = GriefPrevention.instance.getWorldCfg(player.getWorld());
+		EventContext context = EventContext.acquire(player, location);
+		try {
+			return allowBuild(context);
+		} finally {
+			context.release();
+		}
+	}
+
+	/**
+	 * build permission check for the player and location of an event
+	 * context, reusing whatever the handler has already looked up.
+	 * 
+	 * @param context
+	 * @return null if allowed, otherwise the reason.
+	 */
+	public String allowBuild(EventContext context) {
+		Player player = context.getPlayer();
+		Location location = context.getLocation();
+		PlayerData playerData = context.getPlayerData();
+		Claim claim = context.getClaim(false);
+		WorldConfig wc = context.getWorldConfig();
 		// exception: administrators in ignore claims mode and special player
 		// accounts created by server mods
 		if (playerData.ignoreClaims || wc.getModsIgnoreClaimsAccounts().contains(player.getName()))
 			return null;
         ClaimBehaviourData cbd;
         if(null!=(cbd=wc.getBlockPlaceOverrides().getBehaviourforBlock(location.getBlock()))){
-            if(cbd.Allowed(location,player,true).Denied()){
+            if(context.allowed(cbd,true).Denied()){
                 return "";
             }
         }
@@ -800,7 +840,7 @@ public class GriefPrevention extends JavaPlugin {
 		Bukkit.getScheduler().cancelTasks(this);
         ClaimTask = null;
 		GriefPrevention.AddLogEntry("GriefPrevention is being Disabled.");
-		if(dataStore!=null) this.dataStore.saveClaimData();
+		// claims are saved as their worlds unload below, or by close().
 
 		GPUnloadEvent uevent = new GPUnloadEvent(this);
 		Bukkit.getPluginManager().callEvent(uevent);
@@ -874,10 +914,17 @@ public class GriefPrevention extends JavaPlugin {
 		// load player groups.
 		// System.out.println("reading player groups...");
 		this.config_player_groups = new PlayerGroups(config, "GriefPrevention.Groups");
+		// cached permission results may depend on the old groups.
+		if (this.dataStore != null) {
+			this.dataStore.permissionCache.clear();
+			this.dataStore.clearGroupBonusBlocksCache();
+		}
 		this.config_player_groups.Save(outConfig, "GriefPrevention.Groups");
 		// optional database settings
 		this.config_Storage_Kind = config.getString("GriefPrevention.DataStore", "flat");
 		outConfig.set("GriefPrevention.DataStore", config_Storage_Kind);
+		this.config_Storage_WriteBehind = config.getBoolean("GriefPrevention.DataStoreWriteBehind", false);
+		outConfig.set("GriefPrevention.DataStoreWriteBehind", config_Storage_WriteBehind);
 		String usestoragedata = DataStore.dataLayerFolderPath + File.separator + "dataconfig.yml";
 
 		GriefPrevention.AddLogEntry("Reading dataconfiguration from " + usestoragedata);
@@ -990,7 +1037,7 @@ public class GriefPrevention extends JavaPlugin {
 			}
 		}
         else {
-            Class[] StoreClasses = new Class[]{FlatFileDataStore.class,YamlDataStore.class};
+            Class[] StoreClasses = new Class[]{FlatFileDataStore.class,YamlDataStore.class,JournalDataStore.class};
             boolean foundstore = false;
             for(Class lookclass:StoreClasses){
                 try {
@@ -1023,6 +1070,12 @@ public class GriefPrevention extends JavaPlugin {
 
 
         }
+		// write claim and player data on a background thread, if configured.
+		if (this.dataStore != null && this.config_Storage_WriteBehind) {
+			this.dataStore = new ThreadedDataStore(this.dataStore);
+		}
+		// write out changes that were left to be saved together.
+		this.getServer().getScheduler().scheduleSyncRepeatingTask(this, new SaveDirtyDataTask(), DataStore.DIRTY_SAVE_INTERVAL, DataStore.DIRTY_SAVE_INTERVAL);
 
         //start the command handler.
         cmdHandler = new CommandHandler();
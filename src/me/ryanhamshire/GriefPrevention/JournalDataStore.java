@@ -0,0 +1,787 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import me.ryanhamshire.GriefPrevention.Debugger.DebugLevel;
+
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * Keeps claims and player data in two files instead of one file per claim
+ * and per player: a snapshot, holding everything as of the last compaction
+ * sorted by claim ID and player name, and a journal that every change since
+ * is appended to. Startup reads the snapshot and then the journal, front to
+ * back.
+ * <p>
+ * Each entry is framed by its length and a CRC32 of its contents, so a
+ * journal cut short by a crash is noticed and trimmed back to its last
+ * complete entry. Changes are written to the journal as they're made; a
+ * background thread syncs it to disk every CommitIntervalMilliseconds, so
+ * one sync covers every change made in between. Once the journal grows past
+ * CompactionThresholdKB it is folded into a new snapshot and started over.
+ * <p>
+ * Entries hold the whole current state of a claim or player, so replaying
+ * one twice does no harm; that is what makes an interrupted compaction safe
+ * to pick up after.
+ */
+public class JournalDataStore extends DataStore {
+	public static String ConfigDescriptor = "journal";
+
+	public final static String journalFolderPath = dataLayerFolderPath + File.separator + "Journal";
+	private final static String snapshotFilePath = journalFolderPath + File.separator + "data.snapshot";
+	// a snapshot being written. Complete once the old snapshot is gone.
+	private final static String newSnapshotFilePath = snapshotFilePath + ".new";
+	private final static String journalFilePath = journalFolderPath + File.separator + "data.journal";
+	// the journal being compacted; only left behind if compaction stopped
+	// partway.
+	private final static String oldJournalFilePath = journalFolderPath + File.separator + "data.journal.old";
+
+	private final static String COMMIT_INTERVAL_PATH = "CommitIntervalMilliseconds";
+	private final static String COMPACTION_THRESHOLD_PATH = "CompactionThresholdKB";
+
+	// how long to wait before trying again after a compaction failed.
+	private static final long COMPACTION_RETRY_DELAY = 60000L;
+
+	// entry types, the first byte of each entry.
+	private static final byte CLAIM = 1;
+	private static final byte CLAIM_DELETE = 2;
+	private static final byte PLAYER = 3;
+	private static final byte PLAYER_DELETE = 4;
+	private static final byte GROUP = 5;
+	private static final byte NEXT_CLAIM_ID = 6;
+
+	// an entry claiming to be longer than this is taken as corruption.
+	private static final int MAX_ENTRY_LENGTH = 16 * 1024 * 1024;
+
+	// the latest entry for every claim and player, as written to the journal.
+	// compaction writes these out as they are.
+	private final TreeMap<Long, byte[]> claimEntries = new TreeMap<Long, byte[]>();
+	private final TreeMap<String, byte[]> playerEntries = new TreeMap<String, byte[]>();
+	private final TreeMap<String, Integer> groupBonusBlocks = new TreeMap<String, Integer>();
+
+	private long commitInterval;
+	private long compactionThreshold;
+
+	private FileOutputStream journalStream;
+	private FileChannel journal;
+	private long journalLength;
+	// no compaction is tried before this, after one failed.
+	private long compactionRetryAt = 0;
+	// whether anything was appended since the last sync.
+	private volatile boolean unsynced = false;
+	private volatile Thread committer = null;
+	// wakes the committer early, so close() needn't wait out an interval.
+	private final Object commitSignal = new Object();
+
+	private static FileConfiguration getSourceCfg() {
+		File f = new File(DataStore.dataLayerFolderPath + File.separator + "journal.yml");
+		YamlConfiguration config;
+		if (f.exists()) {
+			config = YamlConfiguration.loadConfiguration(f);
+		} else {
+			config = new YamlConfiguration();
+		}
+		if (!config.isSet(COMMIT_INTERVAL_PATH) || !config.isSet(COMPACTION_THRESHOLD_PATH)) {
+			if (!config.isSet(COMMIT_INTERVAL_PATH))
+				config.set(COMMIT_INTERVAL_PATH, 1000);
+			if (!config.isSet(COMPACTION_THRESHOLD_PATH))
+				config.set(COMPACTION_THRESHOLD_PATH, 8192);
+			try {
+				config.save(f);
+			} catch (IOException ex) {
+				Debugger.Write("Failed to create DataStore configuration file.", Debugger.DebugLevel.Errors);
+			}
+		}
+		return config;
+	}
+
+	private static FileConfiguration getTargetCfg() {
+		return new YamlConfiguration();
+	}
+
+	public JournalDataStore() throws Exception {
+		this(getSourceCfg(), getTargetCfg());
+	}
+
+	public JournalDataStore(FileConfiguration Source, FileConfiguration Target) throws Exception {
+		this.initialize(Source, Target);
+	}
+
+	@Override
+	void initialize(ConfigurationSection Source, ConfigurationSection Target) throws Exception {
+		this.commitInterval = Math.max(10, Source.getLong(COMMIT_INTERVAL_PATH, 1000));
+		this.compactionThreshold = Math.max(64, Source.getLong(COMPACTION_THRESHOLD_PATH, 8192)) * 1024;
+		Target.set(COMMIT_INTERVAL_PATH, this.commitInterval);
+		Target.set(COMPACTION_THRESHOLD_PATH, this.compactionThreshold / 1024);
+
+		new File(journalFolderPath).mkdirs();
+		File snapshotFile = new File(snapshotFilePath);
+		File journalFile = new File(journalFilePath);
+		File oldJournalFile = new File(oldJournalFilePath);
+		File newSnapshotFile = new File(newSnapshotFilePath);
+		// the old snapshot was deleted to make way for the new one, which
+		// never got renamed into place.
+		if (!snapshotFile.exists() && newSnapshotFile.exists())
+			replaceFile(newSnapshotFile, snapshotFile);
+		boolean importFlatFiles = !snapshotFile.exists() && !journalFile.exists() && !oldJournalFile.exists() && FlatFileDataStore.hasData();
+
+		// the snapshot, then whatever was appended since.
+		long started = System.currentTimeMillis();
+		int entries = replay(snapshotFile, false);
+		if (oldJournalFile.exists())
+			entries += replay(oldJournalFile, false);
+		entries += replay(journalFile, true);
+		GriefPrevention.AddLogEntry("Read " + entries + " journal entries (" + claimEntries.size() + " claims, " + playerEntries.size() + " players) in " + (System.currentTimeMillis() - started) + "ms.");
+
+		// a compaction was cut short. everything read above goes into a new
+		// snapshot before either journal can be let go of.
+		if (oldJournalFile.exists()) {
+			writeSnapshot(this.nextClaimID, this.claimEntries.values(), this.playerEntries.values(), this.groupBonusBlocks);
+			oldJournalFile.delete();
+			new FileOutputStream(journalFile).close();
+		}
+
+		this.openJournal();
+
+		this.permissionToBonusBlocksMap = getAllGroupBonusBlocks();
+
+		if (importFlatFiles)
+			importFlatFiles();
+
+		this.committer = new Thread(new Runnable() {
+			public void run() {
+				commitRoutine();
+			}
+		}, "GriefPrevention journal");
+		this.committer.setDaemon(true);
+		this.committer.start();
+
+		super.initialize(Source, Target);
+	}
+
+	@Override
+	void close() {
+		super.close();
+
+		Thread stopping = this.committer;
+		this.committer = null;
+		if (stopping != null) {
+			// not interrupted; that would close the journal's channel under it.
+			synchronized (this.commitSignal) {
+				this.commitSignal.notifyAll();
+			}
+			boolean interrupted = false;
+			while (stopping.isAlive()) {
+				try {
+					stopping.join();
+				} catch (InterruptedException exx) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+
+		synchronized (this) {
+			this.sync();
+			try {
+				if (this.journalStream != null)
+					this.journalStream.close();
+			} catch (IOException exception) {
+			}
+			this.journalStream = null;
+			this.journal = null;
+		}
+	}
+
+	// syncs the journal every commitInterval, and compacts it once it's grown
+	// large enough.
+	private void commitRoutine() {
+		while (true) {
+			try {
+				synchronized (this.commitSignal) {
+					if (this.committer == Thread.currentThread())
+						this.commitSignal.wait(this.commitInterval);
+				}
+			} catch (InterruptedException exx) {
+			}
+			// close() syncs on its own once we're gone.
+			if (this.committer != Thread.currentThread())
+				return;
+			if (this.unsynced)
+				this.sync();
+			long now = System.currentTimeMillis();
+			if (now >= this.compactionRetryAt && (this.journal == null || this.journalLength > this.compactionThreshold)) {
+				try {
+					this.compact();
+				} catch (Throwable exx) {
+					GriefPrevention.AddLogEntry("Unable to compact the data journal, trying again in " + COMPACTION_RETRY_DELAY / 1000 + " seconds: " + exx);
+					exx.printStackTrace();
+					this.compactionRetryAt = now + COMPACTION_RETRY_DELAY;
+				}
+			}
+		}
+	}
+
+	// forces everything appended so far out to disk.
+	private void sync() {
+		FileChannel syncing = this.journal;
+		if (syncing == null)
+			return;
+		this.unsynced = false;
+		try {
+			syncing.force(false);
+		} catch (IOException e) {
+			this.unsynced = true;
+			GriefPrevention.AddLogEntry("Unable to sync the data journal to disk: " + e.getMessage());
+		}
+	}
+
+	// opens the journal for appending, after whatever it holds already.
+	private void openJournal() throws IOException {
+		this.journalStream = new FileOutputStream(journalFilePath, true);
+		this.journal = this.journalStream.getChannel();
+		this.journalLength = this.journal.size();
+	}
+
+	// writes the current state out as a new snapshot, and starts the journal
+	// over.
+	private void compact() throws IOException {
+		long started = System.currentTimeMillis();
+		long nextID;
+		ArrayList<byte[]> claimsCopy;
+		ArrayList<byte[]> playersCopy;
+		TreeMap<String, Integer> groupsCopy;
+		File oldJournalFile = new File(oldJournalFilePath);
+		synchronized (this) {
+			// reopening it failed after an earlier compaction.
+			if (this.journal == null)
+				this.openJournal();
+			// the old journal has to be complete on disk before the snapshot
+			// replaces anything.
+			this.journal.force(false);
+			this.unsynced = false;
+			// an earlier compaction failed after setting the journal aside. It
+			// can't be replaced before it's in a snapshot, so this time the
+			// journal stays as it is; replaying it over the newer snapshot does
+			// no harm.
+			if (!oldJournalFile.exists()) {
+				FileOutputStream closing = this.journalStream;
+				this.journalStream = null;
+				this.journal = null;
+				try {
+					closing.close();
+					replaceFile(new File(journalFilePath), oldJournalFile);
+				} finally {
+					// a new journal if it was set aside, the same one if not.
+					this.openJournal();
+				}
+			}
+
+			// everything in the old journal, and nothing after it.
+			nextID = this.nextClaimID;
+			claimsCopy = new ArrayList<byte[]>(this.claimEntries.values());
+			playersCopy = new ArrayList<byte[]>(this.playerEntries.values());
+			groupsCopy = new TreeMap<String, Integer>(this.groupBonusBlocks);
+		}
+
+		long written = writeSnapshot(nextID, claimsCopy, playersCopy, groupsCopy);
+		oldJournalFile.delete();
+		Debugger.Write(DebugLevel.Informational, "Compacted the data journal into a %d KB snapshot in %dms.", written / 1024, System.currentTimeMillis() - started);
+	}
+
+	// writes a new snapshot, sorted by claim ID and then player name, and
+	// swaps it in for the old one. Returns its length.
+	private static long writeSnapshot(long nextID, Collection<byte[]> claims, Collection<byte[]> players, Map<String, Integer> groups) throws IOException {
+		File snapshotFile = new File(snapshotFilePath);
+		File newSnapshotFile = new File(newSnapshotFilePath);
+		FileOutputStream snapshotOut = new FileOutputStream(newSnapshotFile);
+		try {
+			BufferedOutputStream outStream = new BufferedOutputStream(snapshotOut, 64 * 1024);
+			outStream.write(frame(nextClaimIDEntry(nextID)));
+			for (Map.Entry<String, Integer> group : groups.entrySet())
+				outStream.write(frame(groupEntry(group.getKey(), group.getValue())));
+			for (byte[] entry : claims)
+				outStream.write(frame(entry));
+			for (byte[] entry : players)
+				outStream.write(frame(entry));
+			outStream.flush();
+			snapshotOut.getFD().sync();
+		} finally {
+			snapshotOut.close();
+		}
+		long written = newSnapshotFile.length();
+		replaceFile(newSnapshotFile, snapshotFile);
+		return written;
+	}
+
+	// renames a file over another. Where renameTo can't replace an existing
+	// file, the target is deleted first; startup finishes the job if that's
+	// cut short.
+	private static void replaceFile(File from, File to) throws IOException {
+		if (from.renameTo(to))
+			return;
+		if (to.exists() && !to.delete())
+			throw new IOException("Unable to delete " + to.getPath());
+		if (!from.renameTo(to))
+			throw new IOException("Unable to rename " + from.getPath() + " to " + to.getPath());
+	}
+
+	// reads a snapshot or journal front to back, applying each entry. Reading
+	// stops at the first entry that's incomplete or fails its checksum; if
+	// trim is set, the file is cut back to just before it.
+	private int replay(File file, boolean trim) throws IOException {
+		if (!file.exists())
+			return 0;
+		int count = 0;
+		long goodLength = 0;
+		DataInputStream inStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+		try {
+			CRC32 crc = new CRC32();
+			while (true) {
+				int length;
+				try {
+					length = inStream.readInt();
+				} catch (EOFException eof) {
+					break;
+				}
+				try {
+					int checksum = inStream.readInt();
+					if (length <= 0 || length > MAX_ENTRY_LENGTH)
+						throw new IOException("bad entry length " + length);
+					byte[] entry = new byte[length];
+					inStream.readFully(entry);
+					crc.reset();
+					crc.update(entry, 0, length);
+					if ((int) crc.getValue() != checksum)
+						throw new IOException("checksum mismatch");
+					this.apply(entry);
+				} catch (IOException e) {
+					GriefPrevention.AddLogEntry("Ignoring the end of " + file.getName() + " from byte " + goodLength + " on, which couldn't be read: " + e.getMessage());
+					break;
+				}
+				goodLength += 8 + length;
+				count++;
+			}
+		} finally {
+			inStream.close();
+		}
+		if (trim && goodLength < file.length()) {
+			RandomAccessFile trimming = new RandomAccessFile(file, "rw");
+			try {
+				trimming.setLength(goodLength);
+			} finally {
+				trimming.close();
+			}
+		}
+		return count;
+	}
+
+	// updates the in-memory state from one entry.
+	private void apply(byte[] entry) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+		byte type = in.readByte();
+		switch (type) {
+		case CLAIM:
+			claimEntries.put(in.readLong(), entry);
+			break;
+		case CLAIM_DELETE:
+			claimEntries.remove(in.readLong());
+			break;
+		case PLAYER:
+			playerEntries.put(in.readUTF(), entry);
+			break;
+		case PLAYER_DELETE:
+			playerEntries.remove(in.readUTF());
+			break;
+		case GROUP:
+			String groupName = in.readUTF();
+			groupBonusBlocks.put(groupName, in.readInt());
+			break;
+		case NEXT_CLAIM_ID:
+			this.nextClaimID = in.readLong();
+			break;
+		default:
+			throw new IOException("unknown entry type " + type);
+		}
+	}
+
+	// applies an entry and appends it to the journal.
+	private synchronized void append(byte[] entry) {
+		try {
+			this.apply(entry);
+		} catch (IOException e) {
+			// our own entries always parse.
+			throw new IllegalStateException(e);
+		}
+		if (this.journal == null) {
+			GriefPrevention.AddLogEntry("Unable to write to the data journal, as it's closed.");
+			return;
+		}
+		byte[] framed = frame(entry);
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(framed);
+			while (buffer.hasRemaining())
+				this.journal.write(buffer);
+			this.journalLength += framed.length;
+			this.unsynced = true;
+		} catch (IOException e) {
+			GriefPrevention.AddLogEntry("Unable to write to the data journal: " + e.getMessage());
+		}
+	}
+
+	private static byte[] frame(byte[] entry) {
+		CRC32 crc = new CRC32();
+		crc.update(entry, 0, entry.length);
+		ByteBuffer framed = ByteBuffer.allocate(8 + entry.length);
+		framed.putInt(entry.length);
+		framed.putInt((int) crc.getValue());
+		framed.put(entry);
+		return framed.array();
+	}
+
+	private static byte[] nextClaimIDEntry(long nextID) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(NEXT_CLAIM_ID);
+			out.writeLong(nextID);
+		} catch (IOException e) {
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] groupEntry(String groupName, int amount) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(GROUP);
+			out.writeUTF(groupName);
+			out.writeInt(amount);
+		} catch (IOException e) {
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] deleteEntry(byte type, Object key) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(type);
+			if (key instanceof Long)
+				out.writeLong((Long) key);
+			else
+				out.writeUTF((String) key);
+		} catch (IOException e) {
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] playerEntry(String key, PlayerData playerData) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(PLAYER);
+			out.writeUTF(key);
+			out.writeLong(playerData.lastLogin.getTime());
+			out.writeInt(playerData.accruedClaimBlocks);
+			out.writeInt(playerData.bonusClaimBlocks);
+			out.writeBoolean(playerData.ClearInventoryOnJoin);
+		} catch (IOException e) {
+		}
+		return bytes.toByteArray();
+	}
+
+	private static PlayerData readPlayerEntry(byte[] entry, String playerName) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+		in.readByte();
+		in.readUTF();
+		PlayerData playerData = new PlayerData();
+		playerData.playerName = playerName;
+		playerData.lastLogin = new Date(in.readLong());
+		playerData.accruedClaimBlocks = in.readInt();
+		playerData.bonusClaimBlocks = in.readInt();
+		playerData.ClearInventoryOnJoin = in.readBoolean();
+		return playerData;
+	}
+
+	private static byte[] claimEntry(ClaimRecord record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(CLAIM);
+		out.writeLong(record.id);
+		out.writeUTF(record.worldName);
+		out.writeUTF(record.ownerName == null ? "" : record.ownerName);
+		writeClaimFields(out, record);
+		out.writeInt(record.children.size());
+		for (ClaimRecord child : record.children) {
+			out.writeLong(child.id == null ? -1 : child.id);
+			writeClaimFields(out, child);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static ClaimRecord readClaimEntry(byte[] entry) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+		in.readByte();
+		ClaimRecord record = new ClaimRecord();
+		record.id = in.readLong();
+		record.worldName = in.readUTF();
+		record.ownerName = in.readUTF();
+		readClaimFields(in, record);
+		int children = in.readInt();
+		for (int i = 0; i < children; i++) {
+			ClaimRecord child = new ClaimRecord();
+			child.id = in.readLong();
+			child.worldName = record.worldName;
+			readClaimFields(in, child);
+			record.children.add(child);
+		}
+		return record;
+	}
+
+	// the fields top level claims and subdivisions have in common.
+	private static void writeClaimFields(DataOutputStream out, ClaimRecord record) throws IOException {
+		out.writeUTF(record.uuid == null ? "" : record.uuid.toString());
+		out.writeInt(record.lesserX);
+		out.writeInt(record.lesserY);
+		out.writeInt(record.lesserZ);
+		out.writeInt(record.greaterX);
+		out.writeInt(record.greaterY);
+		out.writeInt(record.greaterZ);
+		writeStrings(out, record.builders);
+		writeStrings(out, record.containers);
+		writeStrings(out, record.accessors);
+		writeStrings(out, record.managers);
+		out.writeBoolean(record.neverdelete);
+		out.writeLong(record.modifiedDate == null ? 0 : record.modifiedDate.getTime());
+	}
+
+	private static void readClaimFields(DataInputStream in, ClaimRecord record) throws IOException {
+		String uuid = in.readUTF();
+		record.uuid = uuid.length() == 0 ? null : UUID.fromString(uuid);
+		record.lesserX = in.readInt();
+		record.lesserY = in.readInt();
+		record.lesserZ = in.readInt();
+		record.greaterX = in.readInt();
+		record.greaterY = in.readInt();
+		record.greaterZ = in.readInt();
+		record.builders = readStrings(in);
+		record.containers = readStrings(in);
+		record.accessors = readStrings(in);
+		record.managers = readStrings(in);
+		record.neverdelete = in.readBoolean();
+		long modified = in.readLong();
+		record.modifiedDate = modified == 0 ? null : new Date(modified);
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		int count = 0;
+		for (String string : strings) {
+			if (string != null && string.length() > 0)
+				count++;
+		}
+		out.writeInt(count);
+		for (String string : strings) {
+			if (string != null && string.length() > 0)
+				out.writeUTF(string);
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] strings = new String[in.readInt()];
+		for (int i = 0; i < strings.length; i++)
+			strings[i] = in.readUTF();
+		return strings;
+	}
+
+	// copies claims, players and groups out of the per-file flat storage the
+	// first time this store is used. The flat files are left where they are.
+	private void importFlatFiles() throws Exception {
+		GriefPrevention.AddLogEntry("Importing claim and player files into the data journal...");
+		FlatFileDataStore flatFileStore = new FlatFileDataStore();
+		this.setNextClaimID(flatFileStore.getNextClaimID());
+
+		int claimCount = 0;
+		File[] files = new File(FlatFileDataStore.claimDataFolderPath).listFiles();
+		if (files != null) {
+			for (File file : files) {
+				// skip folders, and the _nextClaimID file.
+				if (!file.isFile() || file.getName().startsWith("_"))
+					continue;
+				ClaimRecord record = flatFileStore.parseClaimFile(file, null);
+				if (record == null)
+					continue;
+				if (record.id == null) {
+					record.id = this.nextClaimID;
+					this.incrementNextClaimID();
+				}
+				if (record.uuid == null)
+					record.uuid = UUID.randomUUID();
+				for (ClaimRecord child : record.children) {
+					if (child.uuid == null)
+						child.uuid = UUID.randomUUID();
+				}
+				this.append(claimEntry(record));
+				claimCount++;
+			}
+		}
+		for (Map.Entry<String, Integer> group : flatFileStore.getAllGroupBonusBlocks().entrySet()) {
+			this.saveGroupBonusBlocks(group.getKey(), group.getValue());
+		}
+		this.permissionToBonusBlocksMap = getAllGroupBonusBlocks();
+		int playerCount = 0;
+		for (PlayerData playerData : flatFileStore.getAllPlayerData()) {
+			this.savePlayerData(playerData.playerName, playerData);
+			playerCount++;
+		}
+		this.sync();
+		GriefPrevention.AddLogEntry("Imported " + claimCount + " claims and " + playerCount + " players. The files in " + FlatFileDataStore.claimDataFolderPath + " and " + FlatFileDataStore.playerDataFolderPath + " are no longer used.");
+	}
+
+	@Override
+	synchronized void deleteClaimFromSecondaryStorage(Claim claim) {
+		if (claim.id == null || !this.claimEntries.containsKey(claim.id))
+			return;
+		this.append(deleteEntry(CLAIM_DELETE, claim.id));
+	}
+
+	@Override
+	public synchronized boolean deletePlayerData(String playerName) {
+		String key = playerName.toLowerCase();
+		if (this.playerEntries.containsKey(key))
+			this.append(deleteEntry(PLAYER_DELETE, key));
+		return true;
+	}
+
+	@Override
+	public synchronized List<PlayerData> getAllPlayerData() {
+		ArrayList<PlayerData> players = new ArrayList<PlayerData>(this.playerEntries.size());
+		for (Map.Entry<String, byte[]> entry : this.playerEntries.entrySet()) {
+			try {
+				players.add(readPlayerEntry(entry.getValue(), entry.getKey()));
+			} catch (IOException e) {
+				GriefPrevention.AddLogEntry("Unable to load data for player \"" + entry.getKey() + "\": " + e.getMessage());
+			}
+		}
+		return players;
+	}
+
+	@Override
+	synchronized PlayerData getPlayerDataFromStorage(String playerName) {
+		byte[] entry = this.playerEntries.get(playerName.toLowerCase());
+		if (entry != null) {
+			try {
+				return readPlayerEntry(entry, playerName);
+			} catch (IOException e) {
+				GriefPrevention.AddLogEntry("Unable to load data for player \"" + playerName + "\": " + e.getMessage());
+			}
+		}
+		PlayerData playerData = new PlayerData();
+		playerData.playerName = playerName;
+		this.savePlayerData(playerName, playerData);
+		return playerData;
+	}
+
+	@Override
+	public synchronized boolean hasPlayerData(String playerName) {
+		return this.playerEntries.containsKey(playerName.toLowerCase());
+	}
+
+	@Override
+	public synchronized ConcurrentHashMap<String, Integer> getAllGroupBonusBlocks() {
+		return new ConcurrentHashMap<String, Integer>(this.groupBonusBlocks);
+	}
+
+	@Override
+	synchronized void saveGroupBonusBlocks(String groupName, int amount) {
+		this.append(groupEntry(groupName, amount));
+	}
+
+	@Override
+	public synchronized void savePlayerData(String playerName, PlayerData playerData) {
+		// never save data for the "administrative" account. an empty string for
+		// claim owner indicates administrative account
+		if (playerName.length() == 0)
+			return;
+		if (playerData.lastLogin == null)
+			playerData.lastLogin = new Date();
+		this.append(playerEntry(playerName.toLowerCase(), playerData));
+	}
+
+	@Override
+	public synchronized long getNextClaimID() {
+		return this.nextClaimID;
+	}
+
+	@Override
+	synchronized void incrementNextClaimID() {
+		this.setNextClaimID(this.nextClaimID + 1);
+	}
+
+	@Override
+	public synchronized void setNextClaimID(long nextClaimID2) {
+		this.append(nextClaimIDEntry(nextClaimID2));
+	}
+
+	@Override
+	void WorldLoaded(World loaded) {
+		String worldName = loaded.getName();
+		ArrayList<ClaimRecord> records = new ArrayList<ClaimRecord>();
+		synchronized (this) {
+			for (Map.Entry<Long, byte[]> entry : this.claimEntries.entrySet()) {
+				try {
+					ClaimRecord record = readClaimEntry(entry.getValue());
+					if (worldName.equals(record.worldName))
+						records.add(record);
+				} catch (IOException e) {
+					GriefPrevention.AddLogEntry("Unable to load data for claim \"" + entry.getKey() + "\": " + e.getMessage());
+				}
+			}
+		}
+
+		// a claim overlapped by one loaded before it is deleted.
+		for (ClaimRecord rejected : addLoadedClaims(records)) {
+			synchronized (this) {
+				if (this.claimEntries.containsKey(rejected.id))
+					this.append(deleteEntry(CLAIM_DELETE, rejected.id));
+			}
+		}
+		Debugger.Write("Read in " + records.size() + " Claims for world:" + worldName, DebugLevel.Verbose);
+	}
+
+	@Override
+	synchronized void writeClaimToStorage(Claim claim) {
+		try {
+			this.append(claimEntry(ClaimRecord.fromClaim(claim)));
+		} catch (Exception e) {
+			GriefPrevention.AddLogEntry("Unexpected exception saving data for claim \"" + claim.id + "\": " + e.getMessage());
+		}
+	}
+
+}
@@ -19,32 +19,66 @@
 package me.ryanhamshire.GriefPrevention;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
 
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 
-//ordered list of material info objects, for fast searching
+//set of material info objects, indexed by type ID for fast searching.
+//every entry is kept in a list, in the order added; membership tests go
+//through a bitset of the IDs present, a bitset of the IDs with an entry
+//matching any data value, and a mask per ID of the data values 0-15 matched.
+//data values outside 0-15 are rare enough to just search the list for.
 public class MaterialCollection {
-	HashMap<Integer, List<MaterialInfo>> materials = new HashMap<Integer, List<MaterialInfo>>();
+	private final ArrayList<MaterialInfo> materials = new ArrayList<MaterialInfo>();
+	private final BitSet typeIDs = new BitSet();
+	private final BitSet anyData = new BitSet();
+	private final BitSet otherData = new BitSet();
+	private short[] dataMasks = new short[0];
+
     public boolean hasMaterial(Material test){
-        return materials.containsKey(test.getId());
+        return typeIDs.get(test.getId());
     }
-    public boolean testLocation(Block testblock){
-        List<MaterialInfo> AcquiredList = null;
-        if(materials.containsKey(testblock.getType().getId())){
 
-            AcquiredList = materials.get(testblock.getType().getId());
-            for(MaterialInfo mi:AcquiredList){
-                if(mi.Match(testblock)) return true;
-            }
+	/**
+	 * whether there are entries for a type ID, whatever their data values.
+	 * 
+	 * @param typeID
+	 * @return
+	 */
+	public boolean hasMaterial(int typeID) {
+		return typeID >= 0 && typeIDs.get(typeID);
+	}
 
-        }
-        return false;
+    public boolean testLocation(Block testblock){
+        return contains(testblock.getTypeId(), testblock.getData());
+    }
 
+	/**
+	 * whether a block or item of the given type and data value is in this
+	 * collection.
+	 * 
+	 * @param typeID
+	 * @param data
+	 * @return
+	 */
+	public boolean contains(int typeID, byte data) {
+		if (!hasMaterial(typeID))
+			return false;
+		if (anyData.get(typeID))
+			return true;
+		if (data >= 0 && data < 16)
+			return (dataMasks[typeID] & (1 << data)) != 0;
+		if (otherData.get(typeID)) {
+			for (MaterialInfo mi : materials) {
+				if (mi.typeID == typeID && mi.data == data)
+					return true;
+			}
+		}
+		return false;
+	}
 
-    }
 	public MaterialCollection() {
 
 	}
@@ -66,16 +100,35 @@ public class MaterialCollection {
 	}
 
 	public void add(MaterialInfo material) {
-		if (!materials.containsKey(material.getTypeID())) {
-			materials.put(material.getTypeID(), new ArrayList<MaterialInfo>());
-		}
-		List<MaterialInfo> mlist = this.materials.get(material.typeID);
-		mlist.add(material);
+		materials.add(material);
+		index(material);
+	}
 
+	private void index(MaterialInfo material) {
+		int typeID = material.getTypeID();
+		if (typeID < 0)
+			return;
+		typeIDs.set(typeID);
+		if (material.allDataValues) {
+			anyData.set(typeID);
+		} else if (material.data >= 0 && material.data < 16) {
+			if (typeID >= dataMasks.length) {
+				short[] grown = new short[Math.max(typeID + 1, dataMasks.length * 2)];
+				System.arraycopy(dataMasks, 0, grown, 0, dataMasks.length);
+				dataMasks = grown;
+			}
+			dataMasks[typeID] |= (short) (1 << material.data);
+		} else {
+			otherData.set(typeID);
+		}
 	}
 
 	public void clear() {
 		this.materials.clear();
+		typeIDs.clear();
+		anyData.clear();
+		otherData.clear();
+		dataMasks = new short[0];
 	}
 
 	@Override
@@ -84,15 +137,25 @@ public class MaterialCollection {
 	}
 
 	public boolean contains(Material m) {
-		return contains(new MaterialInfo(m));
+		// a Material stands for every data value, so any entry for it matches.
+		return hasMaterial(m);
 	}
 
 	public boolean contains(MaterialInfo material) {
-		if (this.materials.containsKey(material.typeID)) {
-			return this.materials.get(material.typeID).contains(material);
+		if (material.hasPattern()) {
+			// the pattern has to see each entry's description, so the index
+			// can only rule the type ID out.
+			if (!hasMaterial(material.typeID))
+				return false;
+			for (MaterialInfo mi : materials) {
+				if (material.equals(mi))
+					return true;
+			}
+			return false;
 		}
-
-		return false;
+		if (material.allDataValues)
+			return hasMaterial(material.typeID);
+		return contains(material.typeID, material.data);
 	}
 
 	public List<String> GetList() {
@@ -105,39 +168,42 @@ public class MaterialCollection {
 
 	public List<MaterialInfo> getMaterials() {
 
-		List<MaterialInfo> Result = new ArrayList<MaterialInfo>();
-		for (List<MaterialInfo> listiterate : materials.values()) {
-			Result.addAll(listiterate);
-		}
-		return Result;
+		return new ArrayList<MaterialInfo>(materials);
 
 	}
 
 	public void remove(MaterialInfo mi) {
-		if (!materials.containsKey(mi.getTypeID())) {
+		if (!hasMaterial(mi.getTypeID())) {
 			return; // nothing to remove, since the id isn't even here.
 		}
-		List<MaterialInfo> mlist = this.materials.get(mi.typeID);
-		for (int i = 0; i < mlist.size(); i++) {
-			if (mlist.get(i).equals(mi)) {
-				mlist.remove(i);
+		for (int i = materials.size() - 1; i >= 0; i--) {
+			if (materials.get(i).equals(mi)) {
+				materials.remove(i);
 			}
 		}
+		// rebuild the index for the ID from what's left.
+		int typeID = mi.getTypeID();
+		typeIDs.clear(typeID);
+		anyData.clear(typeID);
+		otherData.clear(typeID);
+		if (typeID < dataMasks.length)
+			dataMasks[typeID] = 0;
+		for (MaterialInfo remaining : materials) {
+			if (remaining.typeID == typeID)
+				index(remaining);
+		}
 
 	}
 
 	public int size() {
-		return this.materials.size();
+		return typeIDs.cardinality();
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder stringBuilder = new StringBuilder();
-		for (List<MaterialInfo> iteratelist : materials.values()) {
-
-			for (MaterialInfo iteratemat : iteratelist) {
-				stringBuilder.append(iteratemat.toString() + " ");
-			}
+		for (MaterialInfo iteratemat : materials) {
+			stringBuilder.append(iteratemat.toString() + " ");
 		}
 
 		return stringBuilder.toString();
@@ -124,6 +124,11 @@ public class MaterialInfo {
 		return new MaterialInfo(this);
 	}
 
+	// whether equals() also matches the other's description against a pattern.
+	boolean hasPattern() {
+		return re != null;
+	}
+
 	@Override
 	public boolean equals(Object other) {
 		if (other instanceof MaterialInfo) {
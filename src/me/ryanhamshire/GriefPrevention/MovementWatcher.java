@@ -111,7 +111,7 @@ public class MovementWatcher implements Listener {
 
 					Acquired.Forced = false;
 					// if the previous one is not null, fire an exit event.
-					if (Acquired.LastClaim != null) {
+					if (Acquired.LastClaim != null && ClaimExitEvent.hasListeners()) {
 						// System.out.println("firing claim exit.");
 						// if it is not null we are leaving a claim, so fire the
 						// exit event.
@@ -120,7 +120,7 @@ public class MovementWatcher implements Listener {
 					}
 
 					// if the new claim is not null, then fire an enter event.
-					if (CurrClaim != null) {
+					if (CurrClaim != null && ClaimEnterEvent.hasListeners()) {
 						// System.out.println("firing claim enter.");
 						ClaimEnterEvent cee = new ClaimEnterEvent(CurrClaim, pme.getPlayer());
 						Bukkit.getPluginManager().callEvent(cee);
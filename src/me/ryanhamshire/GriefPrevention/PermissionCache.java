@@ -0,0 +1,133 @@
+package me.ryanhamshire.GriefPrevention;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Remembers recent results of the claim permission checks (allowBuild,
+ * allowAccess, allowContainers and allowEdit), so a player clicking around in
+ * the same claim doesn't redo the trust and Bukkit permission lookups every
+ * time.
+ * <p>
+ * A result is reused only while the claim and its parent have the same
+ * permission version as when it was computed (see
+ * Claim.permissionsChanged()), the player's pvp combat and ignoreclaims state
+ * is unchanged, and it is younger than the time to live. The last one bounds
+ * how long a change made by a permissions plugin goes unnoticed, as those
+ * don't tell us about it.
+ */
+public class PermissionCache {
+
+	public static final int BUILD = 0;
+	public static final int ACCESS = 1;
+	public static final int CONTAINERS = 2;
+	public static final int EDIT = 3;
+
+	private static final class Key {
+		final String playerName;
+		final Claim claim;
+		final int check;
+
+		Key(String playerName, Claim claim, int check) {
+			this.playerName = playerName;
+			this.claim = claim;
+			this.check = check;
+		}
+
+		@Override
+		public int hashCode() {
+			return (playerName.hashCode() * 31 + System.identityHashCode(claim)) * 31 + check;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return claim == other.claim && check == other.check && playerName.equals(other.playerName);
+		}
+	}
+
+	private static final class Entry {
+		final String result;
+		final int claimVersion;
+		final int parentVersion;
+		final int playerState;
+		final long expires;
+
+		Entry(String result, int claimVersion, int parentVersion, int playerState, long expires) {
+			this.result = result;
+			this.claimVersion = claimVersion;
+			this.parentVersion = parentVersion;
+			this.playerState = playerState;
+			this.expires = expires;
+		}
+	}
+
+	private final int capacity;
+	private final long timeToLive;
+	private final LinkedHashMap<Key, Entry> entries;
+
+	/**
+	 * @param capacity
+	 *            most results kept; the least recently used go first.
+	 * @param timeToLive
+	 *            milliseconds a result may be reused for.
+	 */
+	public PermissionCache(int capacity, long timeToLive) {
+		this.capacity = capacity;
+		this.timeToLive = timeToLive;
+		this.entries = new LinkedHashMap<Key, Entry>(Math.min(capacity, 1024), 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > PermissionCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * runs one of a claim's permission checks, or reuses its last result.
+	 *
+	 * @param claim
+	 * @param player
+	 * @param check
+	 *            which check, one of BUILD, ACCESS, CONTAINERS or EDIT.
+	 * @return what the check returns: null if allowed, otherwise the reason.
+	 */
+	public String check(Claim claim, Player player, int check) {
+		PlayerData playerData = GriefPrevention.instance.dataStore.getPlayerData(player.getName());
+		int playerState = (playerData.inPvpCombat() ? 1 : 0) | (playerData.ignoreClaims ? 2 : 0);
+		int claimVersion = claim.getPermissionVersion();
+		int parentVersion = claim.parent == null ? 0 : claim.parent.getPermissionVersion();
+		Key key = new Key(player.getName().toLowerCase(Locale.ENGLISH), claim, check);
+		long now = System.currentTimeMillis();
+
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.expires > now && entry.claimVersion == claimVersion && entry.parentVersion == parentVersion && entry.playerState == playerState)
+				return entry.result;
+		}
+
+		String result = claim.computePermission(player, check);
+		synchronized (entries) {
+			entries.put(key, new Entry(result, claimVersion, parentVersion, playerState, now + timeToLive));
+		}
+		return result;
+	}
+
+	/**
+	 * forgets every result, for when something they depend on changed
+	 * everywhere at once, like the configuration.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+}
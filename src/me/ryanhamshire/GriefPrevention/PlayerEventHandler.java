@@ -282,7 +282,7 @@ class PlayerEventHandler implements Listener {
 
 		// if it's very similar to the last message
 		if (!muted && this.stringsAreSimilar(message, playerData.lastMessage)) {
-            Debugger.Write("Blocking message, similar to last message.",DebugLevel.Verbose);
+            Debugger.Write(DebugLevel.Verbose, "Blocking message, similar to last message.");
 			playerData.spamCount++;
 			spam = true;
 			muted = true;
@@ -305,7 +305,7 @@ class PlayerEventHandler implements Listener {
 					spam = true;
 
 					// block message
-                    Debugger.Write("Blocking message for IP spam",DebugLevel.Verbose);
+                    Debugger.Write(DebugLevel.Verbose, "Blocking message for IP spam");
 					muted = true;
 				}
 			}
@@ -331,7 +331,7 @@ class PlayerEventHandler implements Listener {
 			if (symbolsCount > message.length() / 2 || (message.length() > wc.getSpamASCIIArtMinLength() && whitespaceCount < message.length() / 10)) {
 				spam = true;
 				if (playerData.spamCount > 0)
-                    Debugger.Write("Exceeded symbol or whitespace count.",DebugLevel.Verbose);
+                    Debugger.Write(DebugLevel.Verbose, "Exceeded symbol or whitespace count.");
 					muted = true;
 				playerData.spamCount++;
 			}
@@ -719,7 +719,7 @@ class PlayerEventHandler implements Listener {
 		// if eavesdrop enabled, eavesdrop
 		List<String> WhisperCommands = wc.eavesdrop_whisperCommands();
 		String command = args[0].toLowerCase();
-        Debugger.Write("Command:" + command,DebugLevel.Verbose);
+        Debugger.Write(DebugLevel.Verbose, "Command:%s", command);
 		if (wc.getEavesDrop() && WhisperCommands.contains(command) && args.length > 1) {
 			StringBuilder logMessageBuilder = new StringBuilder();
 			logMessageBuilder.append("[[").append(event.getPlayer().getName()).append("]] ");
@@ -803,10 +803,10 @@ class PlayerEventHandler implements Listener {
         //tweak: delay for 10 seconds before we perform this check...
 		if (wc.getPvPPunishLogout() && playerData.inPvpCombat()) {
             final PlayerInventory dcedInventory = player.getInventory();
-            Debugger.Write("Disconnected player:" + player.getName() + " was in PVP Combat.",DebugLevel.Verbose);
+            Debugger.Write(DebugLevel.Verbose, "Disconnected player:%s was in PVP Combat.", player.getName());
             Bukkit.getScheduler().runTaskLater(GriefPrevention.instance, new Runnable() {
                   public void run(){
-                      Debugger.Write("Punishment Task, player:" + player.getName(),DebugLevel.Verbose);
+                      Debugger.Write(DebugLevel.Verbose, "Punishment Task, player:%s", player.getName());
 
 
 
@@ -814,11 +814,11 @@ class PlayerEventHandler implements Listener {
                       Player lastplayer = lastPvPData==null?null:Bukkit.getPlayerExact(lastPvPData.playerName);
                       OfflinePlayer thisPlayer = Bukkit.getOfflinePlayer(playerData.playerName);
 
-                      Debugger.Write("Logged player:" + player.getName() + " online:" + thisPlayer.isOnline(),DebugLevel.Verbose);
-                      if(lastplayer==null) Debugger.Write("No other player.",DebugLevel.Verbose);
-                      else Debugger.Write("other Player:" + lastplayer.getName(),DebugLevel.Verbose);
-                      Debugger.Write("lastplayer!=null && lastplayer.isOnline:" + (lastplayer!=null && lastplayer.isOnline()),DebugLevel.Verbose);
-                      Debugger.Write("!(thisPlayer==null || thisPlayer.isOnline())" + (!(thisPlayer==null || thisPlayer.isOnline())),DebugLevel.Verbose);
+                      Debugger.Write(DebugLevel.Verbose, "Logged player:%s online:%s", player.getName(), thisPlayer.isOnline());
+                      if(lastplayer==null) Debugger.Write(DebugLevel.Verbose, "No other player.");
+                      else Debugger.Write(DebugLevel.Verbose, "other Player:%s", lastplayer.getName());
+                      Debugger.Write(DebugLevel.Verbose, "lastplayer!=null && lastplayer.isOnline:%s", (lastplayer!=null && lastplayer.isOnline()));
+                      Debugger.Write(DebugLevel.Verbose, "!(thisPlayer==null || thisPlayer.isOnline())%s", (!(thisPlayer==null || thisPlayer.isOnline())));
                       if(lastplayer!=null && lastplayer.isOnline() && (thisPlayer==null || !thisPlayer.isOnline())){
 
                           //make sure they didn't relog, either.
@@ -873,10 +873,10 @@ class PlayerEventHandler implements Listener {
 
                 Bukkit.getScheduler().runTaskLater(GriefPrevention.instance, new Runnable() {
                     public void run(){
-                        Debugger.Write("Siege Disconnect Timer, player:" + player.getName(),DebugLevel.Informational);
+                        Debugger.Write(DebugLevel.Informational, "Siege Disconnect Timer, player:%s", player.getName());
                         //get other player in the siege
 
-                        Debugger.Write("Other Player: " + otherplayer.getName(),DebugLevel.Informational);
+                        Debugger.Write(DebugLevel.Informational, "Other Player: %s", otherplayer.getName());
 
                         if(otherplayer.isOnline() && !player.isOnline()){
                             if(!player.isOnline())playerData.ClearInventoryOnJoin=true;
@@ -1009,15 +1009,14 @@ class PlayerEventHandler implements Listener {
 	// when a player interacts with the world
 	@EventHandler(priority = EventPriority.NORMAL)
 	void onPlayerInteract(PlayerInteractEvent event) {
-        Debugger.Write("onPlayerInteract",DebugLevel.Verbose);
+        Debugger.Write(DebugLevel.Verbose, "onPlayerInteract");
 		if (event == null)
 			return;
 		if (event.getPlayer() == null)
 			return; // MCPC seems to sometimes fire events with a null player...
 		Player player = event.getPlayer();
 
-		String ItemName = event.getItem() == null ? "null" : "ID:" + String.valueOf(event.getItem().getTypeId());
-		Debugger.Write("onPlayerInteract: Item:" + ItemName, DebugLevel.Verbose);
+		Debugger.Write(DebugLevel.Verbose, "onPlayerInteract: Item:ID:%s", event.getItem() == null ? null : event.getItem().getTypeId());
 
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(player.getWorld());
 		if (!wc.Enabled())
@@ -1109,16 +1108,18 @@ class PlayerEventHandler implements Listener {
 
 		Material clickedBlockType = clickedBlock.getType();
 
-    Debugger.Write("Checking block:" + clickedBlockType.name(),DebugLevel.Verbose);
+    Debugger.Write(DebugLevel.Verbose, "Checking block:%s", clickedBlockType.name());
     for(Material checkmat:IgnoreInteractionMaterials){
         if(checkmat !=null && checkmat.name().equals(clickedBlockType.name())){
-            Debugger.Write("Ignoring interaction with Material:" + clickedBlockType.name() + " as it is on the Ignore List.",DebugLevel.Verbose);
+            Debugger.Write(DebugLevel.Verbose, "Ignoring interaction with Material:%s as it is on the Ignore List.", clickedBlockType.name());
             return;
         }
     }
 
-        //
-		PlayerData playerData = GriefPrevention.instance.dataStore.getPlayerData(player.getName());
+        // the checks against the clicked block share what they look up.
+		EventContext context = EventContext.acquire(player, clickedBlock);
+		try {
+		PlayerData playerData = context.getPlayerData();
 
 
 		if(GriefPrevention.isMCVersionorLater(GriefPrevention.MinecraftVersions.MC16) &&   clickedBlock.getType()==Material.FLOWER_POT){
@@ -1152,7 +1153,7 @@ class PlayerEventHandler implements Listener {
 
 		if ((clickedBlock.getType() == Material.FENCE || clickedBlock.getType() == Material.NETHER_FENCE) && inhand != null && inhand.getId() == 420) {
 
-			if (wc.getLeadUsageRules().Allowed(clickedBlock.getLocation(), player).Denied()) {
+			if (context.allowed(wc.getLeadUsageRules(), true).Denied()) {
 				event.setCancelled(true);
 				return;
 			}
@@ -1161,7 +1162,7 @@ class PlayerEventHandler implements Listener {
 
 		// apply rules for putting out fires (requires build permission)
 		if (event.getAction() == Action.LEFT_CLICK_BLOCK && event.getClickedBlock() != null && event.getClickedBlock().getRelative(event.getBlockFace()).getType() == Material.FIRE) {
-			if (wc.getFireExtinguishing().Allowed(clickedBlock.getLocation(), player).Denied()) {
+			if (context.allowed(wc.getFireExtinguishing(), true).Denied()) {
 				event.setCancelled(true);
 				return;
 			}
@@ -1206,7 +1207,7 @@ class PlayerEventHandler implements Listener {
 		// apply rules for containers and crafting blocks
 		if ((event.getAction() == Action.RIGHT_CLICK_BLOCK && (clickedBlock.getState() instanceof InventoryHolder || ContainerMaterials.contains(clickedBlock.getType()) ||
 
-		wc.getModsContainerTrustIds().contains(new MaterialInfo(clickedBlock.getTypeId(), clickedBlock.getData(), null))))) {
+		wc.getModsContainerTrustIds().testLocation(clickedBlock)))) {
 
 			// block container access when they cannot see it.
 			/*
@@ -1226,7 +1227,7 @@ class PlayerEventHandler implements Listener {
 			//setting for some rules.
 
 			// special Chest looting behaviour.
-			Claim cc = GriefPrevention.instance.dataStore.getClaimAt(clickedBlock.getLocation(), true);
+			Claim cc = context.getClaim(true);
 			// if doorsOpen...
 
 			if (cc != null && cc.doorsOpen) {
@@ -1247,7 +1248,7 @@ class PlayerEventHandler implements Listener {
 			}
 
 			// otherwise check permissions for the claim the player is in
-			if (wc.getContainersRules().Allowed(clickedBlock.getLocation(), player, true).Denied()) {
+			if (context.allowed(wc.getContainersRules(), true).Denied()) {
 				// message will be sent by the above. noContainersReason won't
 				// be used anymore
 				// this will require some thought :/
@@ -1301,7 +1302,7 @@ class PlayerEventHandler implements Listener {
 			// System.out.println("doshowmessage=" + doshowmessage);
 			playerData.setLastSteppedOn(clickedBlock.getLocation());
 
-			if (useRule.Allowed(clickedBlock.getLocation(), player, doshowmessage).Denied()) {
+			if (context.allowed(useRule, doshowmessage).Denied()) {
 				event.setCancelled(true);
 				return;
 			}
@@ -1324,7 +1325,7 @@ class PlayerEventHandler implements Listener {
 
 		// apply rule for note blocks and repeaters
 		else if (clickedBlockType == Material.NOTE_BLOCK || clickedBlockType == Material.DIODE_BLOCK_ON || clickedBlockType == Material.DIODE_BLOCK_OFF || clickedBlockType == Material.REDSTONE_COMPARATOR_OFF || clickedBlockType == Material.REDSTONE_COMPARATOR_ON && event.getAction() == Action.RIGHT_CLICK_BLOCK) {
-			ClaimAllowanceConstants tweakallow = wc.getBlockTweakRules().Allowed(clickedBlock.getLocation(), event.getPlayer());
+			ClaimAllowanceConstants tweakallow = context.allowed(wc.getBlockTweakRules(), true);
 			if (tweakallow == ClaimAllowanceConstants.Allow_Forced)
 				return;
 			else if (tweakallow.Denied()) {
@@ -1541,11 +1542,10 @@ class PlayerEventHandler implements Listener {
             }
 			// if the player is in restore nature mode, do only that
 			String playerName = player.getName();
-			playerData = GriefPrevention.instance.dataStore.getPlayerData(player.getName());
 			if (playerData.shovelMode == ShovelMode.RestoreNature || playerData.shovelMode == ShovelMode.RestoreNatureAggressive) {
 				// if the clicked block is in a claim, visualize that claim and
 				// deliver an error message
-				Claim claim = GriefPrevention.instance.dataStore.getClaimAt(clickedBlock.getLocation(), false);
+				Claim claim = context.getClaim(false);
 				if (claim != null) {
 					GriefPrevention.sendMessage(player, TextMode.Err, Messages.BlockClaimed, claim.getOwnerName());
 					Visualization visualization = Visualization.FromClaim(claim, clickedBlock.getY(), VisualizationType.ErrorClaim, player.getLocation());
@@ -2197,13 +2197,16 @@ class PlayerEventHandler implements Listener {
 				}
 			}
 		}
+		} finally {
+			context.release();
+		}
 	}
 
 	// when a player interacts with an entity...
 	@EventHandler(ignoreCancelled = true, priority = EventPriority.NORMAL)
 	public void onPlayerInteractEntity(PlayerInteractEntityEvent event) {
 		try {
-            Debugger.Write("onPlayerInteractEntity, instance:" + event.getRightClicked().getClass().getName(), Debugger.DebugLevel.Verbose);
+            Debugger.Write(Debugger.DebugLevel.Verbose, "onPlayerInteractEntity, instance:%s", event.getRightClicked().getClass().getName());
 			Player player = event.getPlayer();
 			Entity entity = event.getRightClicked();
 
@@ -2298,7 +2301,7 @@ class PlayerEventHandler implements Listener {
 				}
 			}
 			if (isHorse(entity) && wc.getHorseTrust()!= WorldConfig.HorseTrustConstants.Disabled) {
-                Debugger.Write("Horse Detected.",DebugLevel.Verbose);
+                Debugger.Write(DebugLevel.Verbose, "Horse Detected.");
 				Horse h = (Horse) entity;
 
 				if (h.isTamed() && handItem!=null && handItem.getType() == Material.GOLDEN_APPLE) {
@@ -2318,14 +2321,14 @@ class PlayerEventHandler implements Listener {
 				} else {
 
                         if (h.isTamed()) {
-                        Debugger.Write("Tamed Horse.",DebugLevel.Verbose);
+                        Debugger.Write(DebugLevel.Verbose, "Tamed Horse.");
 						// if the player is the owner of the horse,
 						// they can do what they want no matter where they are.
 						    if(h.getOwner()==null){
-                                Debugger.Write("Tamed Horse with no owner. Strangeness.",DebugLevel.Verbose);
+                                Debugger.Write(DebugLevel.Verbose, "Tamed Horse with no owner. Strangeness.");
                             }
                             else {
-                                Debugger.Write("Horse Owner:" + h.getOwner().getName(),DebugLevel.Verbose);
+                                Debugger.Write(DebugLevel.Verbose, "Horse Owner:%s", h.getOwner().getName());
                             }
 
                             boolean SpecialHorseTrust = true;
@@ -2339,7 +2342,7 @@ class PlayerEventHandler implements Listener {
                                 //if inside of a claim, check if the player in question has build trust on that claim.
                                 //technically this could be a rule too, I suppose.
                                 HasTrust = targetclaim.allowBuild(player)==null && (h.getOwner().getName().equals(targetclaim.getOwnerName()));
-                                Debugger.Write("Within a claim. HasTrust:" + String.valueOf(HasTrust),DebugLevel.Verbose);
+                                Debugger.Write(DebugLevel.Verbose, "Within a claim. HasTrust:%s", HasTrust);
 
                             }
                             if(h.getOwner()!=null && !h.getOwner().getName().equals(player.getName()))
@@ -2350,10 +2353,10 @@ class PlayerEventHandler implements Listener {
                                      return;
                                 }
                                 if(HasTrust){
-                                    Debugger.Write("HasTrust:" + String.valueOf(HasTrust),DebugLevel.Verbose);
+                                    Debugger.Write(DebugLevel.Verbose, "HasTrust:%s", HasTrust);
                                     Player ownerplayer = (Player)h.getOwner();
                                     if(ownerplayer.isOnline()){
-                                        Debugger.Write("Horse Owner is online.",DebugLevel.Verbose);
+                                        Debugger.Write(DebugLevel.Verbose, "Horse Owner is online.");
                                         //notify both, and transfer ownership.
                                         GriefPrevention.sendMessage(ownerplayer,TextMode.Info,Messages.PlayerTakesHorse,player.getName());
                                         GriefPrevention.sendMessage(player,TextMode.Info,Messages.PlayerReceivesHorse);
@@ -2361,7 +2364,7 @@ class PlayerEventHandler implements Listener {
                                         return;
                                     }
                                     else {
-                                          Debugger.Write("Horse Owner is not online.",DebugLevel.Verbose);
+                                          Debugger.Write(DebugLevel.Verbose, "Horse Owner is not online.");
                                           GriefPrevention.sendMessage(player,TextMode.Err,Messages.HorseOwnerNotOnline);
                                           return;
                                     }
@@ -2371,7 +2374,7 @@ class PlayerEventHandler implements Listener {
                             }
                             }
 							if (h.getOwner() == null || h.getOwner().getName().equals(player.getName()) ){
-                                Debugger.Write("Horse is ownerless or already belongs to player.",DebugLevel.Verbose);
+                                Debugger.Write(DebugLevel.Verbose, "Horse is ownerless or already belongs to player.");
 								return;
                             }
                             else if (h.getOwner()!=null && !h.getOwner().getName().equals(player.getName()) || player.hasPermission(PermNodes.AllHorsesPermission)){
@@ -2533,7 +2536,7 @@ class PlayerEventHandler implements Listener {
 				}
 			}
 		} finally {
-			Debugger.Write("PlayerInteractEntity: Cancelled:" + event.isCancelled(), DebugLevel.Verbose);
+			Debugger.Write(DebugLevel.Verbose, "PlayerInteractEntity: Cancelled:%s", event.isCancelled());
 		}
 	}
 
@@ -2544,6 +2547,8 @@ class PlayerEventHandler implements Listener {
 		Player player = event.getPlayer();
         GriefPrevention.AddLogEntry("Player:" + player.getName() + " UUID:" + player.getUniqueId());
 		String playerName = player.getName();
+		// permissions may have changed while the player was offline.
+		GriefPrevention.instance.dataStore.invalidateGroupBonusBlocks(playerName);
 		WorldConfig wc = GriefPrevention.instance.getWorldCfg(player.getWorld());
 		if(!wc.Enabled()) return;
 		// note login time
@@ -2551,7 +2556,7 @@ class PlayerEventHandler implements Listener {
 		final PlayerData playerData = GriefPrevention.instance.dataStore.getPlayerData(playerName);
 		playerData.lastSpawn = now;
 		playerData.lastLogin = new Date();
-		GriefPrevention.instance.dataStore.savePlayerData(playerName, playerData);
+		GriefPrevention.instance.dataStore.savePlayerDataLater(playerName, playerData);
 
 		// if player has never played on the server before, may need pvp
 		// protection
@@ -2702,7 +2707,7 @@ class PlayerEventHandler implements Listener {
 
                     invent.setArmorContents(new ItemStack[4]);
                     player.setHealth(0);
-                    Debugger.Write("Cleared Inventory of " + player.getName() + " as they joined.",DebugLevel.Verbose);
+                    Debugger.Write(DebugLevel.Verbose, "Cleared Inventory of %s as they joined.", player.getName());
                 }},1);
 
         }
@@ -2758,6 +2763,7 @@ class PlayerEventHandler implements Listener {
 	void onPlayerQuit(PlayerQuitEvent event) {
 
 		Player player = event.getPlayer();
+		GriefPrevention.instance.dataStore.invalidateGroupBonusBlocks(player.getName());
         if(player.isBanned()){
             event.setQuitMessage(null);
             //However, all players with griefprevention.admin.eavesdrop permission get a ban notification.
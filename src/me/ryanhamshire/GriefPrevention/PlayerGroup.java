@@ -1,7 +1,9 @@
 package me.ryanhamshire.GriefPrevention;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 import org.bukkit.configuration.ConfigurationSection;
@@ -58,6 +60,8 @@ public class PlayerGroup {
 	private String GroupName;
 
 	private List<String> PlayerNames = new ArrayList<String>(); // names of
+	// the same names, lower cased, for MatchPlayer.
+	private HashSet<String> Members = new HashSet<String>();
 
 	private PlayerGroup(FileConfiguration Source, String SourceNode) {
 		// System.out.println("reading group from " + SourceNode);
@@ -81,6 +85,7 @@ public class PlayerGroup {
 		for (String iteratename : Source.getStringList(SourceNode)) {
 			System.out.println("Group-" + SourceNode + " " + iteratename);
 			PlayerNames.add(iteratename);
+			Members.add(iteratename.toLowerCase(Locale.ENGLISH));
 
 		}
 
@@ -114,11 +119,7 @@ public class PlayerGroup {
 	public boolean MatchPlayer(String PlayerName) {
 
 		// determines if this player is in this group.
-		for (String iterateplayer : PlayerNames) {
-			if (iterateplayer.equalsIgnoreCase(PlayerName))
-				return true;
-		}
-		return false;
+		return PlayerName != null && Members.contains(PlayerName.toLowerCase(Locale.ENGLISH));
 
 	}
 
@@ -1,14 +1,21 @@
 package me.ryanhamshire.GriefPrevention;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import org.bukkit.configuration.file.FileConfiguration;
 
 public class PlayerGroups {
 
 	private HashMap<String, PlayerGroup> PlayerGroups = new HashMap<String, PlayerGroup>();
+	// lower cased player name -> upper cased names of the groups that player
+	// is in. built once per config load, like the groups themselves.
+	private HashMap<String, Set<String>> PlayerToGroups = new HashMap<String, Set<String>>();
 
 	/*
 	 * Groups: Names:[Donator,HalfOp]: - Donator: [Chicken,Waffle] - HalfOp:
@@ -26,6 +33,18 @@ public class PlayerGroups {
 		for (PlayerGroup iterate : checklist) {
 			PlayerGroups.put(iterate.getGroupName().toUpperCase(), iterate);
 		}
+		for (PlayerGroup iterate : PlayerGroups.values()) {
+			String groupkey = iterate.getGroupName().toUpperCase();
+			for (String member : iterate.getPlayerNames()) {
+				String playerkey = member.toLowerCase(Locale.ENGLISH);
+				Set<String> groups = PlayerToGroups.get(playerkey);
+				if (groups == null) {
+					groups = new HashSet<String>();
+					PlayerToGroups.put(playerkey, groups);
+				}
+				groups.add(groupkey);
+			}
+		}
 	}
 
 	/**
@@ -36,10 +55,32 @@ public class PlayerGroups {
 	 * @return
 	 */
 	public PlayerGroup getGroupByName(String groupname) {
-		String capgroup = groupname.toUpperCase();
-		if (!PlayerGroups.containsKey(capgroup))
-			return null;
-		return PlayerGroups.get(capgroup);
+		return PlayerGroups.get(groupname.toUpperCase());
+	}
+
+	/**
+	 * retrieves the names of the groups a player is in, upper cased.
+	 * 
+	 * @param PlayerName
+	 * @return set of group names. empty if the player isn't in any group. must
+	 *         not be modified.
+	 */
+	public Set<String> getGroupNamesForPlayer(String PlayerName) {
+		Set<String> groups = PlayerToGroups.get(PlayerName.toLowerCase(Locale.ENGLISH));
+		return groups == null ? Collections.<String> emptySet() : Collections.unmodifiableSet(groups);
+	}
+
+	/**
+	 * determines if a player is in the named group.
+	 * 
+	 * @param groupname
+	 *            group name, in any case.
+	 * @param PlayerName
+	 * @return
+	 */
+	public boolean isInGroup(String groupname, String PlayerName) {
+		Set<String> groups = PlayerToGroups.get(PlayerName.toLowerCase(Locale.ENGLISH));
+		return groups != null && groups.contains(groupname.toUpperCase());
 	}
 
 	/**
@@ -50,10 +91,8 @@ public class PlayerGroups {
 	 */
 	public List<PlayerGroup> getGroupsForPlayer(String PlayerName) {
 		ArrayList<PlayerGroup> makelist = new ArrayList<PlayerGroup>();
-		for (PlayerGroup iterate : PlayerGroups.values()) {
-			if (iterate.MatchPlayer(PlayerName)) {
-				makelist.add(iterate);
-			}
+		for (String groupname : getGroupNamesForPlayer(PlayerName)) {
+			makelist.add(PlayerGroups.get(groupname));
 		}
 
 		return makelist;
@@ -1,54 +1,138 @@
 package me.ryanhamshire.GriefPrevention;
 
+import me.ryanhamshire.GriefPrevention.Debugger.DebugLevel;
+
 import org.bukkit.World;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * wraps a normal DataStore. Any functions that do not return a value
- * are run on a separate thread.
+ * wraps a normal DataStore, moving its writes off the calling thread.
+ * Claim and player saves, deletes and group bonus saves are queued and run
+ * in order by a single writer thread, so writes to the same claim or player
+ * reach storage in the order they were made.
+ * <p>
+ * The wrapper shares the wrapped store's in-memory caches (claims, player
+ * data, group bonus blocks), so anything already loaded reads back the way
+ * it was last changed. Claims and player data keep changing on the main
+ * thread, so what's queued is a copy taken when the save was asked for,
+ * never the live object. Reads that go to storage first wait for any queued
+ * write they could see. close() waits for everything queued to be written
+ * before closing the wrapped store.
  */
 public class ThreadedDataStore extends DataStore{
     public String ConfigDescriptor = "threaded";
     private DataStore InternalStore = null;
     public DataStore getInternalStore(){ return InternalStore;}
-    private Queue<Runnable> DataCallQueue= new ConcurrentLinkedDeque<Runnable>();
-    private Thread DataCallThread = null;
+    private final BlockingQueue<Runnable> DataCallQueue = new LinkedBlockingQueue<Runnable>();
+    // players with a save queued, by lower cased name, to the latest save's
+    // token; the entry goes once that save has been written.
+    private final ConcurrentHashMap<String, Object> PendingPlayers = new ConcurrentHashMap<String, Object>();
+    private volatile Thread DataCallThread = null;
+    // queued to make the writer thread exit.
+    private static final Runnable STOP = new Runnable(){public void run(){}};
+
     private void DataCallThreadRoutine()
     {
-
         while(true){
-
-            if(DataCallQueue.size() > 0){
-                Runnable runit = DataCallQueue.poll();
-                runit.run();
-
+            Runnable runit;
+            try {
+                runit = DataCallQueue.take();
+            } catch(InterruptedException exx){
+                // only close() stops us, so that nothing queued is lost.
+                continue;
             }
+            if(runit==STOP) return;
             try {
-            Thread.sleep(50); //yield and wait.
-            }catch(InterruptedException exx){
-
-                }
+                runit.run();
+            } catch(Throwable exx){
+                GriefPrevention.AddLogEntry("Unexpected exception writing data: " + exx);
+                exx.printStackTrace();
+            }
         }
-
-
     }
 
 
     public ThreadedDataStore(DataStore Internal){
         if(Internal==null) throw new IllegalArgumentException("DataStore cannot be null");
         InternalStore = Internal;
+        // share the wrapped store's caches, so claims it loads are ours too.
+        this.claims = Internal.claims;
+        this.playerNameToPlayerDataMap = Internal.playerNameToPlayerDataMap;
+        this.permissionToBonusBlocksMap = Internal.permissionToBonusBlocksMap;
+        this.ClearInventoryOnJoinPlayers = Internal.ClearInventoryOnJoinPlayers;
+        this.nextClaimID = Internal.getNextClaimID();
+        try {
+            this.initialize(null, null);
+        } catch(Exception exx){
+            GriefPrevention.AddLogEntry("Unable to load messages: " + exx.getMessage());
+        }
+        DataCallThread = new Thread(new Runnable(){public void run(){DataCallThreadRoutine();}}, "GriefPrevention data writer");
+        DataCallThread.setDaemon(true);
+        DataCallThread.start();
     }
     private void RunThreaded(Runnable target){
         if(DataCallThread==null){
-            DataCallThread = new Thread(new Runnable(){public void run(){DataCallThreadRoutine();}});
-            DataCallThread.run();
+            // closed; nothing will drain the queue, so just do it here.
+            target.run();
+            return;
         }
         DataCallQueue.add(target);
     }
+
+    /**
+     * waits until everything queued so far has been written.
+     */
+    public void flush(){
+        Thread writer = DataCallThread;
+        if(writer==null || writer==Thread.currentThread()) return;
+        final CountDownLatch done = new CountDownLatch(1);
+        DataCallQueue.add(new Runnable(){public void run(){done.countDown();}});
+        boolean interrupted = false;
+        while(true){
+            try {
+                done.await();
+                break;
+            } catch(InterruptedException exx){
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    @Override
+    void close() {
+        // queue whatever is waiting to be saved, so it's drained below.
+        this.saveDirtyData();
+        Thread writer = DataCallThread;
+        if(writer!=null){
+            Debugger.Write(DebugLevel.Informational, "Waiting for %s queued writes.", DataCallQueue.size());
+            DataCallQueue.add(STOP);
+            boolean interrupted = false;
+            while(writer.isAlive()){
+                try {
+                    writer.join();
+                } catch(InterruptedException exx){
+                    interrupted = true;
+                }
+            }
+            DataCallThread = null;
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+        // saves what's in memory, which is shared with us, and closes storage.
+        InternalStore.close();
+    }
+
     @Override
     void deleteClaimFromSecondaryStorage(final Claim claim) {
         RunThreaded(new Runnable(){public void run(){
@@ -59,61 +143,138 @@ public class ThreadedDataStore extends DataStore{
 
     @Override
     public boolean deletePlayerData(String playerName) {
-        return false;  //To change body of implemented methods use File | Settings | File Templates.
+        flush();
+        return InternalStore.deletePlayerData(playerName);
     }
 
     @Override
     public List<PlayerData> getAllPlayerData() {
-        return null;  //To change body of implemented methods use File | Settings | File Templates.
+        flush();
+        return InternalStore.getAllPlayerData();
     }
 
     @Override
     PlayerData getPlayerDataFromStorage(String playerName) {
-        return null;  //To change body of implemented methods use File | Settings | File Templates.
+        if(PendingPlayers.containsKey(playerName.toLowerCase())) flush();
+        return InternalStore.getPlayerDataFromStorage(playerName);
     }
 
     @Override
     public boolean hasPlayerData(String playerName) {
-        return false;  //To change body of implemented methods use File | Settings | File Templates.
+        return PendingPlayers.containsKey(playerName.toLowerCase()) || InternalStore.hasPlayerData(playerName);
     }
 
     @Override
     public ConcurrentHashMap<String, Integer> getAllGroupBonusBlocks() {
-        return null;
+        flush();
+        return InternalStore.getAllGroupBonusBlocks();
     }
 
     @Override
-    void incrementNextClaimID() {
-        //To change body of implemented methods use File | Settings | File Templates.
+    synchronized void incrementNextClaimID() {
+        // claims are given IDs as they're created, so this can't wait.
+        InternalStore.incrementNextClaimID();
+        this.nextClaimID = InternalStore.getNextClaimID();
     }
 
     @Override
-    void saveGroupBonusBlocks(String groupName, int amount) {
-        //To change body of implemented methods use File | Settings | File Templates.
+    void saveGroupBonusBlocks(final String groupName, final int amount) {
+        RunThreaded(new Runnable(){public void run(){
+            InternalStore.saveGroupBonusBlocks(groupName, amount);
+        }
+    });
+    }
+
+    // a copy of a claim and its subdivisions, detached from the DataStore, for
+    // the writer thread to save while the original goes on changing.
+    private Claim copyForWrite(Claim claim) {
+        // IDs are handed out here rather than by the wrapped store on the
+        // writer thread, so they reach the original too.
+        if(claim.id==null){
+            claim.id = this.getNextClaimID();
+            this.incrementNextClaimID();
+        }
+        for(Claim child:claim.children){
+            if(child.id==null){
+                child.id = this.getNextClaimID();
+                this.incrementNextClaimID();
+            }
+        }
+        return ClaimRecord.fromClaim(claim).toClaim(claim.getLesserBoundaryCorner().getWorld());
+    }
+
+    private static PlayerData copyForWrite(PlayerData playerData){
+        PlayerData copy = new PlayerData();
+        copy.playerName = playerData.playerName;
+        copy.lastLogin = playerData.lastLogin==null?null:new Date(playerData.lastLogin.getTime());
+        copy.accruedClaimBlocks = playerData.accruedClaimBlocks;
+        copy.bonusClaimBlocks = playerData.bonusClaimBlocks;
+        copy.ClearInventoryOnJoin = playerData.ClearInventoryOnJoin;
+        return copy;
     }
 
     @Override
-    public void savePlayerData(String playerName, PlayerData playerData) {
-        //To change body of implemented methods use File | Settings | File Templates.
+    public void savePlayerData(final String playerName, PlayerData livePlayerData) {
+        final PlayerData playerData = copyForWrite(livePlayerData);
+        final String key = playerName.toLowerCase();
+        final Object token = new Object();
+        PendingPlayers.put(key, token);
+        RunThreaded(new Runnable(){public void run(){
+            InternalStore.savePlayerData(playerName, playerData);
+            // leaves the entry alone if the player was saved again since.
+            PendingPlayers.remove(key, token);
+        }
+    });
     }
 
     @Override
     public long getNextClaimID() {
-        return 0;  //To change body of implemented methods use File | Settings | File Templates.
+        return InternalStore.getNextClaimID();
     }
 
     @Override
-    public void setNextClaimID(long nextClaimID2) {
-        //To change body of implemented methods use File | Settings | File Templates.
+    public synchronized void setNextClaimID(long nextClaimID2) {
+        InternalStore.setNextClaimID(nextClaimID2);
+        this.nextClaimID = InternalStore.getNextClaimID();
     }
 
     @Override
     void WorldLoaded(World worldload) {
-        //To change body of implemented methods use File | Settings | File Templates.
+        // the claims being read may have writes still queued.
+        flush();
+        InternalStore.WorldLoaded(worldload);
+        // loading can hand out claim IDs.
+        synchronized(this){
+            this.nextClaimID = InternalStore.getNextClaimID();
+        }
     }
 
     @Override
-    void writeClaimToStorage(Claim claim) {
-        //To change body of implemented methods use File | Settings | File Templates.
+    void saveClaims(Collection<Claim> claims) {
+        // subdivisions are saved with their top level claim, once.
+        Set<Claim> topLevel = Collections.newSetFromMap(new IdentityHashMap<Claim, Boolean>());
+        final ArrayList<Claim> saving = new ArrayList<Claim>(claims.size());
+        for(Claim claim:claims){
+            while(claim.parent!=null) claim = claim.parent;
+            if(topLevel.add(claim)) saving.add(copyForWrite(claim));
+        }
+        RunThreaded(new Runnable(){public void run(){
+            InternalStore.saveClaims(saving);
+        }
+    });
+    }
+
+    @Override
+    public void saveClaimData() {
+        this.saveClaims(new ArrayList<Claim>(this.claims.claimmap.values()));
+    }
+
+    @Override
+    void writeClaimToStorage(Claim liveClaim) {
+        final Claim claim = copyForWrite(liveClaim);
+        RunThreaded(new Runnable(){public void run(){
+            InternalStore.writeClaimToStorage(claim);
+        }
+    });
     }
 }
@@ -76,7 +76,7 @@ public class WorldWatcher implements Listener {
 			}
 		}
 
-		GriefPrevention.instance.dataStore.WorldLoaded(event.getWorld());
+		GriefPrevention.instance.dataStore.loadWorldClaims(event.getWorld());
 		// that should do it, simple enough.
 		LoadedWorlds.add(event.getWorld());
 		// start the cleanup listener for this world.
@@ -105,6 +105,8 @@ public class WorldWatcher implements Listener {
 
 			GriefPrevention.instance.dataStore.WorldUnloaded(event.getWorld());
 			LoadedWorlds.remove(event.getWorld());
+			if (GriefPrevention.instance.Configuration != null)
+				GriefPrevention.instance.Configuration.forgetWorld(event.getWorld());
 
 		}
 	}
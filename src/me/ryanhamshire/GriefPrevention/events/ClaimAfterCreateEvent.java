@@ -19,6 +19,11 @@ public class ClaimAfterCreateEvent extends PlayerClaimEvent {
 
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	public ClaimAfterCreateEvent(Claim claim, Player p) {
 		super(claim, p);
 
@@ -34,6 +34,11 @@ public class ClaimBeforeCreateEvent extends PlayerClaimEvent implements Cancella
 
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	boolean canceled = false;
 
 	public ClaimBeforeCreateEvent(Claim claim, Player p) {
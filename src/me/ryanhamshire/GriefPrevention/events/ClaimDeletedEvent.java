@@ -23,6 +23,11 @@ public class ClaimDeletedEvent extends Event implements Cancellable {
 		return handlers;
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	boolean canceled = false;
 
 	private Claim claim;
@@ -20,6 +20,11 @@ public class ClaimEnterEvent extends PlayerClaimEvent {
         return handlers;
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	public ClaimEnterEvent(Claim c, Player p) {
 		super(c, p);
 	}
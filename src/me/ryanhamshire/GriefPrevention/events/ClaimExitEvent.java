@@ -17,6 +17,11 @@ public class ClaimExitEvent extends PlayerClaimEvent {
 		return handlers;
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	public ClaimExitEvent(Claim c, Player p) {
 		super(c, p);
 	}
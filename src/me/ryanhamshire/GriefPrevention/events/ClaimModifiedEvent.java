@@ -30,6 +30,11 @@ public class ClaimModifiedEvent extends ClaimEvent implements Cancellable {
 		return handlers;
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	boolean canceled = false;
 
 	private String PlayerChanged;
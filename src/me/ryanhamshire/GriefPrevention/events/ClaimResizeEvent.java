@@ -22,6 +22,11 @@ public class ClaimResizeEvent extends PlayerClaimEvent implements Cancellable {
 		return handlers;
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	boolean canceled = false;
 
 	private Claim claim;
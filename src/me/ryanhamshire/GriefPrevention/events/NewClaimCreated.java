@@ -30,6 +30,11 @@ public class NewClaimCreated extends ClaimEvent implements Cancellable {
         return handlers;
     }
 
+    // lets callers skip building the event when nobody listens.
+    public static boolean hasListeners() {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+
     Claim claim;
 
     public NewClaimCreated(Claim claim) {
@@ -21,6 +21,11 @@ public class PermissionCheckEvent extends Event {
 		return handlers;
 	}
 
+	// lets callers skip building the event when nobody listens.
+	public static boolean hasListeners() {
+		return handlers.getRegisteredListeners().length > 0;
+	}
+
 	private Player CheckPlayer;
 
 	private ClaimBehaviourData PermissionCheck;
@@ -85,11 +85,10 @@ public class DeliverClaimBlocksTask implements Runnable {
 						playerData.accruedClaimBlocks = GriefPrevention.instance.config_claims_maxAccruedBlocks;
 					}
 
-					// intentionally NOT saving data here to reduce overall
-					// secondary storage access frequency
-					// many other operations will cause this players data to
-					// save, including his eventual logout
-					// dataStore.savePlayerData(player.getName(), playerData);
+					// not saved right away, to keep secondary storage access
+					// down; it's written with the next batch of changes, or at
+					// the player's eventual logout
+					dataStore.savePlayerDataLater(player.getName(), playerData);
 				}
 			} catch (Exception e) {
 			}
@@ -0,0 +1,14 @@
+package me.ryanhamshire.GriefPrevention.tasks;
+
+import me.ryanhamshire.GriefPrevention.DataStore;
+import me.ryanhamshire.GriefPrevention.GriefPrevention;
+
+//runs every DataStore.DIRTY_SAVE_INTERVAL ticks in the main thread, writing the player data and claims
+//that changed since the last run. anything still waiting when the plugin disables is written on close.
+public class SaveDirtyDataTask implements Runnable {
+	public void run() {
+		DataStore dataStore = GriefPrevention.instance.dataStore;
+		if (dataStore != null)
+			dataStore.saveDirtyData();
+	}
+}
@@ -40,6 +40,7 @@ public class SecureClaimTask implements Runnable {
 			// lock the doors
 			Claim claim = this.siegeData.claims.get(i);
 			claim.doorsOpen = false;
+			claim.permissionsChanged();
 
 			// eject bad guys
 			Player[] onlinePlayers = GriefPrevention.instance.getServer().getOnlinePlayers();
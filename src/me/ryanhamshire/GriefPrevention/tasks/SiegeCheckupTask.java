@@ -62,6 +62,7 @@ public class SiegeCheckupTask implements Runnable {
 			if (defenderClaim.canSiege(defender) && noAccessReason == null) {
 				this.siegeData.claims.add(defenderClaim);
 				defenderClaim.siegeData = this.siegeData;
+				defenderClaim.permissionsChanged();
 			}
 		}
 
@@ -23,6 +23,7 @@ import java.util.List;
 
 import me.ryanhamshire.GriefPrevention.Claim;
 import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.MaterialCollection;
 import me.ryanhamshire.GriefPrevention.PlayerData;
 import me.ryanhamshire.GriefPrevention.Configuration.WorldConfig;
 
@@ -68,9 +69,11 @@ public class Visualization {
 
 		Visualization visualization = new Visualization();
 
-		// add subdivisions first
-		for (int i = 0; i < claim.children.size(); i++) {
-			visualization.addClaimElements(claim.children.get(i), height, VisualizationType.Subdivision, locality);
+		// add subdivisions first. every one gets its corners; side lines are
+		// only drawn around the player, see addClaimElements().
+		List<Claim> subdivisions = claim.children;
+		for (int i = 0; i < subdivisions.size(); i++) {
+			visualization.addClaimElements(subdivisions.get(i), height, VisualizationType.Subdivision, locality);
 		}
 
 		// add top level last so that it takes precedence (it shows on top when
@@ -113,7 +116,7 @@ public class Visualization {
     }
 	// helper method for above. allows visualization blocks to sit underneath
 	// partly transparent blocks like grass and fence
-    private static List<Material> TransparentMaterials= null;
+    private static MaterialCollection TransparentMaterials= null;
 	private static boolean isTransparent(Block block) {
         if(TransparentMaterials==null){
             List<Material> BuildList  = new ArrayList<Material>();
@@ -140,15 +143,16 @@ public class Visualization {
                 BuildList.add(Material.STAINED_GLASS_PANE);
                 BuildList.add(Material.DOUBLE_PLANT);
             }
-            TransparentMaterials=BuildList;
+            TransparentMaterials=new MaterialCollection();
+            for(Material iterate:BuildList) TransparentMaterials.add(iterate);
         }
 		WorldConfig applicableWorld = GriefPrevention.instance.getWorldCfg(block.getWorld());
-		if (applicableWorld.getModsContainerTrustIds() != null && applicableWorld.getModsContainerTrustIds().contains(block.getType()))
+		if (applicableWorld.getModsContainerTrustIds() != null && applicableWorld.getModsContainerTrustIds().hasMaterial(block.getTypeId()))
 			return true;
-		if (applicableWorld.getModsAccessTrustIds() != null && applicableWorld.getModsAccessTrustIds().contains(block.getType()))
+		if (applicableWorld.getModsAccessTrustIds() != null && applicableWorld.getModsAccessTrustIds().hasMaterial(block.getTypeId()))
 			return true;
 
-        return TransparentMaterials.contains(block.getType());
+        return TransparentMaterials.hasMaterial(block.getTypeId());
 
 	}
 
@@ -278,6 +282,12 @@ public class Visualization {
 		int maxx = locality.getBlockX() + 100;
 		int maxz = locality.getBlockZ() + 100;
 
+		// a claim wholly off to the side of the locality has no side line
+		// points in it; skip the loops, which matters for claims with many
+		// subdivisions.
+		if ((bigx <= minx || smallx >= maxx) && (bigz <= minz || smallz >= maxz))
+			return;
+
 		// top line
 		for (int x = smallx + 10; x < bigx - 10; x += 10) {
 			if (x > minx && x < maxx)
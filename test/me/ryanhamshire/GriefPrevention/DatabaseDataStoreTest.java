@@ -0,0 +1,161 @@
+package me.ryanhamshire.GriefPrevention;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs DatabaseDataStore against an in-memory H2 database in MySQL mode.
+ */
+public class DatabaseDataStoreTest {
+
+	private static int databases = 0;
+
+	private final World world = namedWorld("world");
+	private String url;
+	// keeps the in-memory database alive between connections.
+	private Connection keepAlive;
+	private DatabaseConnectionPool pool;
+
+	@Before
+	public void openDatabase() throws Exception {
+		Class.forName("org.h2.Driver");
+		url = "jdbc:h2:mem:griefprevention" + (databases++) + ";MODE=MySQL";
+		keepAlive = DriverManager.getConnection(url);
+		pool = new DatabaseConnectionPool(url, new Properties(), 2);
+	}
+
+	@After
+	public void closeDatabase() throws SQLException {
+		pool.close();
+		keepAlive.close();
+	}
+
+	@Test
+	public void savedClaimsAreReadBack() throws Exception {
+		DatabaseDataStore store = new DatabaseDataStore(pool);
+		Claim claim = claim(5L, -20, -10, 30, 40, "Owner");
+		Claim subdivision = claim(6L, -10, 0, 0, 10, "Owner");
+		subdivision.parent = claim;
+		claim.children.add(subdivision);
+
+		store.saveClaims(Arrays.asList(claim));
+
+		List<ClaimRecord> records = store.readClaimRecords("world", 0, 0, 10, 10);
+		assertEquals(1, records.size());
+		ClaimRecord record = records.get(0);
+		assertEquals(Long.valueOf(5), record.id);
+		assertEquals(claim.getUUID(), record.uuid);
+		assertEquals("Owner", record.ownerName);
+		assertEquals("world", record.worldName);
+		assertEquals(-20, record.lesserX);
+		assertEquals(-10, record.lesserZ);
+		assertEquals(30, record.greaterX);
+		assertEquals(40, record.greaterZ);
+		assertArrayEquals(new String[] { "Builder" }, record.builders);
+		assertEquals(1, record.children.size());
+		assertEquals(Long.valueOf(6), record.children.get(0).id);
+
+		// nothing comes back for a region the claim doesn't reach.
+		assertTrue(store.readClaimRecords("world", 100, 100, 200, 200).isEmpty());
+		assertTrue(store.readClaimRecords("other", 0, 0, 10, 10).isEmpty());
+	}
+
+	@Test
+	public void savingAgainReplacesTheRow() throws Exception {
+		DatabaseDataStore store = new DatabaseDataStore(pool);
+		Claim claim = claim(5L, 0, 0, 10, 10, "Owner");
+		store.saveClaims(Arrays.asList(claim));
+
+		claim.claimOwnerName = "NewOwner";
+		claim.neverdelete = true;
+		store.saveClaims(Arrays.asList(claim));
+
+		assertEquals(1, count("SELECT COUNT(*) FROM griefprevention_claimdata WHERE id=5"));
+		ClaimRecord record = store.readClaimRecords("world", 0, 0, 10, 10).get(0);
+		assertEquals("NewOwner", record.ownerName);
+		assertTrue(record.neverdelete);
+	}
+
+	@Test
+	public void savesWithoutUniqueIdsUpdateThenInsert() throws Exception {
+		// a table from an old version, with the same ID twice; it can't get
+		// a unique index, so saves fall back on UPDATE then INSERT.
+		Statement statement = keepAlive.createStatement();
+		statement.execute("CREATE TABLE griefprevention_claimdata (id INT(15), owner VARCHAR(50), lessercorner VARCHAR(100), greatercorner VARCHAR(100), builders VARCHAR(1000), containers VARCHAR(1000), accessors VARCHAR(1000), managers VARCHAR(1000), parentid INT(15), neverdelete BOOLEAN NOT NULL DEFAULT 0)");
+		for (int i = 0; i < 2; i++)
+			statement.execute("INSERT INTO griefprevention_claimdata VALUES (1, 'Old', 'world;100;64;200', 'world;110;64;210', '', '', '', '', -1, 0)");
+		statement.close();
+
+		DatabaseDataStore store = new DatabaseDataStore(pool);
+
+		// the upgrade filled in the new columns of the old rows.
+		assertEquals(2, count("SELECT COUNT(*) FROM griefprevention_claimdata WHERE world='world' AND minx=100 AND minz=200 AND maxx=110 AND maxz=210"));
+
+		Claim claim = claim(7L, 0, 0, 10, 10, "Owner");
+		store.saveClaims(Arrays.asList(claim));
+		assertEquals(1, count("SELECT COUNT(*) FROM griefprevention_claimdata WHERE id=7"));
+
+		claim.claimOwnerName = "NewOwner";
+		store.saveClaims(Arrays.asList(claim));
+		assertEquals(1, count("SELECT COUNT(*) FROM griefprevention_claimdata WHERE id=7"));
+		assertEquals(1, count("SELECT COUNT(*) FROM griefprevention_claimdata WHERE id=7 AND owner='NewOwner'"));
+		assertEquals(2, count("SELECT COUNT(*) FROM griefprevention_claimdata WHERE id=1"));
+
+		List<ClaimRecord> records = store.readClaimRecords("world", 0, 0, 10, 10);
+		assertEquals(1, records.size());
+		assertEquals("NewOwner", records.get(0).ownerName);
+		assertFalse(records.get(0).neverdelete);
+	}
+
+	private Claim claim(long id, int x1, int z1, int x2, int z2, String owner) {
+		return new Claim(new Location(world, x1, 64, z1), new Location(world, x2, 64, z2), owner, new String[] { "Builder" }, new String[0], new String[0], new String[0], id, false);
+	}
+
+	private int count(String sql) throws SQLException {
+		Statement statement = keepAlive.createStatement();
+		try {
+			ResultSet results = statement.executeQuery(sql);
+			results.next();
+			return results.getInt(1);
+		} finally {
+			statement.close();
+		}
+	}
+
+	// a World that knows only its name, which is all the store asks of it.
+	private static World namedWorld(final String name) {
+		return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getName"))
+					return name;
+				if (method.getName().equals("equals"))
+					return proxy == args[0];
+				if (method.getName().equals("hashCode"))
+					return System.identityHashCode(proxy);
+				if (method.getName().equals("toString"))
+					return "World " + name;
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}